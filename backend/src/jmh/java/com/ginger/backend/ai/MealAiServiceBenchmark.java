@@ -0,0 +1,63 @@
+package com.ginger.backend.ai;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ginger.backend.api.dto.ParseMealResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+// Parseo de la respuesta del modelo (limpieza de ``` + Jackson + items)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MealAiServiceBenchmark {
+
+    @Param({"2", "20"})
+    int items;
+
+    private MealAiService service;
+    private String raw;
+    private String fenced;
+
+    @Setup
+    public void setup() {
+        // Solo se usa toResponse: el resto de dependencias no se tocan
+        service = new MealAiService(null, new ObjectMapper(), null, null, null, null, new SimpleMeterRegistry(),
+                ObservationRegistry.NOOP, false, 8, 8, Duration.ofMillis(10));
+
+        StringBuilder sb = new StringBuilder("""
+                {"description": "comida de prueba", "totalCalories": 850, "totalProteinG": 40,
+                 "totalCarbsG": 90, "totalFatG": 30, "totalSugarG": 12, "items": [""");
+        for (int i = 0; i < items; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("""
+                    {"name": "item %d", "quantity": "1 ración", "calories": 120, "proteinG": 6,
+                     "carbsG": 14, "fatG": 4, "sugarG": 2}""".formatted(i));
+        }
+        raw = sb.append("]}").toString();
+        fenced = "```json\n" + raw + "\n```\n";
+    }
+
+    @Benchmark
+    public ParseMealResponse parsePlain() {
+        return service.toResponse(raw, "comida");
+    }
+
+    @Benchmark
+    public ParseMealResponse parseFenced() {
+        return service.toResponse(fenced, "comida");
+    }
+
+    @Benchmark
+    public String stripCodeFencesPlain() {
+        return MealAiService.stripCodeFences(raw);
+    }
+
+    @Benchmark
+    public String stripCodeFencesFenced() {
+        return MealAiService.stripCodeFences(fenced);
+    }
+}
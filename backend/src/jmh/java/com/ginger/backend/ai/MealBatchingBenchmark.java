@@ -0,0 +1,93 @@
+package com.ginger.backend.ai;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ginger.backend.api.dto.ParseMealResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Una tanda de 64 comidas distintas desde 32 clientes a la vez contra un modelo
+ * que admite dos llamadas concurrentes (como la cuota de Gemini), sin lotes y con
+ * lotes: tiempo por tanda (sin lotes son 64 llamadas; con lotes, del orden de 8).
+ * gradle jmh -Pjmh.includes=MealBatching
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MealBatchingBenchmark {
+
+    private static final int MEALS = 64;
+    private static final int CLIENTS = 32;
+
+    @Param({"false", "true"})
+    boolean batching;
+
+    private LimitedModel model;
+    private MealAiService service;
+    private ExecutorService clients;
+
+    @Setup
+    public void setup() {
+        model = new LimitedModel(new StubAiClient("", Duration.ZERO, Duration.ZERO, 16));
+        service = new MealAiService(model, new ObjectMapper(), null, null, null, null,
+                new SimpleMeterRegistry(), ObservationRegistry.NOOP, batching, 8, 8, Duration.ofMillis(10));
+        clients = Executors.newFixedThreadPool(CLIENTS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        clients.shutdownNow();
+    }
+
+    @Benchmark
+    public double parseMeals() throws Exception {
+        List<Future<ParseMealResponse>> futures = new ArrayList<>(MEALS);
+        for (int i = 0; i < MEALS; i++) {
+            String text = "comida " + i;
+            futures.add(clients.submit(() -> service.parseWithModel(text)));
+        }
+        double calories = 0;
+        for (Future<ParseMealResponse> f : futures) calories += f.get().totalCalories();
+        return calories;
+    }
+
+    // Dos llamadas a la vez como mucho; cada llamada cuesta 20 ms más 2 ms por comida
+    private static final class LimitedModel implements AiTextModel {
+        private final AiTextModel delegate;
+        private final Semaphore permits = new Semaphore(2, true);
+
+        LimitedModel(AiTextModel delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public String generateText(AiRequest request) {
+            permits.acquireUninterruptibly();
+            try {
+                Thread.sleep(20 + 2L * request.answers());
+                return delegate.generateText(request);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } finally {
+                permits.release();
+            }
+        }
+
+        @Override
+        public String streamText(AiRequest request, Consumer<String> onChunk) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.ginger.backend.api;
+
+import com.ginger.backend.api.dto.FoodLogDto;
+import com.ginger.backend.domain.FoodLog;
+import com.ginger.backend.domain.UserProfile;
+import com.ginger.backend.domain.WaterLog;
+import com.ginger.backend.domain.WeightLog;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Coste de copiar entidades a DTOs (lo que se evita con las proyecciones)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DtoMapperBenchmark {
+
+    @Param({"25", "1000"})
+    int size;
+
+    private UserProfile user;
+    private FoodLog food;
+    private WaterLog water;
+    private WeightLog weight;
+    private List<FoodLog> foods;
+
+    @Setup
+    public void setup() {
+        user = UserProfile.builder().id(1L).name("bench").age(30).heightCm(175.0).weightKg(72.0)
+                .calorieTargetKcal(2200).proteinTargetG(140).sugarLimitG(30).waterGoalMl(2500).build();
+        food = food(1);
+        water = WaterLog.builder().id(1L).user(user).ml(250).drankAt(Instant.now()).build();
+        weight = WeightLog.builder().id(1L).userId(1L).weightKg(72.0).createdAt(Instant.now()).build();
+        foods = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) foods.add(food(i));
+    }
+
+    @Benchmark
+    public Object user() {
+        return DtoMapper.toDto(user);
+    }
+
+    @Benchmark
+    public Object foodLog() {
+        return DtoMapper.toDto(food);
+    }
+
+    @Benchmark
+    public Object waterLog() {
+        return DtoMapper.toDto(water);
+    }
+
+    @Benchmark
+    public Object weightLog() {
+        return DtoMapper.toDto(weight);
+    }
+
+    @Benchmark
+    public List<FoodLogDto> foodLogList() {
+        return foods.stream().map(DtoMapper::toDto).toList();
+    }
+
+    private FoodLog food(long id) {
+        return FoodLog.builder().id(id).user(user).description("arroz con pollo " + id)
+                .calories(550.0).proteinG(35.0).carbsG(60.0).fatG(15.0).sugarG(4.0)
+                .eatenAt(Instant.now().minusSeconds(id * 600)).createdAt(Instant.now()).build();
+    }
+}
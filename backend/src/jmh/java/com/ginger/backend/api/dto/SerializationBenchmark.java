@@ -0,0 +1,66 @@
+package com.ginger.backend.api.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ginger.backend.api.profile.DailyTotalsPoint;
+import com.ginger.backend.api.profile.HourCaloriesPoint;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Serialización JSON de las respuestas más pedidas, con un ObjectMapper configurado como el de Spring
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SerializationBenchmark {
+
+    private ObjectMapper mapper;
+    private TodaySummaryDto summary;
+    private List<DailyTotalsPoint> daily;
+    private List<HourCaloriesPoint> hourly;
+    private List<FoodLogDto> foodPage;
+
+    @Setup
+    public void setup() {
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+        summary = new TodaySummaryDto(1L, LocalDate.now().toString(),
+                new DailyTargetsDto(2200, 140, 30, 2500, 410.0),
+                new DailyProgressDto(1450.5, 92.0, 21.0, 1750, 270.0),
+                true, "16:8", 12L);
+        daily = new ArrayList<>();
+        for (int i = 0; i < 365; i++) {
+            daily.add(new DailyTotalsPoint(LocalDate.now().minusDays(i).toString(), 1800 + i, 2000));
+        }
+        hourly = new ArrayList<>();
+        for (int h = 0; h < 24; h++) hourly.add(new HourCaloriesPoint(h, 100.0 * h));
+        foodPage = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            foodPage.add(new FoodLogDto((long) i, 1L, "arroz con pollo", 550.0, 35.0, 60.0, 15.0, 4.0,
+                    Instant.now().minusSeconds(i * 3600L)));
+        }
+    }
+
+    @Benchmark
+    public byte[] todaySummary() throws Exception {
+        return mapper.writeValueAsBytes(summary);
+    }
+
+    @Benchmark
+    public byte[] dailyTotals365() throws Exception {
+        return mapper.writeValueAsBytes(daily);
+    }
+
+    @Benchmark
+    public byte[] caloriesByHour() throws Exception {
+        return mapper.writeValueAsBytes(hourly);
+    }
+
+    @Benchmark
+    public byte[] foodLogPage() throws Exception {
+        return mapper.writeValueAsBytes(foodPage);
+    }
+}
@@ -0,0 +1,60 @@
+package com.ginger.backend.api.profile;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Agrupar N logs sueltos por día / hora local en Java, con 1k-1M filas: lo que
+ * hacía StatsController antes de mandar el GROUP BY a Postgres. Sirve de
+ * referencia frente a {@link StatsEndpointBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StatsBenchmark {
+
+    private static final ZoneId ZONE = ZoneId.of("Europe/Madrid");
+
+    @Param({"1000", "100000", "1000000"})
+    int rows;
+
+    private Instant[] at;
+    private double[] calories;
+
+    @Setup
+    public void setup() {
+        Random rnd = new Random(7);
+        long now = Instant.now().getEpochSecond();
+        at = new Instant[rows];
+        calories = new double[rows];
+        for (int i = 0; i < rows; i++) {
+            at[i] = Instant.ofEpochSecond(now - rnd.nextInt(365 * 86_400));
+            calories[i] = 50 + rnd.nextInt(800);
+        }
+    }
+
+    @Benchmark
+    public Map<LocalDate, Double> inJvmByDay() {
+        Map<LocalDate, Double> out = new HashMap<>();
+        for (int i = 0; i < rows; i++) {
+            out.merge(at[i].atZone(ZONE).toLocalDate(), calories[i], Double::sum);
+        }
+        return out;
+    }
+
+    @Benchmark
+    public double[] inJvmByHour() {
+        double[] out = new double[24];
+        for (int i = 0; i < rows; i++) {
+            out[at[i].atZone(ZONE).getHour()] += calories[i];
+        }
+        return out;
+    }
+}
@@ -0,0 +1,72 @@
+package com.ginger.backend.api.profile;
+
+import com.ginger.backend.repo.DayBucket;
+import com.ginger.backend.repo.FoodLogRepo;
+import com.ginger.backend.repo.HourBucket;
+import com.ginger.backend.repo.WaterLogRepo;
+import com.ginger.backend.repo.WeightLogRepo;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * StatsController actual con repos que devuelven los buckets ya agregados: lo que
+ * queda en la JVM por petición (rellenar días/horas vacíos y montar la respuesta).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StatsEndpointBenchmark {
+
+    private static final ZoneId ZONE = ZoneId.of("Europe/Madrid");
+
+    private StatsController controller;
+
+    @Setup
+    public void setup() {
+        List<DayBucket> days = new ArrayList<>();
+        for (LocalDate d = LocalDate.now(ZONE).minusDays(400); !d.isAfter(LocalDate.now(ZONE)); d = d.plusDays(1)) {
+            String day = d.toString();
+            days.add(new DayBucket() {
+                public String getDay() { return day; }
+                public Number getTotal() { return 1800.0; }
+            });
+        }
+        List<HourBucket> hours = new ArrayList<>();
+        for (int h = 0; h < 24; h++) {
+            int hour = h;
+            hours.add(new HourBucket() {
+                public Integer getHour() { return hour; }
+                public Double getTotal() { return 300.0; }
+            });
+        }
+        controller = new StatsController(stub(WeightLogRepo.class, null, null),
+                stub(FoodLogRepo.class, days, hours), stub(WaterLogRepo.class, days, null));
+    }
+
+    @Benchmark
+    public List<DailyTotalsPoint> endpointDailyTotals365() {
+        return controller.dailyTotals(1L, 365, null, ZONE.getId());
+    }
+
+    @Benchmark
+    public List<HourCaloriesPoint> endpointCaloriesByHour() {
+        return controller.caloriesByHour(1L, 14, null, ZONE.getId());
+    }
+
+    // Repos falsos: solo responden a las consultas de buckets
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> repo, List<DayBucket> days, List<HourBucket> hours) {
+        return (T) Proxy.newProxyInstance(repo.getClassLoader(), new Class<?>[]{repo}, (proxy, method, args) ->
+                switch (method.getName()) {
+                    case "sumCaloriesByDay", "sumWaterByDay" -> days;
+                    case "sumCaloriesByHour" -> hours;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,63 @@
+package com.ginger.backend.service;
+
+import com.ginger.backend.api.profile.ActivityLevel;
+import com.ginger.backend.api.profile.Goal;
+import com.ginger.backend.api.profile.GoalPace;
+import com.ginger.backend.api.profile.Sex;
+import com.ginger.backend.domain.UserProfile;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Recalcular objetivos: un usuario (onboarding/peso) y en bloque (recalcular todos)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProfileCalculatorBenchmark {
+
+    private static final int USERS = 10_000;
+
+    private final ProfileCalculatorService calculator = new ProfileCalculatorService();
+    private List<UserProfile> profiles;
+    private UserProfile one;
+
+    @Setup
+    public void setup() {
+        Random rnd = new Random(42);
+        profiles = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) profiles.add(randomProfile(rnd));
+        one = profiles.get(0);
+    }
+
+    @Benchmark
+    public int perUser() {
+        calculator.recalcAndApply(one);
+        return one.getCalorieTargetKcal();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(USERS)
+    public void bulk(Blackhole bh) {
+        for (UserProfile u : profiles) {
+            calculator.recalcAndApply(u);
+            bh.consume(u.getCalorieTargetKcal());
+        }
+    }
+
+    private static UserProfile randomProfile(Random rnd) {
+        return UserProfile.builder()
+                .name("bench")
+                .age(18 + rnd.nextInt(60))
+                .heightCm(150.0 + rnd.nextInt(50))
+                .weightKg(50.0 + rnd.nextInt(70))
+                .sex(rnd.nextBoolean() ? Sex.MALE : Sex.FEMALE)
+                .activityLevel(ActivityLevel.values()[rnd.nextInt(ActivityLevel.values().length)])
+                .goal(Goal.values()[rnd.nextInt(Goal.values().length)])
+                .goalPace(GoalPace.values()[rnd.nextInt(GoalPace.values().length)])
+                .build();
+    }
+}
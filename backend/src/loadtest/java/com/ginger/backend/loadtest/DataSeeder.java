@@ -0,0 +1,139 @@
+package com.ginger.backend.loadtest;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Crea N usuarios sintéticos con historial realista directamente en Postgres
+ * (generate_series, mucho más rápido que ir por la API):
+ * 3-5 comidas al día, 4-8 vasos de agua, un peso cada 3 días con tendencia
+ * y un ayuno 16:8 por día, el de hoy abierto en la mitad de los usuarios.
+ * Los totales diarios se reconstruyen luego con POST /api/admin/rollups/rebuild.
+ */
+final class DataSeeder {
+
+    private static final String PREFIX = "loadtest-";
+
+    private DataSeeder() {}
+
+    /** Ids de los usuarios de carga; con loadtest.seed=true crea antes los que falten. */
+    static List<Long> prepare(LoadTestConfig cfg) throws SQLException {
+        try (Connection con = DriverManager.getConnection(cfg.dbUrl(), cfg.dbUser(), cfg.dbPassword())) {
+            con.setAutoCommit(false);
+            if (!cfg.seed()) return userIds(con, cfg.users());
+
+            int existing = count(con, "select count(*) from user_profiles where name like '" + PREFIX + "%'");
+            int missing = cfg.users() - existing;
+            if (missing > 0) {
+                long t0 = System.nanoTime();
+                insertUsers(con, existing, missing, cfg.historyDays());
+                con.commit();
+                System.out.printf("seeded %d users with %d days of history in %.1fs%n",
+                        missing, cfg.historyDays(), (System.nanoTime() - t0) / 1e9);
+            }
+            try (Statement st = con.createStatement()) {
+                st.execute("analyze");
+            }
+            con.commit();
+            return userIds(con, cfg.users());
+        }
+    }
+
+    private static void insertUsers(Connection con, int from, int n, int days) throws SQLException {
+        try (Statement st = con.createStatement()) {
+            st.execute("create temp table new_users (id bigint) on commit drop");
+            st.execute("""
+                    with ins as (
+                        insert into user_profiles (name, age, height_cm, weight_kg, sex, activity_level, goal, goal_pace,
+                                                   calorie_target_kcal, protein_targetg, sugar_limitg, water_goal_ml, created_at)
+                        select '%s' || g, 20 + g %% 45, 155 + g %% 40, 55 + g %% 50,
+                               case when g %% 2 = 0 then 'MALE' else 'FEMALE' end,
+                               (array['SEDENTARY','LIGHT','MODERATE','HIGH'])[1 + g %% 4],
+                               (array['LOSE','MAINTAIN','GAIN'])[1 + g %% 3],
+                               (array['MILD','MEDIUM','AGGRESSIVE'])[1 + g %% 3],
+                               1800 + g %% 800, 100 + g %% 60, 25 + g %% 20, 2000 + (g %% 10) * 100,
+                               now() - interval '%d days'
+                        from generate_series(%d, %d) g
+                        returning id
+                    )
+                    insert into new_users select id from ins
+                    """.formatted(PREFIX, days, from + 1, from + n));
+
+            // Comidas: 3-5 al día repartidas entre 7:00 y 22:00
+            st.execute("""
+                    insert into food_logs (id, user_id, eaten_at, description, calories, proteing, carbsg, fatg, sugarg, created_at)
+                    select nextval('food_logs_seq'), u.id, ts,
+                           (array['arroz con pollo','ensalada césar','tostada con aguacate','yogur con fruta',
+                                  'pasta boloñesa','salmón con verduras','bocadillo de jamón','lentejas'])[1 + (u.id + d + m) %% 8],
+                           200 + random() * 600, 5 + random() * 40, 10 + random() * 80, 3 + random() * 30, random() * 25,
+                           ts
+                    from new_users u
+                    cross join generate_series(0, %d) d
+                    cross join lateral generate_series(1, 3 + (u.id + d) %% 3) m
+                    cross join lateral (select date_trunc('day', now()) - d * interval '1 day'
+                                               + interval '7 hours' + m * interval '3 hours'
+                                               + random() * interval '90 minutes' as ts) t
+                    where ts < now()
+                    """.formatted(days - 1));
+
+            // Agua: 4-8 vasos al día
+            st.execute("""
+                    insert into water_logs (id, user_id, drank_at, ml)
+                    select nextval('water_logs_seq'), u.id, ts, (array[200, 250, 330, 500])[1 + (u.id + d + k) %% 4]
+                    from new_users u
+                    cross join generate_series(0, %d) d
+                    cross join lateral generate_series(1, 4 + (u.id + d) %% 5) k
+                    cross join lateral (select date_trunc('day', now()) - d * interval '1 day'
+                                               + interval '8 hours' + k * interval '100 minutes' as ts) t
+                    where ts < now()
+                    """.formatted(days - 1));
+
+            // Peso cada 3 días con una ligera tendencia a la baja
+            st.execute("""
+                    insert into weight_log (id, user_id, weight_kg, created_at)
+                    select nextval('weight_log_seq'), u.id, p.weight_kg - d * 0.02 + random() * 0.6,
+                           now() - d * interval '1 day'
+                    from new_users u
+                    join user_profiles p on p.id = u.id
+                    cross join generate_series(0, %d, 3) d
+                    """.formatted(days - 1));
+
+            // Ayuno 16:8 diario; el de hoy queda abierto en la mitad de los usuarios
+            st.execute("""
+                    insert into fasting_sessions (id, user_id, started_at, ended_at, protocol)
+                    select nextval('fasting_sessions_seq'), u.id,
+                           date_trunc('day', now()) - d * interval '1 day' - interval '4 hours',
+                           case when d = 0 and u.id %% 2 = 0 then null
+                                else date_trunc('day', now()) - d * interval '1 day' + interval '12 hours' end,
+                           '16:8'
+                    from new_users u
+                    cross join generate_series(0, %d) d
+                    """.formatted(days - 1));
+        }
+    }
+
+    private static List<Long> userIds(Connection con, int limit) throws SQLException {
+        List<Long> ids = new ArrayList<>();
+        try (PreparedStatement ps = con.prepareStatement(
+                "select id from user_profiles where name like '" + PREFIX + "%' order by id limit ?")) {
+            ps.setInt(1, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) ids.add(rs.getLong(1));
+            }
+        }
+        return ids;
+    }
+
+    private static int count(Connection con, String sql) throws SQLException {
+        try (Statement st = con.createStatement(); ResultSet rs = st.executeQuery(sql)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.ginger.backend.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/** Latencias (HdrHistogram, en µs) y resultados de un endpoint durante la medición. */
+final class EndpointStats {
+
+    private final Recorder latency = new Recorder(3);
+    private final Histogram total = new Histogram(3);
+    final LongAdder ok = new LongAdder();
+    final LongAdder httpErrors = new LongAdder();
+    final LongAdder ioErrors = new LongAdder();
+    final LongAdder dropped = new LongAdder();
+
+    void record(long micros, int status) {
+        latency.recordValue(Math.max(1, micros));
+        if (status >= 200 && status < 400) ok.increment();
+        else httpErrors.increment();
+    }
+
+    void recordIoError(long micros) {
+        latency.recordValue(Math.max(1, micros));
+        ioErrors.increment();
+    }
+
+    synchronized Histogram histogram() {
+        total.add(latency.getIntervalHistogram());
+        return total;
+    }
+
+    long requests() {
+        return ok.sum() + httpErrors.sum() + ioErrors.sum() + dropped.sum();
+    }
+
+    long errors() {
+        return httpErrors.sum() + ioErrors.sum() + dropped.sum();
+    }
+}
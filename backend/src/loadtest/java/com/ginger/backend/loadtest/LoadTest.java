@@ -0,0 +1,201 @@
+package com.ginger.backend.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.ginger.backend.loadtest.LoadTestConfig.Endpoint;
+import org.HdrHistogram.Histogram;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Prueba de carga de extremo a extremo contra un backend ya arrancado.
+ *
+ * Modelo abierto: las peticiones salen a ritmo fijo (loadtest.rps) aunque el
+ * servidor se retrase, y la latencia se mide desde el instante en que tocaba
+ * enviarlas, así los atascos no se esconden (coordinated omission).
+ * Si hay más de loadtest.maxInFlight pendientes, la petición cuenta como "dropped".
+ *
+ * Uso (ver README): gradle loadTest -Pusers=2000 -Prps=300 -Pduration=120s
+ */
+public final class LoadTest {
+
+    private static final DateTimeFormatter STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    public static void main(String[] args) throws Exception {
+        run(LoadTestConfig.fromSystemProperties());
+    }
+
+    static void run(LoadTestConfig cfg) throws Exception {
+        System.out.println("load test: " + cfg);
+
+        List<Long> users = DataSeeder.prepare(cfg);
+        if (users.isEmpty()) throw new IllegalStateException("No load test users (run with -Pseed=true)");
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
+        try {
+            HttpClient http = HttpClient.newBuilder()
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .executor(pool)
+                    .build();
+            drive(cfg, http, users);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void drive(LoadTestConfig cfg, HttpClient http, List<Long> users) throws Exception {
+        // Los logs sembrados entran por SQL: hay que recalcular daily_nutrition_totals
+        if (cfg.seed()) rebuildRollups(http, cfg);
+
+        Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+        cfg.mix().keySet().forEach(e -> stats.put(e, new EndpointStats()));
+        Endpoint[] wheel = wheel(cfg.mix());
+
+        Semaphore inFlight = new Semaphore(cfg.maxInFlight());
+        long intervalNanos = (long) (1e9 / cfg.rps());
+        long start = System.nanoTime();
+        long measureFrom = start + cfg.warmup().toNanos();
+        long end = measureFrom + cfg.duration().toNanos();
+
+        System.out.printf("warm-up %ss, then measuring %ss at %.0f req/s%n",
+                cfg.warmup().toSeconds(), cfg.duration().toSeconds(), cfg.rps());
+
+        for (long i = 0; ; i++) {
+            long intended = start + i * intervalNanos;
+            if (intended >= end) break;
+            long wait = intended - System.nanoTime();
+            if (wait > 0) LockSupport.parkNanos(wait);
+
+            ThreadLocalRandom rnd = ThreadLocalRandom.current();
+            Endpoint endpoint = wheel[rnd.nextInt(wheel.length)];
+            long userId = users.get(rnd.nextInt(users.size()));
+            boolean measured = intended >= measureFrom;
+            EndpointStats s = stats.get(endpoint);
+
+            if (!inFlight.tryAcquire()) {
+                if (measured) s.dropped.increment();
+                continue;
+            }
+            http.sendAsync(request(cfg, endpoint, userId, rnd), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((res, err) -> {
+                        inFlight.release();
+                        if (!measured) return;
+                        long micros = (System.nanoTime() - intended) / 1_000;
+                        if (err != null) s.recordIoError(micros);
+                        else s.record(micros, res.statusCode());
+                    });
+        }
+
+        // Esperar a las que quedan en vuelo (como mucho 30 s)
+        inFlight.tryAcquire(cfg.maxInFlight(), 30, TimeUnit.SECONDS);
+        report(cfg, stats);
+    }
+
+    private static HttpRequest request(LoadTestConfig cfg, Endpoint e, long userId, ThreadLocalRandom rnd) {
+        String base = cfg.baseUrl() + "/api";
+        return switch (e) {
+            case WATER -> post(base + "/water",
+                    "{\"userId\":%d,\"ml\":%d}".formatted(userId, 150 + rnd.nextInt(350)));
+            case FOOD -> post(base + "/food",
+                    "{\"userId\":%d,\"description\":\"comida de carga\",\"calories\":%d,\"proteinG\":%d,\"carbsG\":%d,\"fatG\":%d}"
+                            .formatted(userId, 150 + rnd.nextInt(700), rnd.nextInt(40), rnd.nextInt(80), rnd.nextInt(30)));
+            case SUMMARY -> get(base + "/summary/today?userId=" + userId);
+            case DAILY_TOTALS -> get(base + "/stats/daily-totals?days=30&userId=" + userId);
+            // distinctMeals textos distintos: controla la tasa de aciertos de la caché de parseo
+            case PARSE_MEAL -> post(base + "/ai/parse-meal",
+                    "{\"userId\":%d,\"text\":\"2 huevos y tostada, variante %d\"}".formatted(userId, rnd.nextInt(cfg.distinctMeals())));
+        };
+    }
+
+    private static HttpRequest get(String url) {
+        return HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(30)).GET().build();
+    }
+
+    private static HttpRequest post(String url, String json) {
+        return HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private static void rebuildRollups(HttpClient http, LoadTestConfig cfg) throws Exception {
+        HttpResponse<String> res = http.send(post(cfg.baseUrl() + "/api/admin/rollups/rebuild", ""),
+                HttpResponse.BodyHandlers.ofString());
+        if (res.statusCode() != 200) {
+            throw new IllegalStateException("rollup rebuild failed: " + res.statusCode() + " " + res.body());
+        }
+    }
+
+    // Rueda de pesos: cada endpoint aparece tantas veces como su peso
+    private static Endpoint[] wheel(Map<Endpoint, Integer> mix) {
+        List<Endpoint> out = new ArrayList<>();
+        mix.forEach((e, w) -> { for (int i = 0; i < w; i++) out.add(e); });
+        return out.toArray(Endpoint[]::new);
+    }
+
+    private static void report(LoadTestConfig cfg, Map<Endpoint, EndpointStats> stats) throws Exception {
+        double secs = cfg.duration().toMillis() / 1000.0;
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("config", cfg);
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+
+        System.out.printf("%n%-13s %8s %9s %8s %8s %8s %8s %8s%n",
+                "endpoint", "requests", "req/s", "err %", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        for (var entry : stats.entrySet()) {
+            EndpointStats s = entry.getValue();
+            Histogram h = s.histogram();
+            long n = s.requests();
+            double errPct = n == 0 ? 0 : 100.0 * s.errors() / n;
+            System.out.printf("%-13s %8d %9.1f %8.2f %8.1f %8.1f %8.1f %8.1f%n",
+                    entry.getKey(), n, n / secs, errPct,
+                    ms(h.getValueAtPercentile(50)), ms(h.getValueAtPercentile(95)),
+                    ms(h.getValueAtPercentile(99)), ms(h.getMaxValue()));
+
+            Map<String, Object> e = new LinkedHashMap<>();
+            e.put("requests", n);
+            e.put("throughput", n / secs);
+            e.put("ok", s.ok.sum());
+            e.put("httpErrors", s.httpErrors.sum());
+            e.put("ioErrors", s.ioErrors.sum());
+            e.put("dropped", s.dropped.sum());
+            e.put("errorRate", n == 0 ? 0 : (double) s.errors() / n);
+            e.put("p50Ms", ms(h.getValueAtPercentile(50)));
+            e.put("p95Ms", ms(h.getValueAtPercentile(95)));
+            e.put("p99Ms", ms(h.getValueAtPercentile(99)));
+            e.put("maxMs", ms(h.getMaxValue()));
+            endpoints.put(entry.getKey().name(), e);
+        }
+        json.put("endpoints", endpoints);
+
+        Path dir = Path.of(cfg.resultsDir());
+        Files.createDirectories(dir);
+        Path file = dir.resolve("results-" + LocalDateTime.now().format(STAMP) + ".json");
+        new ObjectMapper().findAndRegisterModules().enable(SerializationFeature.INDENT_OUTPUT)
+                .disable(SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS)
+                .writeValue(file.toFile(), json);
+        System.out.println("\nresults: " + file.toAbsolutePath());
+    }
+
+    private static double ms(long micros) {
+        return micros / 1000.0;
+    }
+}
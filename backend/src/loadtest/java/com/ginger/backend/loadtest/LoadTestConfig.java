@@ -0,0 +1,75 @@
+package com.ginger.backend.loadtest;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Parámetros de la prueba de carga, leídos de propiedades de sistema
+ * (gradle loadTest -Pusers=2000 -Prps=300 ... las pasa como -Dloadtest.*).
+ */
+record LoadTestConfig(
+        String baseUrl,
+        String dbUrl,
+        String dbUser,
+        String dbPassword,
+        boolean seed,
+        int users,
+        int historyDays,
+        double rps,
+        Duration warmup,
+        Duration duration,
+        int maxInFlight,
+        Map<Endpoint, Integer> mix,
+        int distinctMeals,
+        String resultsDir
+) {
+
+    /** Peticiones que se mezclan; el peso relativo se configura con loadtest.mix. */
+    enum Endpoint { WATER, FOOD, SUMMARY, DAILY_TOTALS, PARSE_MEAL }
+
+    static LoadTestConfig fromSystemProperties() {
+        return new LoadTestConfig(
+                prop("baseUrl", "http://localhost:8081"),
+                prop("dbUrl", "jdbc:postgresql://localhost:5432/ginger"),
+                prop("dbUser", "ginger_user"),
+                prop("dbPassword", "ginger_pass"),
+                Boolean.parseBoolean(prop("seed", "true")),
+                Integer.parseInt(prop("users", "1000")),
+                Integer.parseInt(prop("historyDays", "90")),
+                Double.parseDouble(prop("rps", "100")),
+                Duration.parse("PT" + prop("warmup", "10s").toUpperCase()),
+                Duration.parse("PT" + prop("duration", "60s").toUpperCase()),
+                Integer.parseInt(prop("maxInFlight", "2000")),
+                parseMix(prop("mix", "water=30,food=20,summary=35,dailyTotals=10,parseMeal=5")),
+                Integer.parseInt(prop("distinctMeals", "500")),
+                prop("resultsDir", "build/loadtest")
+        );
+    }
+
+    // "water=30,food=20,..." -> pesos por endpoint
+    static Map<Endpoint, Integer> parseMix(String spec) {
+        Map<Endpoint, Integer> mix = new LinkedHashMap<>();
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split("=");
+            if (kv.length != 2) throw new IllegalArgumentException("Bad mix entry: " + part);
+            Endpoint e = switch (kv[0].trim()) {
+                case "water" -> Endpoint.WATER;
+                case "food" -> Endpoint.FOOD;
+                case "summary" -> Endpoint.SUMMARY;
+                case "dailyTotals" -> Endpoint.DAILY_TOTALS;
+                case "parseMeal" -> Endpoint.PARSE_MEAL;
+                default -> throw new IllegalArgumentException("Unknown endpoint in mix: " + kv[0]);
+            };
+            int w = Integer.parseInt(kv[1].trim());
+            if (w > 0) mix.put(e, w);
+        }
+        if (mix.isEmpty()) throw new IllegalArgumentException("Empty mix");
+        return mix;
+    }
+
+    private static String prop(String name, String def) {
+        String v = System.getProperty("loadtest." + name);
+        return v == null || v.isBlank() ? def : v;
+    }
+}
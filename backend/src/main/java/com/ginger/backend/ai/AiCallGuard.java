@@ -0,0 +1,358 @@
+package com.ginger.backend.ai;
+
+import io.micrometer.context.ContextSnapshot;
+import io.micrometer.context.ContextSnapshotFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Protección de las llamadas al modelo (GeminiAiClient):
+ * - plazo por intento ({@code attempt-timeout}) y total ({@code timeout}, reintentos incluidos);
+ * - hedging: si el intento tarda más que el p95 de las últimas llamadas buenas del mismo
+ *   tipo ({@link Kind}), se lanza un segundo y gana el primero que responda bien;
+ * - reintentos acotados con backoff exponencial y jitter completo, solo para errores
+ *   transitorios (timeout, red, 408/429/5xx);
+ * - circuito: con muchos fallos seguidos se deja de llamar y se falla al momento.
+ * Sin disponibilidad se lanza AiUnavailableException (503).
+ *
+ * Los intentos corren en un pool propio y acotado; un intento que vence el plazo no
+ * se puede cortar (el SDK no lo permite) y termina en segundo plano, pero quien llama
+ * ya no lo espera.
+ * Métricas: ai.calls.hedges{result=won|lost}, ai.calls.hedge.win.ratio,
+ * ai.calls.retries, ai.calls.timeouts, circuit.state{name=ai,state} y circuit.rejected{name=ai}.
+ */
+@Component
+public class AiCallGuard {
+
+    /**
+     * Tipo de llamada, con su propia ventana de latencias para el hedge: un lote de
+     * comidas tarda más a propósito y, medido contra el p95 de las sueltas, se
+     * duplicaría justo cuando el modelo va lento.
+     */
+    public enum Kind { SINGLE, BATCH }
+
+    // El SDK pone el código HTTP al principio del mensaje ("503 Service Unavailable. ...")
+    private static final Pattern TRANSIENT_STATUS = Pattern.compile("^(408|429|5\\d\\d)\\b");
+
+    // Percentil para el hedge y llamadas buenas mínimas antes de fiarse de él
+    private static final double HEDGE_PERCENTILE = 0.95;
+    private static final int HEDGE_MIN_SAMPLES = 20;
+
+    private final long timeoutNanos;
+    private final long attemptTimeoutNanos;
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final boolean hedgeEnabled;
+    private final long hedgeMinDelayNanos;
+    private final CircuitBreaker circuit;
+
+    private final ThreadPoolExecutor pool;
+    private final ContextSnapshotFactory snapshots = ContextSnapshotFactory.builder().build();
+
+    private final Map<Kind, LatencyWindow> latencies = new EnumMap<>(Kind.class);
+
+    private final Counter hedgesWon;
+    private final Counter hedgesLost;
+    private final Counter retries;
+    private final Counter timeouts;
+
+    public AiCallGuard(MeterRegistry registry,
+                       @Value("${app.ai.resilience.timeout:30s}") Duration timeout,
+                       @Value("${app.ai.resilience.attempt-timeout:15s}") Duration attemptTimeout,
+                       @Value("${app.ai.resilience.retry.max-attempts:3}") int maxAttempts,
+                       @Value("${app.ai.resilience.retry.initial-backoff:200ms}") Duration initialBackoff,
+                       @Value("${app.ai.resilience.retry.max-backoff:2s}") Duration maxBackoff,
+                       @Value("${app.ai.resilience.hedge.enabled:true}") boolean hedgeEnabled,
+                       @Value("${app.ai.resilience.hedge.min-delay:500ms}") Duration hedgeMinDelay,
+                       @Value("${app.ai.resilience.circuit.window:20}") int circuitWindow,
+                       @Value("${app.ai.resilience.circuit.failure-rate:0.5}") double circuitFailureRate,
+                       @Value("${app.ai.resilience.circuit.open-for:30s}") Duration circuitOpenFor,
+                       @Value("${app.ai.resilience.max-concurrent:32}") int maxConcurrent) {
+        this.timeoutNanos = timeout.toNanos();
+        this.attemptTimeoutNanos = attemptTimeout.toNanos();
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffNanos = initialBackoff.toNanos();
+        this.maxBackoffNanos = maxBackoff.toNanos();
+        this.hedgeEnabled = hedgeEnabled;
+        this.hedgeMinDelayNanos = hedgeMinDelay.toNanos();
+        for (Kind kind : Kind.values()) latencies.put(kind, new LatencyWindow());
+        this.circuit = new CircuitBreaker("ai", circuitWindow, Math.max(1, circuitWindow / 2),
+                circuitFailureRate, circuitOpenFor, registry);
+
+        AtomicInteger n = new AtomicInteger();
+        // Sin cola: si ya hay maxConcurrent intentos en vuelo, se rechaza en vez de esperar
+        this.pool = new ThreadPoolExecutor(0, maxConcurrent, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), r -> {
+            Thread t = new Thread(r, "ai-call-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }, new ThreadPoolExecutor.AbortPolicy());
+
+        this.hedgesWon = hedges(registry, "won");
+        this.hedgesLost = hedges(registry, "lost");
+        this.retries = Counter.builder("ai.calls.retries").register(registry);
+        this.timeouts = Counter.builder("ai.calls.timeouts").register(registry);
+        Gauge.builder("ai.calls.hedge.win.ratio", () -> {
+            double total = hedgesWon.count() + hedgesLost.count();
+            return total == 0 ? 0.0 : hedgesWon.count() / total;
+        }).register(registry);
+    }
+
+    /** Llamada completa: circuito, plazos, hedge y reintentos. */
+    public <T> T call(Supplier<T> attempt) {
+        return call(Kind.SINGLE, attempt);
+    }
+
+    public <T> T call(Kind kind, Supplier<T> attempt) {
+        CircuitBreaker.Permit permit = circuit.tryAcquire();
+        if (permit == null) {
+            throw new AiUnavailableException("AI model is unavailable (circuit open), try again later");
+        }
+
+        long deadline = System.nanoTime() + timeoutNanos;
+        RuntimeException last = null;
+        for (int i = 1; i <= maxAttempts; i++) {
+            try {
+                T value = hedged(kind, attempt, deadline);
+                permit.onSuccess();
+                return value;
+            } catch (PoolSaturatedException e) {
+                // No llegó al modelo: no cuenta como éxito (cerraría un HALF_OPEN sin probar nada).
+                // Si un intento anterior ya falló, ese fallo sí se apunta
+                if (last == null) {
+                    permit.release();
+                    throw e;
+                }
+                break;
+            } catch (RuntimeException e) {
+                last = e;
+                if (!isTransient(e)) {
+                    // 4xx, respuesta vacía o ilegible: es la petición, no el servicio.
+                    // Tampoco demuestra que el modelo vaya bien: no cuenta ni como éxito
+                    permit.release();
+                    throw e;
+                }
+                if (i == maxAttempts || circuit.state() == CircuitBreaker.State.OPEN) break;
+
+                long backoff = backoff(i);
+                if (System.nanoTime() + backoff >= deadline) break;
+                retries.increment();
+                if (!sleep(backoff)) break;
+            } catch (Error e) {
+                permit.onFailure();
+                throw e;
+            }
+        }
+        permit.onFailure();
+        throw new AiUnavailableException("AI model is unavailable: " + last.getMessage(), last);
+    }
+
+    /**
+     * Solo circuito, para el streaming: los trozos ya enviados no se pueden repetir
+     * ni duplicar, así que no hay hedge ni reintentos, y el plazo lo pone el SDK.
+     */
+    public <T> T guard(Supplier<T> call) {
+        CircuitBreaker.Permit permit = circuit.tryAcquire();
+        if (permit == null) {
+            throw new AiUnavailableException("AI model is unavailable (circuit open), try again later");
+        }
+        try {
+            T value = call.get();
+            permit.onSuccess();
+            return value;
+        } catch (RuntimeException e) {
+            if (isTransient(e)) permit.onFailure();
+            else permit.release();
+            throw e;
+        }
+    }
+
+    public CircuitBreaker.State circuitState() {
+        return circuit.state();
+    }
+
+    private <T> T hedged(Kind kind, Supplier<T> attempt, long deadline) {
+        long start = System.nanoTime();
+        long attemptDeadline = Math.min(deadline, start + attemptTimeoutNanos);
+        LatencyWindow window = latencies.get(kind);
+        CompletableFuture<Outcome<T>> first = submit(attempt, window, false);
+        // Saturación local, no fallo del modelo: 503 sin reintentar ni contar para el circuito
+        if (first == null) throw new PoolSaturatedException();
+
+        long hedgeAt = hedgeDelay(kind);
+        if (hedgeAt < 0 || start + hedgeAt >= attemptDeadline) {
+            return await(first, attemptDeadline).value();
+        }
+
+        try {
+            return first.get(hedgeAt, TimeUnit.NANOSECONDS).value();
+        } catch (TimeoutException slow) {
+            // Sigue en marcha; se lanza el segundo y vale el primero que responda bien
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AiUnavailableException("Interrupted while waiting for AI model", e);
+        }
+
+        CompletableFuture<Outcome<T>> second = submit(attempt, window, true);
+        if (second == null) return await(first, attemptDeadline).value();
+
+        Outcome<T> winner = await(firstSuccess(first, second), attemptDeadline);
+        (winner.hedge() ? hedgesWon : hedgesLost).increment();
+        return winner.value();
+    }
+
+    private <T> CompletableFuture<Outcome<T>> submit(Supplier<T> attempt, LatencyWindow window, boolean hedge) {
+        // Mismo contexto (traza/span) que quien llama, como en AiExecutor
+        ContextSnapshot snapshot = snapshots.captureAll();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try (ContextSnapshot.Scope scope = snapshot.setThreadLocals()) {
+                    long t0 = System.nanoTime();
+                    T value = attempt.get();
+                    window.record(System.nanoTime() - t0);
+                    return new Outcome<>(value, hedge);
+                }
+            }, pool);
+        } catch (RejectedExecutionException e) {
+            return null;
+        }
+    }
+
+    // Completa con el primer éxito; falla solo si fallan los dos (con el último error)
+    private static <T> CompletableFuture<Outcome<T>> firstSuccess(CompletableFuture<Outcome<T>> a,
+                                                                  CompletableFuture<Outcome<T>> b) {
+        CompletableFuture<Outcome<T>> any = new CompletableFuture<>();
+        AtomicInteger failed = new AtomicInteger();
+        for (CompletableFuture<Outcome<T>> f : Arrays.asList(a, b)) {
+            f.whenComplete((v, e) -> {
+                if (e == null) any.complete(v);
+                else if (failed.incrementAndGet() == 2) any.completeExceptionally(e);
+            });
+        }
+        return any;
+    }
+
+    private <T> T await(CompletableFuture<T> future, long deadline) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            throw new AiUnavailableException("AI model did not answer in time", e);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AiUnavailableException("Interrupted while waiting for AI model", e);
+        }
+    }
+
+    private static RuntimeException unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        // CompletableFuture envuelve lo que lanza la tarea en CompletionException
+        if (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof RuntimeException re) return re;
+        if (cause instanceof Error err) throw err;
+        return new IllegalStateException(cause);
+    }
+
+    // Transitorio: timeout propio, error de red o 408/429/5xx en cualquier nivel de la causa
+    static boolean isTransient(Throwable e) {
+        if (e instanceof AiUnavailableException) return true;
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof IOException || t instanceof TimeoutException) return true;
+            if (t.getMessage() != null && TRANSIENT_STATUS.matcher(t.getMessage()).find()) return true;
+        }
+        return false;
+    }
+
+    // Jitter completo: aleatorio entre 0 y initial * 2^(n-1), con tope
+    private long backoff(int attempt) {
+        long cap = Math.min(maxBackoffNanos, initialBackoffNanos << Math.min(attempt - 1, 20));
+        return cap <= 0 ? 0 : ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    // -1 = sin hedge (desactivado o aún sin historial suficiente de ese tipo)
+    long hedgeDelay(Kind kind) {
+        if (!hedgeEnabled) return -1;
+        long p = latencies.get(kind).percentile(HEDGE_PERCENTILE);
+        return p < 0 ? -1 : Math.max(hedgeMinDelayNanos, p);
+    }
+
+    // false si se interrumpe: se deja de reintentar
+    private static boolean sleep(long nanos) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private static Counter hedges(MeterRegistry registry, String result) {
+        return Counter.builder("ai.calls.hedges")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private record Outcome<T>(T value, boolean hedge) {}
+
+    // Latencias de los últimos intentos buenos (ns), en ventana circular
+    private static final class LatencyWindow {
+        private final long[] latencies = new long[200];
+        private int next;
+        private int count;
+
+        synchronized void record(long nanos) {
+            latencies[next] = nanos;
+            next = (next + 1) % latencies.length;
+            if (count < latencies.length) count++;
+        }
+
+        // -1 = menos de HEDGE_MIN_SAMPLES muestras
+        synchronized long percentile(double p) {
+            if (count < HEDGE_MIN_SAMPLES) return -1;
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return sorted[(int) Math.ceil(p * count) - 1];
+        }
+    }
+
+    // Sin hilo libre en el pool; sigue siendo un RejectedExecutionException (503)
+    private static final class PoolSaturatedException extends RejectedExecutionException {
+        PoolSaturatedException() {
+            super("Too many AI calls in flight, try again later");
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.ginger.backend.ai;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.context.ContextSnapshotFactory;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool propio para las llamadas a Gemini, separado del de Tomcat: las peticiones
+ * lentas de IA no pueden dejar sin hilos al resto de endpoints. Acotado en hilos
+ * y en cola; si se llena, execute() lanza RejectedExecutionException (503).
+ * Métricas (name=aiExecutor): executor.queued (profundidad de cola),
+ * executor.idle (espera en cola) y executor.execution (tiempo de ejecución).
+ * Cada tarea lleva el contexto de quien la encola (traza/span actual).
+ *
+ * No se registra como bean Executor para no sustituir el applicationTaskExecutor de Spring.
+ */
+@Component
+public class AiExecutor {
+
+    private final ThreadPoolExecutor pool;
+    private final ExecutorService timed; // mismo pool, con timers de espera/ejecución
+    private final ContextSnapshotFactory snapshots = ContextSnapshotFactory.builder().build();
+
+    public AiExecutor(MeterRegistry registry,
+                      @Value("${app.ai.executor.threads:8}") int threads,
+                      @Value("${app.ai.executor.queue-capacity:200}") int queueCapacity) {
+        AtomicInteger n = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(
+                threads, threads,
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "ai-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        pool.allowCoreThreadTimeOut(true);
+
+        this.timed = ExecutorServiceMetrics.monitor(registry, pool, "aiExecutor");
+    }
+
+    public void execute(Runnable task) {
+        try {
+            timed.execute(snapshots.captureAll().wrap(task));
+        } catch (RejectedExecutionException e) {
+            throw new RejectedExecutionException("AI queue is full, try again later", e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,138 @@
+package com.ginger.backend.ai;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ginger.backend.api.dto.AiJobDto;
+import com.ginger.backend.service.UserProfileCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Trabajos asíncronos de IA: el endpoint responde 202 con un id y la llamada a
+ * Gemini corre en el AiExecutor. El resultado se consulta por id (o long-poll)
+ * durante app.ai.jobs.retention.
+ */
+@Service
+public class AiJobService {
+
+    public static final String PARSE_MEAL = "parse-meal";
+    public static final String LOG_MEAL = "log-meal";
+
+    private final MealAiService mealAiService;
+    private final UserProfileCache users;
+    private final AiExecutor executor;
+    private final Cache<String, AiJob> jobs;
+
+    public AiJobService(MealAiService mealAiService,
+                        UserProfileCache users,
+                        AiExecutor executor,
+                        @Value("${app.ai.jobs.retention:15m}") Duration retention,
+                        @Value("${app.ai.jobs.max-size:10000}") long maxSize) {
+        this.mealAiService = mealAiService;
+        this.users = users;
+        this.executor = executor;
+        this.jobs = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(retention)
+                .build();
+    }
+
+    public AiJobDto submitParseMeal(String text) {
+        return submit(PARSE_MEAL, () -> mealAiService.parseMeal(text));
+    }
+
+    public AiJobDto submitLogMeal(Long userId, String text) {
+        // Usuario inexistente = 400 inmediato, no un trabajo fallido
+        users.require(userId);
+        return submit(LOG_MEAL, () -> mealAiService.parseAndLogMeal(userId, text));
+    }
+
+    public AiJobDto get(String id) {
+        return find(id).toDto();
+    }
+
+    /**
+     * Long-poll: se completa cuando termina el trabajo o al pasar maxWait (con el
+     * estado de ese momento). No ocupa un hilo de Tomcat mientras espera.
+     */
+    public CompletableFuture<AiJobDto> await(String id, Duration maxWait) {
+        AiJob job = find(id);
+        return job.done
+                .handle((r, e) -> job.toDto())
+                .completeOnTimeout(null, maxWait.toMillis(), TimeUnit.MILLISECONDS)
+                .thenApply(dto -> dto != null ? dto : job.toDto());
+    }
+
+    private AiJobDto submit(String kind, Supplier<Object> work) {
+        AiJob job = new AiJob(UUID.randomUUID().toString(), kind);
+        jobs.put(job.id, job);
+
+        try {
+            executor.execute(() -> job.run(work));
+        } catch (RuntimeException e) {
+            jobs.invalidate(job.id);
+            throw e;
+        }
+        return job.toDto();
+    }
+
+    private AiJob find(String id) {
+        AiJob job = jobs.getIfPresent(id);
+        // Id desconocido o ya caducado (retention): 404, no es una petición mal formada
+        if (job == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Job not found");
+        return job;
+    }
+
+    private static final class AiJob {
+        final String id;
+        final String kind;
+        final Instant createdAt = Instant.now();
+        final CompletableFuture<Object> done = new CompletableFuture<>();
+        volatile Instant startedAt;
+        volatile Instant finishedAt;
+        volatile String error;
+
+        AiJob(String id, String kind) {
+            this.id = id;
+            this.kind = kind;
+        }
+
+        void run(Supplier<Object> work) {
+            startedAt = Instant.now();
+            try {
+                Object result = work.get();
+                finishedAt = Instant.now();
+                done.complete(result);
+            } catch (RuntimeException e) {
+                finishedAt = Instant.now();
+                error = e.getMessage();
+                done.completeExceptionally(e);
+            }
+        }
+
+        AiJobDto toDto() {
+            String status;
+            Object result = null;
+
+            if (done.isCompletedExceptionally()) {
+                status = "FAILED";
+            } else if (done.isDone()) {
+                status = "SUCCEEDED";
+                result = done.join();
+            } else {
+                status = startedAt == null ? "QUEUED" : "RUNNING";
+            }
+
+            return new AiJobDto(id, kind, status, result, error, createdAt, startedAt, finishedAt);
+        }
+    }
+}
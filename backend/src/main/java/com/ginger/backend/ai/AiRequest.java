@@ -0,0 +1,21 @@
+package com.ginger.backend.ai;
+
+/**
+ * Petición al modelo: instrucciones de sistema (fijas por caso de uso), el texto
+ * del usuario y, opcionalmente, el esquema JSON de la respuesta (formato Schema de
+ * Gemini: type en mayúsculas, properties, required, propertyOrdering). Con esquema
+ * la respuesta es siempre JSON válido, sin markdown.
+ *
+ * answers = respuestas independientes que se piden en la misma llamada (1, o el
+ * tamaño del lote): el tope de tokens de salida se multiplica por él.
+ */
+public record AiRequest(String systemInstruction, String prompt, String responseSchema, int answers) {
+
+    public AiRequest {
+        if (answers < 1) throw new IllegalArgumentException("answers must be >= 1");
+    }
+
+    public AiRequest(String systemInstruction, String prompt, String responseSchema) {
+        this(systemInstruction, prompt, responseSchema, 1);
+    }
+}
@@ -0,0 +1,18 @@
+package com.ginger.backend.ai;
+
+import java.util.function.Consumer;
+
+/**
+ * Modelo de texto que usa MealAiService. En producción es Gemini
+ * (app.ai.provider=gemini); app.ai.provider=stub usa StubAiClient para pruebas locales.
+ */
+public interface AiTextModel {
+
+    String generateText(AiRequest request);
+
+    /**
+     * Genera en streaming: llama a onChunk con cada trozo según llega y
+     * devuelve el texto completo al final.
+     */
+    String streamText(AiRequest request, Consumer<String> onChunk);
+}
@@ -0,0 +1,19 @@
+package com.ginger.backend.ai;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * El modelo no está disponible ahora mismo: circuito abierto, plazo agotado o
+ * reintentos agotados. Es una RejectedExecutionException para que salga como 503,
+ * igual que con el pool de IA lleno; MealAiService la usa para caer a la caché.
+ */
+public class AiUnavailableException extends RejectedExecutionException {
+
+    public AiUnavailableException(String message) {
+        super(message);
+    }
+
+    public AiUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,182 @@
+package com.ginger.backend.ai;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuito por tasa de fallos sobre las últimas {@code window} llamadas.
+ * CLOSED: todo pasa. Si con al menos {@code minCalls} llamadas la tasa de fallos
+ * llega a {@code failureRate}, pasa a OPEN y rechaza sin llamar durante
+ * {@code openFor}. Después, HALF_OPEN deja pasar una sola llamada de prueba:
+ * si va bien se cierra (ventana limpia), si falla vuelve a abrirse.
+ *
+ * Cada llamada admitida lleva un {@link Permit} y se cierra con él. El permiso
+ * recuerda en qué estado se concedió: el resultado de una llamada que empezó antes
+ * de abrirse el circuito ya no cuenta, así que solo la prueba cierra un HALF_OPEN.
+ * Métricas: circuit.state{name,state} (1 en el estado actual) y
+ * circuit.rejected{name}.
+ */
+public class CircuitBreaker {
+
+    private static final Logger log = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final int minCalls;
+    private final double failureRate;
+    private final long openForNanos;
+    private final LongSupplier clock;
+    private final Counter rejected;
+
+    // Ventana circular de resultados (true = fallo)
+    private final boolean[] outcomes;
+    private int next;
+    private int calls;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private boolean probing; // HALF_OPEN: la llamada de prueba está en curso
+    private long generation; // sube en cada cambio de estado
+
+    public CircuitBreaker(String name, int window, int minCalls, double failureRate, Duration openFor,
+                          MeterRegistry registry) {
+        this(name, window, minCalls, failureRate, openFor, registry, System::nanoTime);
+    }
+
+    CircuitBreaker(String name, int window, int minCalls, double failureRate, Duration openFor,
+                   MeterRegistry registry, LongSupplier clock) {
+        this.name = name;
+        this.outcomes = new boolean[window];
+        this.minCalls = Math.min(minCalls, window);
+        this.failureRate = failureRate;
+        this.openForNanos = openFor.toNanos();
+        this.clock = clock;
+        this.rejected = Counter.builder("circuit.rejected").tag("name", name).register(registry);
+        for (State s : State.values()) {
+            Gauge.builder("circuit.state", this, b -> b.state() == s ? 1 : 0)
+                    .tag("name", name)
+                    .tag("state", s.name().toLowerCase())
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Permiso para llamar, o null si el circuito no deja pasar. Después hay que
+     * llamar a onSuccess, onFailure o release del permiso, una sola vez.
+     */
+    public synchronized Permit tryAcquire() {
+        if (state == State.OPEN && clock.getAsLong() - openedAt >= openForNanos) {
+            transition(State.HALF_OPEN);
+        }
+        boolean allowed = switch (state) {
+            case CLOSED -> true;
+            case OPEN -> false;
+            case HALF_OPEN -> {
+                if (probing) yield false;
+                probing = true;
+                yield true;
+            }
+        };
+        if (!allowed) {
+            rejected.increment();
+            return null;
+        }
+        return new Permit(generation, state == State.HALF_OPEN);
+    }
+
+    private synchronized void onSuccess(Permit p) {
+        if (p.generation != generation) return;
+        if (p.probe) {
+            probing = false;
+            reset();
+            transition(State.CLOSED);
+            return;
+        }
+        record(false);
+    }
+
+    private synchronized void onFailure(Permit p) {
+        if (p.generation != generation) return;
+        if (p.probe) {
+            probing = false;
+            open();
+            return;
+        }
+        record(true);
+        if (calls >= minCalls && failures >= failureRate * calls) {
+            open();
+        }
+    }
+
+    private synchronized void release(Permit p) {
+        if (p.probe && p.generation == generation) probing = false;
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    private void record(boolean failure) {
+        if (calls == outcomes.length) {
+            if (outcomes[next]) failures--;
+        } else {
+            calls++;
+        }
+        outcomes[next] = failure;
+        if (failure) failures++;
+        next = (next + 1) % outcomes.length;
+    }
+
+    private void open() {
+        openedAt = clock.getAsLong();
+        transition(State.OPEN);
+    }
+
+    private void reset() {
+        next = 0;
+        calls = 0;
+        failures = 0;
+    }
+
+    private void transition(State to) {
+        if (state == to) return;
+        log.warn("circuit {}: {} -> {}", name, state, to);
+        state = to;
+        generation++;
+    }
+
+    /**
+     * Una llamada admitida. probe = es la llamada de prueba de HALF_OPEN.
+     * Si el circuito cambió de estado desde que se concedió, el resultado se ignora.
+     */
+    public final class Permit {
+        private final long generation;
+        private final boolean probe;
+
+        private Permit(long generation, boolean probe) {
+            this.generation = generation;
+            this.probe = probe;
+        }
+
+        public void onSuccess() {
+            CircuitBreaker.this.onSuccess(this);
+        }
+
+        public void onFailure() {
+            CircuitBreaker.this.onFailure(this);
+        }
+
+        /** Sin resultado que apuntar: no llegó al modelo o el error era de la petición. */
+        public void release() {
+            CircuitBreaker.this.release(this);
+        }
+    }
+}
@@ -1,40 +1,189 @@
 package com.ginger.backend.ai;
 
 import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
 import com.google.genai.Client;
+import com.google.genai.ResponseStream;
+import com.google.genai.types.Content;
+import com.google.genai.types.GenerateContentConfig;
 import com.google.genai.types.GenerateContentResponse;
+import com.google.genai.types.Part;
+import com.google.genai.types.Schema;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import org.apache.http.HttpException;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 @Component
-public class GeminiAiClient {
+@ConditionalOnProperty(name = "app.ai.provider", havingValue = "gemini", matchIfMissing = true)
+public class GeminiAiClient implements AiTextModel {
 
     private final String model;
+    private final float temperature;
+    private final int maxOutputTokens;
+    private final ObservationRegistry observations;
+    private final AiCallGuard guard;
     private Client client; // lazy
 
-    public GeminiAiClient(@Value("${app.ai.model:gemini-3-flash-preview}") String model) {
+    // ai.gemini.tokens{model, direction}: tokens de entrada (prompt) y de salida por llamada
+    private final DistributionSummary inputTokens;
+    private final DistributionSummary outputTokens;
+
+    // Las instrucciones y el esquema son fijos por caso de uso: el config se construye una vez
+    private final Map<ConfigKey, GenerateContentConfig> configs = new ConcurrentHashMap<>();
+
+    public GeminiAiClient(@Value("${app.ai.model:gemini-3-flash-preview}") String model,
+                          @Value("${app.ai.temperature:0.2}") float temperature,
+                          @Value("${app.ai.max-output-tokens:2048}") int maxOutputTokens,
+                          ObservationRegistry observations,
+                          MeterRegistry registry,
+                          AiCallGuard guard) {
         this.model = model;
+        this.temperature = temperature;
+        this.maxOutputTokens = maxOutputTokens;
+        this.observations = observations;
+        this.guard = guard;
+        this.inputTokens = tokens(registry, "input");
+        this.outputTokens = tokens(registry, "output");
     }
 
-    public String generateText(String prompt) {
+    private DistributionSummary tokens(MeterRegistry registry, String direction) {
+        return DistributionSummary.builder("ai.gemini.tokens")
+                .baseUnit("tokens")
+                .tag("model", model)
+                .tag("direction", direction)
+                .register(registry);
+    }
+
+    @Override
+    public String generateText(AiRequest request) {
         ensureClient();
+        // Plazos, hedge, reintentos y circuito; cada intento es una llamada (y un span) aparte.
+        // Los lotes llevan su propio p95 para el hedge
+        var kind = request.answers() > 1 ? AiCallGuard.Kind.BATCH : AiCallGuard.Kind.SINGLE;
+        return guard.call(kind, () -> generateOnce(request));
+    }
 
-        try {
+    private String generateOnce(AiRequest request) {
+        Observation call = start("generate", request.prompt());
+        String outcome = "error";
+        try (Observation.Scope scope = call.openScope()) {
             GenerateContentResponse response =
-                    client.models.generateContent(model, prompt, null);
+                    client.models.generateContent(model, request.prompt(), config(request));
+            recordUsage(call, response);
 
             String text = response.text();
             if (text == null || text.isBlank()) {
+                outcome = "empty";
                 throw new IllegalStateException("Gemini returned empty text");
             }
+            outcome = "success";
+            call.highCardinalityKeyValue("response.chars", String.valueOf(text.length()));
             return text.trim();
 
         } catch (IOException e) {
             throw new IllegalStateException("Error calling Gemini API", e);
         } catch (HttpException e) {
             throw new RuntimeException(e);
+        } finally {
+            stop(call, outcome);
+        }
+    }
+
+    @Override
+    public String streamText(AiRequest request, Consumer<String> onChunk) {
+        ensureClient();
+        return guard.guard(() -> streamOnce(request, onChunk));
+    }
+
+    private String streamOnce(AiRequest request, Consumer<String> onChunk) {
+        Observation call = start("stream", request.prompt());
+        String outcome = "error";
+        StringBuilder full = new StringBuilder();
+        try (Observation.Scope scope = call.openScope();
+             ResponseStream<GenerateContentResponse> stream =
+                     client.models.generateContentStream(model, request.prompt(), config(request))) {
+
+            GenerateContentResponse last = null;
+            for (GenerateContentResponse chunk : stream) {
+                last = chunk;
+                String text = chunk.text();
+                if (text == null || text.isEmpty()) continue;
+                full.append(text);
+                onChunk.accept(text);
+            }
+            // El uso de tokens llega acumulado en el último trozo
+            if (last != null) recordUsage(call, last);
+            outcome = full.isEmpty() ? "empty" : "success";
+            call.highCardinalityKeyValue("response.chars", String.valueOf(full.length()));
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Error calling Gemini API", e);
+        } finally {
+            stop(call, outcome);
+        }
+
+        if (full.isEmpty()) {
+            throw new IllegalStateException("Gemini returned empty text");
         }
+        return full.toString().trim();
+    }
+
+    // ai.gemini.calls{model, operation, outcome}: timer + span. El modelo sale de la config,
+    // así que los tags están acotados; los tamaños solo van al span (alta cardinalidad)
+    private Observation start(String operation, String prompt) {
+        return Observation.createNotStarted("ai.gemini.calls", observations)
+                .contextualName("gemini " + operation)
+                .lowCardinalityKeyValue("model", model)
+                .lowCardinalityKeyValue("operation", operation)
+                .highCardinalityKeyValue("prompt.chars", String.valueOf(prompt.length()))
+                .start();
+    }
+
+    private GenerateContentConfig config(AiRequest request) {
+        var key = new ConfigKey(request.systemInstruction(), request.responseSchema(), request.answers());
+        return configs.computeIfAbsent(key, k -> {
+            // max-output-tokens es por respuesta: un lote de 8 comidas tiene 8 veces el tope
+            GenerateContentConfig.Builder config = GenerateContentConfig.builder()
+                    .temperature(temperature)
+                    .maxOutputTokens(maxOutputTokens * k.answers());
+            if (k.systemInstruction() != null) {
+                config.systemInstruction(Content.fromParts(Part.fromText(k.systemInstruction())));
+            }
+            if (k.responseSchema() != null) {
+                config.responseMimeType("application/json")
+                        .responseSchema(Schema.fromJson(k.responseSchema()));
+            }
+            return config.build();
+        });
+    }
+
+    private record ConfigKey(String systemInstruction, String responseSchema, int answers) {}
+
+    private void recordUsage(Observation call, GenerateContentResponse response) {
+        response.usageMetadata().ifPresent(usage -> {
+            usage.promptTokenCount().ifPresent(n -> {
+                inputTokens.record(n);
+                call.highCardinalityKeyValue("tokens.input", String.valueOf(n));
+            });
+            usage.candidatesTokenCount().ifPresent(n -> {
+                outputTokens.record(n);
+                call.highCardinalityKeyValue("tokens.output", String.valueOf(n));
+            });
+        });
+    }
+
+    private static void stop(Observation call, String outcome) {
+        call.lowCardinalityKeyValue("outcome", outcome);
+        call.stop();
     }
 
     private void ensureClient() {
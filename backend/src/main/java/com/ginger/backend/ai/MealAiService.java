@@ -1,136 +1,391 @@
 package com.ginger.backend.ai;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.ginger.backend.api.dto.FoodLogDto;
 import com.ginger.backend.api.dto.LogMealResponse;
 import com.ginger.backend.api.dto.MealItemDto;
 import com.ginger.backend.api.dto.ParseMealResponse;
 import com.ginger.backend.domain.FoodLog;
-import com.ginger.backend.repo.FoodLogRepo;
 import com.ginger.backend.repo.UserProfileRepo;
+import com.ginger.backend.service.NutritionLogService;
+import com.ginger.backend.service.UserProfileCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
 
 import static com.ginger.backend.api.DtoMapper.toDto;
 
 @Service
 public class MealAiService {
 
-    private final GeminiAiClient gemini;
+    private final AiTextModel model;
     private final com.fasterxml.jackson.databind.ObjectMapper mapper;
 
     private final UserProfileRepo userRepo;
-    private final FoodLogRepo foodRepo;
+    private final UserProfileCache users;
+    private final NutritionLogService logService;
+    private final MealParseCache parseCache;
 
-    public MealAiService(GeminiAiClient gemini,
+    // Peticiones iguales y simultáneas comparten una sola llamada a Gemini
+    private final SingleFlight<String, ParseMealResponse> inFlight;
+
+    // Respuestas de Gemini que no son JSON válido (se pagaron pero no sirven)
+    private final Counter parseFailures;
+
+    // Modelo caído: ai.meal.parse.fallbacks{result=hit|miss} al rehacer la comida desde la caché
+    private final Counter fallbackHits;
+    private final Counter fallbackMisses;
+
+    private final ObservationRegistry observations;
+
+    // Opcional: varias comidas distintas en una sola llamada al modelo (null = desactivado)
+    private final MicroBatcher<String, ParseMealResponse> batcher;
+
+    public MealAiService(AiTextModel model,
                          com.fasterxml.jackson.databind.ObjectMapper mapper,
                          UserProfileRepo userRepo,
-                         FoodLogRepo foodRepo) {
-        this.gemini = gemini;
+                         UserProfileCache users,
+                         NutritionLogService logService,
+                         MealParseCache parseCache,
+                         MeterRegistry registry,
+                         ObservationRegistry observations,
+                         @Value("${app.ai.batching.enabled:false}") boolean batching,
+                         @Value("${app.ai.batching.max-size:8}") int batchMaxSize,
+                         @Value("${app.ai.batching.max-fallbacks:4}") int batchMaxFallbacks,
+                         @Value("${app.ai.batching.max-wait:10ms}") Duration batchMaxWait) {
+        this.model = model;
         this.mapper = mapper;
         this.userRepo = userRepo;
-        this.foodRepo = foodRepo;
+        this.users = users;
+        this.logService = logService;
+        this.parseCache = parseCache;
+        this.inFlight = new SingleFlight<>("mealParse", registry);
+        this.parseFailures = Counter.builder("ai.meal.parse.failures").register(registry);
+        this.fallbackHits = Counter.builder("ai.meal.parse.fallbacks").tag("result", "hit").register(registry);
+        this.fallbackMisses = Counter.builder("ai.meal.parse.fallbacks").tag("result", "miss").register(registry);
+        this.observations = observations;
+        this.batcher = batching
+                ? new MicroBatcher<>("mealParse", batchMaxSize, batchMaxFallbacks, batchMaxWait, this::parseBatch, this::parseSingle, registry)
+                : null;
     }
 
     public ParseMealResponse parseMeal(String text) {
-        String prompt = """
-      You are a nutrition assistant.
-      Convert the user's free-text meal into a STRICT JSON object and output ONLY JSON (no markdown, no code fences, no commentary).
-
-      Schema:
-      {
-        "description": string,
-        "totalCalories": number,
-        "totalProteinG": number,
-        "totalCarbsG": number,
-        "totalFatG": number,
-        "totalSugarG": number,
-        "items": [
-          {
-            "name": string,
-            "quantity": string,
-            "calories": number,
-            "proteinG": number,
-            "carbsG": number,
-            "fatG": number
-            "sugarG": number
-          }
-        ]
-      }
-
-        Rules:
-        - If quantities are missing, make reasonable assumptions and set quantity as a human-friendly string.
-        - Totals must approximately match the sum of items (rounding OK).
-        - Sugar is included in carbs (do not exceed totalCarbsG by a lot).
-        - Do not add extra keys.
-
-      User meal text: "%s"
-    """.formatted(text.replace("\"", "'"));
-
-        String raw = gemini.generateText(prompt);
-
-        // Por si Gemini devuelve ```json ... ``` lo limpiamos
-        String cleaned = stripCodeFences(raw);
+        // Mismo texto (normalizado) = misma respuesta: evitamos la llamada a Gemini
+        String cacheKey = MealTextNormalizer.normalize(text);
+        var cached = parseCache.get(cacheKey);
+        if (cached.isPresent()) return cached.get();
+
+        try {
+            if (cacheKey.isBlank()) return parseWithModel(text);
+
+            return inFlight.execute(cacheKey, () -> {
+                ParseMealResponse parsed = parseWithModel(text);
+                parseCache.put(cacheKey, parsed);
+                return parsed;
+            });
+        } catch (AiUnavailableException e) {
+            return localFallback(text, e);
+        }
+    }
 
+    /**
+     * Variante en streaming: llama a onItem con cada item en cuanto el modelo
+     * termina de escribirlo y devuelve la respuesta completa (totales) al final.
+     */
+    public ParseMealResponse streamMeal(String text, Consumer<MealItemDto> onItem) {
+        String cacheKey = MealTextNormalizer.normalize(text);
+        var cached = parseCache.get(cacheKey);
+        if (cached.isPresent()) {
+            cached.get().items().forEach(onItem);
+            return cached.get();
+        }
+
+        MealStreamParser parser = new MealStreamParser(mapper, onItem);
+        String raw;
         try {
-            JsonNode json = mapper.readTree(cleaned);
-
-            String description = json.path("description").asText(text);
-            double totalCalories = json.path("totalCalories").asDouble(0);
-            double totalProtein = json.path("totalProteinG").asDouble(0);
-            double totalCarbs = json.path("totalCarbsG").asDouble(0);
-            double totalFat = json.path("totalFatG").asDouble(0);
-            double totalSugar = json.path("totalSugarG").asDouble(0);
-
-            List<MealItemDto> items = new ArrayList<>();
-            JsonNode itemsNode = json.path("items");
-            if (itemsNode.isArray()) {
-                for (JsonNode i : itemsNode) {
-                    items.add(new MealItemDto(
-                            i.path("name").asText(null),
-                            i.path("quantity").asText(null),
-                            i.path("calories").isNumber() ? i.path("calories").asDouble() : null,
-                            i.path("proteinG").isNumber() ? i.path("proteinG").asDouble() : null,
-                            i.path("carbsG").isNumber() ? i.path("carbsG").asDouble() : null,
-                            i.path("fatG").isNumber() ? i.path("fatG").asDouble() : null,
-                            i.path("sugarG").isNumber() ? i.path("sugarG").asDouble() : null
-                    ));
+            raw = model.streamText(mealRequest(text), parser::accept);
+        } catch (AiUnavailableException e) {
+            // Solo sale antes del primer trozo (circuito abierto)
+            ParseMealResponse local = localFallback(text, e);
+            local.items().forEach(onItem);
+            return local;
+        }
+
+        ParseMealResponse parsed = observedParse(raw, text);
+        parseCache.put(cacheKey, parsed);
+        return parsed;
+    }
+
+    /**
+     * Sin modelo: si cada parte de la comida ("2 huevos, tostada y café") ya está
+     * en la caché por separado, se suman. Si falta alguna, se relanza el 503. No se
+     * guarda en caché: es una aproximación.
+     */
+    ParseMealResponse localFallback(String text, AiUnavailableException cause) {
+        List<ParseMealResponse> parts = new ArrayList<>();
+        for (String part : MEAL_PARTS.split(text)) {
+            String key = MealTextNormalizer.normalize(part);
+            if (key.isBlank()) continue;
+            var hit = parseCache.get(key);
+            if (hit.isEmpty()) {
+                fallbackMisses.increment();
+                throw cause;
+            }
+            parts.add(hit.get());
+        }
+        // Una sola parte es el mismo texto que ya falló en la caché
+        if (parts.size() < 2) {
+            fallbackMisses.increment();
+            throw cause;
+        }
+        fallbackHits.increment();
+        return combine(text.trim(), parts);
+    }
+
+    static ParseMealResponse combine(String description, List<ParseMealResponse> parts) {
+        double calories = 0, protein = 0, carbs = 0, fat = 0, sugar = 0;
+        List<MealItemDto> items = new ArrayList<>();
+        for (ParseMealResponse p : parts) {
+            calories += safe(p.totalCalories());
+            protein += safe(p.totalProteinG());
+            carbs += safe(p.totalCarbsG());
+            fat += safe(p.totalFatG());
+            sugar += safe(p.totalSugarG());
+            if (p.items() != null) items.addAll(p.items());
+        }
+        return new ParseMealResponse(description, calories, protein, carbs, fat, sugar, items);
+    }
+
+    private static double safe(Double v) { return v == null ? 0.0 : v; }
+
+    ParseMealResponse parseWithModel(String text) {
+        return batcher != null ? batcher.execute(text) : parseSingle(text);
+    }
+
+    private ParseMealResponse parseSingle(String text) {
+        String raw = model.generateText(mealRequest(text));
+        return observedParse(raw, text);
+    }
+
+    /**
+     * Un lote de comidas en una llamada. Devuelve una respuesta por texto, en el
+     * mismo orden; null si esa comida no vino o no se pudo leer (MicroBatcher la
+     * repite sola). El tope de tokens de salida crece con el lote, y si aun así la
+     * respuesta llega cortada se aprovechan las comidas que vinieron completas.
+     */
+    List<ParseMealResponse> parseBatch(List<String> texts) {
+        ArrayNode input = mapper.createArrayNode();
+        for (int i = 0; i < texts.size(); i++) {
+            input.addObject().put("id", String.valueOf(i)).put("text", texts.get(i));
+        }
+        String raw = model.generateText(new AiRequest(BATCH_INSTRUCTION, input.toString(), BATCH_SCHEMA, texts.size()));
+
+        ParseMealResponse[] out = new ParseMealResponse[texts.size()];
+        for (JsonNode meal : completeMeals(raw)) {
+            int id = mealId(meal, texts.size());
+            if (id < 0 || out[id] != null) continue;
+            out[id] = toMeal(meal, texts.get(id));
+        }
+        return Arrays.asList(out);
+    }
+
+    // Lee {"meals": [...]} en streaming y se queda con cada comida terminada; si el
+    // JSON se corta a mitad (tope de tokens), las anteriores siguen valiendo
+    private List<JsonNode> completeMeals(String raw) {
+        List<JsonNode> meals = new ArrayList<>();
+        try (JsonParser p = mapper.createParser(stripCodeFences(raw))) {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                parseFailures.increment();
+                return meals;
+            }
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                boolean isMeals = "meals".equals(p.currentName());
+                if (p.nextToken() != JsonToken.START_ARRAY || !isMeals) {
+                    p.skipChildren();
+                    continue;
+                }
+                while (p.nextToken() == JsonToken.START_OBJECT) {
+                    meals.add(mapper.readTree(p));
                 }
+                break;
             }
+        } catch (IOException e) {
+            parseFailures.increment();
+        }
+        return meals;
+    }
+
+    private static int mealId(JsonNode meal, int size) {
+        try {
+            int id = Integer.parseInt(meal.path("id").asText());
+            return id >= 0 && id < size ? id : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // Span propio para separar en la traza el parseo del JSON de la llamada a Gemini
+    private ParseMealResponse observedParse(String raw, String text) {
+        return Observation.createNotStarted("ai.meal.parse", observations)
+                .highCardinalityKeyValue("response.chars", String.valueOf(raw.length()))
+                .observe(() -> toResponse(raw, text));
+    }
+
+    // Instrucciones fijas (van como system instruction); el formato lo impone MEAL_SCHEMA
+    static final String MEAL_INSTRUCTION = """
+            You are a nutrition assistant. Estimate the nutrition of the user's meal.
+            - Missing quantities: assume typical portions and write them as a human-friendly quantity.
+            - Totals must approximately match the sum of items.
+            - Sugar is part of carbs.
+            - description: short name of the meal, in the user's language.
+            """;
+
+    // Esquema de respuesta (Schema de Gemini). Los items van antes que los totales:
+    // en streaming salen antes y los totales se calculan con los items ya escritos
+    static final String MEAL_SCHEMA = """
+            {"type": "OBJECT",
+             "properties": {
+               "description": {"type": "STRING"},
+               "items": {"type": "ARRAY", "items": {"type": "OBJECT",
+                 "properties": {
+                   "name": {"type": "STRING"}, "quantity": {"type": "STRING"},
+                   "calories": {"type": "NUMBER"}, "proteinG": {"type": "NUMBER"}, "carbsG": {"type": "NUMBER"},
+                   "fatG": {"type": "NUMBER"}, "sugarG": {"type": "NUMBER"}},
+                 "required": ["name", "quantity", "calories", "proteinG", "carbsG", "fatG", "sugarG"],
+                 "propertyOrdering": ["name", "quantity", "calories", "proteinG", "carbsG", "fatG", "sugarG"]}},
+               "totalCalories": {"type": "NUMBER"}, "totalProteinG": {"type": "NUMBER"},
+               "totalCarbsG": {"type": "NUMBER"}, "totalFatG": {"type": "NUMBER"}, "totalSugarG": {"type": "NUMBER"}},
+             "required": ["description", "items", "totalCalories", "totalProteinG", "totalCarbsG", "totalFatG", "totalSugarG"],
+             "propertyOrdering": ["description", "items", "totalCalories", "totalProteinG", "totalCarbsG", "totalFatG", "totalSugarG"]}
+            """;
+
+    static AiRequest mealRequest(String text) {
+        return new AiRequest(MEAL_INSTRUCTION, text, MEAL_SCHEMA);
+    }
+
+    // Lote: array JSON de {id, text}; la respuesta es {"meals": [...]} con el id de cada comida
+    static final String BATCH_INSTRUCTION = MEAL_INSTRUCTION + """
+            The input is a JSON array of independent meals, each with an id and a text.
+            Answer every meal separately and copy its id.
+            """;
+
+    static final String BATCH_SCHEMA = batchSchema();
+
+    // Mismo esquema de comida con "id" delante, dentro de {"meals": [...]}
+    private static String batchSchema() {
+        ObjectMapper json = new ObjectMapper();
+        try {
+            ObjectNode meal = (ObjectNode) json.readTree(MEAL_SCHEMA);
+            ObjectNode properties = json.createObjectNode();
+            properties.putObject("id").put("type", "STRING");
+            properties.setAll((ObjectNode) meal.get("properties"));
+            meal.set("properties", properties);
+            ((ArrayNode) meal.get("required")).insert(0, "id");
+            ((ArrayNode) meal.get("propertyOrdering")).insert(0, "id");
 
-            return new ParseMealResponse(
-                    description,
-                    totalCalories,
-                    totalProtein,
-                    totalCarbs,
-                    totalFat,
-                    totalSugar,
-                    items
-            );
+            ObjectNode root = json.createObjectNode().put("type", "OBJECT");
+            root.putObject("properties").putObject("meals").put("type", "ARRAY").set("items", meal);
+            root.putArray("required").add("meals");
+            return json.writeValueAsString(root);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    ParseMealResponse toResponse(String raw, String text) {
+        // Con esquema ya llega JSON limpio; lo de ```json ... ``` queda por si acaso (stub, otros modelos)
+        String cleaned = stripCodeFences(raw);
 
+        try {
+            return toMeal(mapper.readTree(cleaned), text);
         } catch (Exception e) {
+            parseFailures.increment();
             throw new IllegalStateException("Failed to parse Gemini JSON. Raw text was:\n" + raw, e);
         }
     }
 
-    private static String stripCodeFences(String s) {
+    static ParseMealResponse toMeal(JsonNode json, String text) {
+        String description = json.path("description").asText(text);
+        double totalCalories = json.path("totalCalories").asDouble(0);
+        double totalProtein = json.path("totalProteinG").asDouble(0);
+        double totalCarbs = json.path("totalCarbsG").asDouble(0);
+        double totalFat = json.path("totalFatG").asDouble(0);
+        double totalSugar = json.path("totalSugarG").asDouble(0);
+
+        List<MealItemDto> items = new ArrayList<>();
+        JsonNode itemsNode = json.path("items");
+        if (itemsNode.isArray()) {
+            for (JsonNode i : itemsNode) {
+                items.add(toItem(i));
+            }
+        }
+
+        return new ParseMealResponse(
+                description,
+                totalCalories,
+                totalProtein,
+                totalCarbs,
+                totalFat,
+                totalSugar,
+                items
+        );
+    }
+
+    static MealItemDto toItem(JsonNode i) {
+        return new MealItemDto(
+                i.path("name").asText(null),
+                i.path("quantity").asText(null),
+                i.path("calories").isNumber() ? i.path("calories").asDouble() : null,
+                i.path("proteinG").isNumber() ? i.path("proteinG").asDouble() : null,
+                i.path("carbsG").isNumber() ? i.path("carbsG").asDouble() : null,
+                i.path("fatG").isNumber() ? i.path("fatG").asDouble() : null,
+                i.path("sugarG").isNumber() ? i.path("sugarG").asDouble() : null
+        );
+    }
+
+    // Separadores entre alimentos: "," ";" "+" salto de línea, "y", "con", "and", "with"
+    private static final Pattern MEAL_PARTS = Pattern.compile(
+            "\\s*(?:[,;+\\n]|\\s(?:y|con|and|with)\\s)\\s*",
+            Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+
+    private static final Pattern OPENING_FENCE = Pattern.compile("^```[a-zA-Z]*\\s*");
+    private static final Pattern CLOSING_FENCE = Pattern.compile("\\s*```\\s*$");
+
+    static String stripCodeFences(String s) {
         String t = s.trim();
         // remove ```json ... ```
         if (t.startsWith("```")) {
-            t = t.replaceFirst("^```[a-zA-Z]*\\s*", "");
-            t = t.replaceFirst("\\s*```\\s*$", "");
+            t = OPENING_FENCE.matcher(t).replaceFirst("");
+            t = CLOSING_FENCE.matcher(t).replaceFirst("");
         }
         return t.trim();
     }
 
     public LogMealResponse parseAndLogMeal(Long userId, String text) {
+        // Validamos el usuario antes de pagar la llamada a Gemini
+        users.require(userId);
+
         ParseMealResponse ai = parseMeal(text);
 
-        var user = userRepo.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+        var user = userRepo.getReferenceById(userId);
 
         FoodLog log = FoodLog.builder()
                 .user(user)
@@ -143,7 +398,8 @@ public class MealAiService {
                 .sugarG(ai.totalSugarG())
                 .build();
 
-        FoodLog saved = foodRepo.save(log);
+        // Guarda el log y actualiza los totales del día en la misma transacción
+        FoodLog saved = logService.logFood(log, NutritionLogService.Source.AI);
 
         FoodLogDto dto = toDto(saved);
         return new LogMealResponse(dto, ai);
@@ -0,0 +1,170 @@
+package com.ginger.backend.ai;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ginger.backend.api.dto.ParseMealResponse;
+import com.ginger.backend.domain.MealParseCacheEntry;
+import com.ginger.backend.repo.MealParseCacheRepo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Caché exacta de respuestas de parseMeal por texto normalizado, en dos niveles:
+ * memoria (acotada, TTL corto) y Postgres (meal_parse_cache, sobrevive reinicios
+ * y se comparte entre instancias).
+ * Métricas: ai.parse.cache.requests{tier,result} y ai.parse.cache.hit.ratio{tier}.
+ */
+@Component
+public class MealParseCache {
+
+    private static final Logger log = LoggerFactory.getLogger(MealParseCache.class);
+
+    // Subir cuando cambie el prompt, el formato de la respuesta o la normalización del texto.
+    // v2: "1,000 g" dejó de normalizarse como "1 g"
+    // v3: tampoco como "1 0 g" (los grupos de miles conservan sus ceros)
+    static final String KEY_VERSION = "v3";
+
+    private final MealParseCacheRepo repo;
+    private final ObjectMapper mapper;
+    private final boolean enabled;
+    private final String namespace;
+    private final Duration dbTtl;
+    private final Cache<String, ParseMealResponse> memory;
+
+    private final Counter memoryHits;
+    private final Counter memoryMisses;
+    private final Counter dbHits;
+    private final Counter dbMisses;
+
+    public MealParseCache(MealParseCacheRepo repo,
+                          ObjectMapper mapper,
+                          MeterRegistry registry,
+                          @Value("${app.ai.model:gemini-3-flash-preview}") String model,
+                          @Value("${app.ai.cache.enabled:true}") boolean enabled,
+                          @Value("${app.ai.cache.memory.max-size:5000}") long memoryMaxSize,
+                          @Value("${app.ai.cache.memory.ttl:6h}") Duration memoryTtl,
+                          @Value("${app.ai.cache.db.ttl:30d}") Duration dbTtl) {
+        this.repo = repo;
+        this.mapper = mapper;
+        this.enabled = enabled;
+        this.namespace = model + "|" + KEY_VERSION;
+        this.dbTtl = dbTtl;
+        this.memory = Caffeine.newBuilder()
+                .maximumSize(memoryMaxSize)
+                .expireAfterWrite(memoryTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, memory, "mealParse");
+
+        this.memoryHits = requests(registry, "memory", "hit");
+        this.memoryMisses = requests(registry, "memory", "miss");
+        this.dbHits = requests(registry, "db", "hit");
+        this.dbMisses = requests(registry, "db", "miss");
+        hitRatio(registry, "memory", memoryHits, memoryMisses);
+        hitRatio(registry, "db", dbHits, dbMisses);
+    }
+
+    public Optional<ParseMealResponse> get(String normalizedText) {
+        if (!enabled || normalizedText.isBlank()) return Optional.empty();
+
+        String key = key(normalizedText);
+
+        ParseMealResponse hit = memory.getIfPresent(key);
+        if (hit != null) {
+            memoryHits.increment();
+            return Optional.of(hit);
+        }
+        memoryMisses.increment();
+
+        try {
+            Optional<MealParseCacheEntry> row = repo.findById(key)
+                    .filter(e -> e.getCreatedAt().isAfter(Instant.now().minus(dbTtl)));
+            if (row.isPresent()) {
+                ParseMealResponse r = mapper.readValue(row.get().getResponseJson(), ParseMealResponse.class);
+                memory.put(key, r);
+                dbHits.increment();
+                return Optional.of(r);
+            }
+        } catch (DataAccessException | IOException e) {
+            // La caché nunca debe tumbar la petición: si falla, es un miss
+            log.warn("meal parse cache read failed for key {}", key, e);
+        }
+        dbMisses.increment();
+        return Optional.empty();
+    }
+
+    public void put(String normalizedText, ParseMealResponse response) {
+        if (!enabled || normalizedText.isBlank()) return;
+
+        String key = key(normalizedText);
+        memory.put(key, response);
+
+        try {
+            repo.upsert(key, normalizedText, mapper.writeValueAsString(response), Instant.now());
+        } catch (DataAccessException | IOException e) {
+            log.warn("meal parse cache write failed for key {}", key, e);
+        }
+    }
+
+    /** Borra una entrada (texto dado) o toda la caché (text null). Devuelve filas borradas en BD. */
+    public long purge(String text) {
+        if (text == null || text.isBlank()) {
+            memory.invalidateAll();
+            return repo.deleteAllEntries();
+        }
+
+        String key = key(MealTextNormalizer.normalize(text));
+        memory.invalidate(key);
+        return repo.deleteByKey(key);
+    }
+
+    @Scheduled(fixedDelayString = "${app.ai.cache.db.cleanup-interval:PT1H}", initialDelayString = "${app.ai.cache.db.cleanup-interval:PT1H}")
+    void deleteExpired() {
+        int removed = repo.deleteOlderThan(Instant.now().minus(dbTtl));
+        if (removed > 0) log.info("meal parse cache: {} expired rows removed", removed);
+    }
+
+    private String key(String normalizedText) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            byte[] hash = sha.digest((namespace + "\n" + normalizedText).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Counter requests(MeterRegistry registry, String tier, String result) {
+        return Counter.builder("ai.parse.cache.requests")
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private static void hitRatio(MeterRegistry registry, String tier, Counter hits, Counter misses) {
+        Gauge.builder("ai.parse.cache.hit.ratio", () -> {
+                    double total = hits.count() + misses.count();
+                    return total == 0 ? 0.0 : hits.count() / total;
+                })
+                .tag("tier", tier)
+                .register(registry);
+    }
+}
@@ -0,0 +1,95 @@
+package com.ginger.backend.ai;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ginger.backend.api.dto.MealItemDto;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * Parser incremental de la respuesta del modelo: recibe el JSON a trozos y
+ * emite cada objeto de "items" en cuanto se cierra, sin esperar al resto.
+ * Solo sigue la estructura (profundidad, strings, escapes); cada item completo
+ * se parsea con Jackson. Lo que haya antes del primer '{' (```json) se ignora.
+ */
+public class MealStreamParser {
+
+    private final ObjectMapper mapper;
+    private final Consumer<MealItemDto> onItem;
+
+    private final StringBuilder buffer = new StringBuilder();
+    private int pos = 0;
+
+    private int depth = 0;
+    private boolean inString = false;
+    private boolean escape = false;
+    private int stringStart = -1;
+    private String lastRootString; // último string a profundidad 1 (la clave antes de ':')
+    private int itemsDepth = -1;   // profundidad del array "items" mientras estamos dentro
+    private int itemStart = -1;
+
+    public MealStreamParser(ObjectMapper mapper, Consumer<MealItemDto> onItem) {
+        this.mapper = mapper;
+        this.onItem = onItem;
+    }
+
+    public void accept(String chunk) {
+        buffer.append(chunk);
+
+        for (; pos < buffer.length(); pos++) {
+            char c = buffer.charAt(pos);
+
+            if (inString) {
+                if (escape) {
+                    escape = false;
+                } else if (c == '\\') {
+                    escape = true;
+                } else if (c == '"') {
+                    inString = false;
+                    if (depth == 1) lastRootString = buffer.substring(stringStart, pos);
+                }
+                continue;
+            }
+
+            switch (c) {
+                case '"' -> {
+                    inString = true;
+                    stringStart = pos + 1;
+                }
+                case '{' -> {
+                    depth++;
+                    if (itemsDepth >= 0 && depth == itemsDepth + 1) itemStart = pos;
+                }
+                case '}' -> {
+                    if (itemsDepth >= 0 && depth == itemsDepth + 1 && itemStart >= 0) {
+                        emit(buffer.substring(itemStart, pos + 1));
+                        itemStart = -1;
+                    }
+                    depth--;
+                }
+                case '[' -> {
+                    depth++;
+                    if (depth == 2 && "items".equals(lastRootString)) itemsDepth = depth;
+                }
+                case ']' -> {
+                    if (depth == itemsDepth) itemsDepth = -1;
+                    depth--;
+                }
+                default -> { }
+            }
+        }
+    }
+
+    /** Todo lo recibido hasta ahora (para el parseo final de totales). */
+    public String text() {
+        return buffer.toString();
+    }
+
+    private void emit(String json) {
+        try {
+            onItem.accept(MealAiService.toItem(mapper.readTree(json)));
+        } catch (IOException e) {
+            // Item mal formado: lo dejamos para el parseo final
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.ginger.backend.ai;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Normaliza el texto de una comida para usarlo como clave de caché:
+ * "2 Huevos, y tostada!!" y "2 huevos y tostada" dan la misma clave.
+ */
+public final class MealTextNormalizer {
+
+    // Coma decimal salvo con tres cifras justas detrás ("1,000" es separador de miles),
+    // excepto "0,250", que solo puede ser decimal
+    private static final Pattern DECIMAL_COMMA = Pattern.compile("(\\d),(\\d)(?!\\d{2}(?!\\d))");
+    private static final Pattern ZERO_DECIMAL_COMMA = Pattern.compile("(?<![\\d.])0,(\\d)");
+    private static final Pattern FRACTION = Pattern.compile("(\\d)\\s*[/\u2044]\\s*(\\d)");
+    private static final Pattern NUMBER = Pattern.compile("\\d+(\\.\\d+)?");
+    private static final Pattern NOT_WORD = Pattern.compile("[^\\p{L}\\p{N}./]+");
+    private static final Pattern LOOSE_SEPARATOR = Pattern.compile("(?<!\\d)[./]|[./](?!\\d)");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    private MealTextNormalizer() {}
+
+    public static String normalize(String text) {
+        if (text == null) return "";
+
+        // minúsculas y sin tildes ("jamón" == "jamon")
+        String t = Normalizer.normalize(text, Normalizer.Form.NFKD)
+                .replaceAll("\\p{M}+", "")
+                .toLowerCase(Locale.ROOT);
+
+        // "1,5" -> "1.5", "0,250" -> "0.250", "½" / "1 / 2" -> "1/2"; "1,000" se queda como "1 000"
+        t = DECIMAL_COMMA.matcher(t).replaceAll("$1.$2");
+        t = ZERO_DECIMAL_COMMA.matcher(t).replaceAll("0.$1");
+        t = FRACTION.matcher(t).replaceAll("$1/$2");
+
+        // puntuación fuera -> espacio ("." y "/" solo sobreviven dentro de números)
+        t = NOT_WORD.matcher(t).replaceAll(" ");
+        t = LOOSE_SEPARATOR.matcher(t).replaceAll(" ");
+
+        t = canonicalNumbers(t);
+
+        return SPACES.matcher(t).replaceAll(" ").trim();
+    }
+
+    // "02" -> "2", "2.50" -> "2.5", "2.0" -> "2". Con tres decimales justos ("1.000",
+    // "2.500") puede ser separador de miles: se deja tal cual para no juntarlo con "1" o "2.5".
+    // Lo mismo con un grupo de tres cifras tras otro número ("1 000", "1 050", de "1,000"):
+    // sin ceros delante sería "1 0" o "1 50"
+    private static String canonicalNumbers(String t) {
+        Matcher m = NUMBER.matcher(t);
+        StringBuilder sb = new StringBuilder();
+        while (m.find()) {
+            String n = m.group();
+            String intPart = n;
+            String frac = "";
+            int dot = n.indexOf('.');
+            if (dot < 0 && n.length() == 3 && followsNumber(t, m.start())) {
+                m.appendReplacement(sb, n);
+                continue;
+            }
+            if (dot >= 0) {
+                intPart = n.substring(0, dot);
+                frac = n.substring(dot + 1);
+                if (frac.length() == 3 && intPart.chars().anyMatch(c -> c != '0')) {
+                    m.appendReplacement(sb, n);
+                    continue;
+                }
+                frac = frac.replaceFirst("0+$", "");
+            }
+            intPart = intPart.replaceFirst("^0+(?=\\d)", "");
+            m.appendReplacement(sb, frac.isEmpty() ? intPart : intPart + "." + frac);
+        }
+        m.appendTail(sb);
+        return sb.toString();
+    }
+
+    private static boolean followsNumber(String t, int start) {
+        int i = start - 1;
+        while (i >= 0 && t.charAt(i) == ' ') i--;
+        return i < start - 1 && i >= 0 && Character.isDigit(t.charAt(i));
+    }
+}
@@ -0,0 +1,158 @@
+package com.ginger.backend.ai;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Agrupa llamadas independientes en una sola: la primera que llega abre un lote,
+ * espera hasta maxWait (o hasta maxSize) y hace la llamada por todas en su propio
+ * hilo; las demás esperan su resultado. No hay hilos propios.
+ *
+ * El lote devuelve una salida por entrada, en el mismo orden; null = esa entrada
+ * no vino en la respuesta y se repite sola con {@code single}, así que un fallo
+ * afecta a una entrada y no al lote. Cada repetición la hace el hilo de quien pidió
+ * esa entrada, no el líder: van en paralelo y nadie espera a las de los demás.
+ * Como mucho {@code maxFallbacks} por lote; si faltan más, la respuesta del lote no
+ * es de fiar y el resto recibe AiUnavailableException en vez de multiplicar las
+ * llamadas. Si la llamada del lote lanza, todas reciben el error. Un lote de uno
+ * va directamente por {@code single}.
+ * Métricas: microbatch.size{name}, microbatch.fallbacks{name} y
+ * microbatch.fallbacks.rejected{name}.
+ */
+public class MicroBatcher<I, O> {
+
+    // Marca para "repítela tú sola": no es un error y no lleva traza
+    private static final RuntimeException RETRY_ALONE = new RuntimeException("retry alone", null, false, false) {};
+
+    private final int maxSize;
+    private final int maxFallbacks;
+    private final long maxWaitNanos;
+    private final Function<List<I>, List<O>> batch;
+    private final Function<I, O> single;
+    private final DistributionSummary sizes;
+    private final Counter fallbacks;
+    private final Counter rejectedFallbacks;
+
+    private final Object lock = new Object();
+    private List<Pending<I, O>> open; // lote que se está llenando
+
+    public MicroBatcher(String name, int maxSize, int maxFallbacks, Duration maxWait,
+                        Function<List<I>, List<O>> batch, Function<I, O> single, MeterRegistry registry) {
+        this.maxSize = maxSize;
+        this.maxFallbacks = maxFallbacks;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.batch = batch;
+        this.single = single;
+        this.sizes = DistributionSummary.builder("microbatch.size").tag("name", name).register(registry);
+        this.fallbacks = Counter.builder("microbatch.fallbacks").tag("name", name).register(registry);
+        this.rejectedFallbacks = Counter.builder("microbatch.fallbacks.rejected").tag("name", name).register(registry);
+    }
+
+    public O execute(I input) {
+        Pending<I, O> mine = new Pending<>(input);
+        List<Pending<I, O>> lot;
+        boolean leader;
+
+        synchronized (lock) {
+            leader = open == null;
+            if (leader) open = new ArrayList<>(maxSize);
+            open.add(mine);
+            lot = open;
+            if (lot.size() >= maxSize) {
+                open = null;
+                lock.notifyAll();
+            }
+        }
+
+        if (leader) {
+            collect(lot);
+            run(lot);
+        }
+        return await(mine);
+    }
+
+    // El líder espera a que se llene el lote o venza el plazo, y lo cierra
+    private void collect(List<Pending<I, O>> lot) {
+        long deadline = System.nanoTime() + maxWaitNanos;
+        synchronized (lock) {
+            try {
+                long remaining;
+                while (open == lot && (remaining = deadline - System.nanoTime()) > 0) {
+                    TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                if (open == lot) open = null;
+            }
+        }
+    }
+
+    private void run(List<Pending<I, O>> lot) {
+        sizes.record(lot.size());
+        if (lot.size() == 1) {
+            complete(lot.get(0));
+            return;
+        }
+
+        List<O> outputs;
+        try {
+            outputs = batch.apply(lot.stream().map(Pending::input).toList());
+        } catch (Throwable t) {
+            lot.forEach(p -> p.result.completeExceptionally(t));
+            return;
+        }
+
+        int retried = 0;
+        for (int i = 0; i < lot.size(); i++) {
+            O out = i < outputs.size() ? outputs.get(i) : null;
+            Pending<I, O> p = lot.get(i);
+            if (out != null) {
+                p.result.complete(out);
+            } else if (retried < maxFallbacks) {
+                retried++;
+                fallbacks.increment();
+                p.result.completeExceptionally(RETRY_ALONE);
+            } else {
+                rejectedFallbacks.increment();
+                p.result.completeExceptionally(new AiUnavailableException(
+                        "AI batch answer was incomplete, try again later"));
+            }
+        }
+    }
+
+    private void complete(Pending<I, O> p) {
+        try {
+            p.result.complete(single.apply(p.input()));
+        } catch (Throwable t) {
+            p.result.completeExceptionally(t);
+        }
+    }
+
+    private O await(Pending<I, O> mine) {
+        try {
+            return mine.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() == RETRY_ALONE) return single.apply(mine.input());
+            // Mismo criterio que SingleFlight: se relanza el error original
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            if (e.getCause() instanceof Error err) throw err;
+            throw e;
+        }
+    }
+
+    private record Pending<I, O>(I input, CompletableFuture<O> result) {
+        Pending(I input) {
+            this(input, new CompletableFuture<>());
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.ginger.backend.ai;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Deduplica llamadas concurrentes con la misma clave: la primera hace el trabajo
+ * y las que llegan mientras tanto esperan y reciben el mismo resultado (o error).
+ * Métricas: singleflight.calls{name,role=leader|coalesced} y singleflight.inflight{name}.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter leaders;
+    private final Counter coalesced;
+
+    public SingleFlight(String name, MeterRegistry registry) {
+        this.leaders = Counter.builder("singleflight.calls")
+                .tag("name", name)
+                .tag("role", "leader")
+                .register(registry);
+        this.coalesced = Counter.builder("singleflight.calls")
+                .tag("name", name)
+                .tag("role", "coalesced")
+                .register(registry);
+        Gauge.builder("singleflight.inflight", inFlight, ConcurrentHashMap::size)
+                .tag("name", name)
+                .register(registry);
+    }
+
+    public V execute(K key, Supplier<V> work) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, mine);
+
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing);
+        }
+
+        leaders.increment();
+        try {
+            V value = work.get();
+            mine.complete(value);
+            return value;
+        } catch (Throwable t) {
+            mine.completeExceptionally(t);
+            throw t;
+        } finally {
+            // Solo quitamos nuestra llamada; la siguiente petición vuelve a ejecutar
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private V await(CompletableFuture<V> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            // Mismo error que vio el líder (p.ej. IllegalStateException -> 409)
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            if (e.getCause() instanceof Error err) throw err;
+            throw e;
+        }
+    }
+}
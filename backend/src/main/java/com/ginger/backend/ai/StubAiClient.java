@@ -0,0 +1,95 @@
+package com.ginger.backend.ai;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * Modelo local para pruebas y carga (app.ai.provider=stub): devuelve siempre la
+ * misma respuesta enlatada, con una latencia inicial y un retardo entre trozos
+ * configurables. No llama a ningún servicio externo. A un lote (prompt con un
+ * array JSON) le responde con la misma comida para cada id.
+ */
+@Component
+@ConditionalOnProperty(name = "app.ai.provider", havingValue = "stub")
+public class StubAiClient implements AiTextModel {
+
+    public static final String DEFAULT_RESPONSE = """
+            {
+              "description": "2 huevos y tostada",
+              "items": [
+                {"name": "Huevo", "quantity": "2 unidades", "calories": 155, "proteinG": 12.6, "carbsG": 1.1, "fatG": 10.6, "sugarG": 1.1},
+                {"name": "Tostada", "quantity": "1 rebanada", "calories": 135, "proteinG": 2.4, "carbsG": 22.9, "fatG": 2.4, "sugarG": 0.9}
+              ],
+              "totalCalories": 290,
+              "totalProteinG": 15,
+              "totalCarbsG": 24,
+              "totalFatG": 13,
+              "totalSugarG": 2
+            }
+            """;
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final String response;
+    private final Duration latency;
+    private final Duration chunkDelay;
+    private final int chunkSize;
+
+    public StubAiClient(@Value("${app.ai.stub.response:}") String response,
+                        @Value("${app.ai.stub.latency:300ms}") Duration latency,
+                        @Value("${app.ai.stub.chunk-delay:20ms}") Duration chunkDelay,
+                        @Value("${app.ai.stub.chunk-size:16}") int chunkSize) {
+        this.response = response == null || response.isBlank() ? DEFAULT_RESPONSE : response;
+        this.latency = latency;
+        this.chunkDelay = chunkDelay;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    @Override
+    public String generateText(AiRequest request) {
+        sleep(latency);
+        return request.prompt().startsWith("[") ? batchResponse(request.prompt()) : response.trim();
+    }
+
+    @Override
+    public String streamText(AiRequest request, Consumer<String> onChunk) {
+        sleep(latency);
+        for (int i = 0; i < response.length(); i += chunkSize) {
+            if (i > 0) sleep(chunkDelay);
+            onChunk.accept(response.substring(i, Math.min(response.length(), i + chunkSize)));
+        }
+        return response.trim();
+    }
+
+    private String batchResponse(String prompt) {
+        try {
+            ObjectNode out = JSON.createObjectNode();
+            ArrayNode meals = out.putArray("meals");
+            for (JsonNode input : JSON.readTree(prompt)) {
+                ObjectNode meal = meals.addObject().put("id", input.path("id").asText());
+                meal.setAll((ObjectNode) JSON.readTree(response));
+            }
+            return out.toString();
+        } catch (Exception e) {
+            throw new IllegalStateException("Stub model could not read batch prompt", e);
+        }
+    }
+
+    private static void sleep(Duration d) {
+        if (d.isZero() || d.isNegative()) return;
+        try {
+            Thread.sleep(d.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for stub model", e);
+        }
+    }
+}
@@ -5,6 +5,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.time.Instant;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestControllerAdvice
 public class ApiExceptionHandler {
@@ -28,4 +29,15 @@ public class ApiExceptionHandler {
                 "message", ex.getMessage()
         );
     }
+
+    // Pool de IA lleno: mejor fallar rápido que encolar sin límite
+    @ExceptionHandler(RejectedExecutionException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public Map<String, Object> busy(RejectedExecutionException ex) {
+        return Map.of(
+                "timestamp", Instant.now().toString(),
+                "error", "busy",
+                "message", ex.getMessage()
+        );
+    }
 }
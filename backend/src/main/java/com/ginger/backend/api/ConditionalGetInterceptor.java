@@ -0,0 +1,108 @@
+package com.ginger.backend.api;
+
+import com.ginger.backend.service.ChangeLogService;
+import com.ginger.backend.service.DailyTotalsService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.time.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ETag para las lecturas por usuario (resumen, recomendaciones, stats, peso,
+ * historial). Se basa en la versión de datos del usuario (user_sync_versions),
+ * que sube con cada escritura, más el trozo de tiempo del que depende la
+ * respuesta (el día, o 5 min para las recomendaciones de ayuno). Si coincide
+ * con If-None-Match se responde 304 sin llegar al controlador ni a los logs.
+ */
+@Component
+public class ConditionalGetInterceptor implements HandlerInterceptor {
+
+    private final ChangeLogService changeLog;
+    private final DailyTotalsService totalsService;
+    private final CacheControl pastStatsCache;
+
+    public ConditionalGetInterceptor(ChangeLogService changeLog,
+                                     DailyTotalsService totalsService,
+                                     @Value("${app.http.past-stats-max-age:1d}") Duration pastStatsMaxAge) {
+        this.changeLog = changeLog;
+        this.totalsService = totalsService;
+        this.pastStatsCache = CacheControl.maxAge(pastStatsMaxAge.toSeconds(), TimeUnit.SECONDS).cachePrivate();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) return true;
+
+        Long userId = parseLong(request.getParameter("userId"));
+        if (userId == null) return true;
+
+        ZoneId zone = zone(request.getParameter("tz"));
+        LocalDate today = LocalDate.now(zone);
+        LocalDate endDate = parseDate(request.getParameter("endDate"));
+        boolean past = endDate != null && endDate.isBefore(today);
+
+        String etag = "\"" + changeLog.currentVersion(userId) + "-" + timeSlot(request.getRequestURI(), today, endDate, past) + "\"";
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL,
+                (past ? pastStatsCache : CacheControl.noCache().cachePrivate()).getHeaderValue());
+
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return false;
+        }
+        return true;
+    }
+
+    // De qué momento depende la respuesta además de los datos del usuario
+    private static String timeSlot(String uri, LocalDate today, LocalDate endDate, boolean past) {
+        if (past) return endDate.toString();
+        if (uri.endsWith("/recommendations/today")) {
+            // Los consejos de ayuno cambian con el tiempo transcurrido
+            return today + "T" + (Instant.now().getEpochSecond() / 300);
+        }
+        return today.toString();
+    }
+
+    private ZoneId zone(String tz) {
+        if (tz == null || tz.isBlank()) return totalsService.zone();
+        try {
+            return ZoneId.of(tz);
+        } catch (DateTimeException e) {
+            return totalsService.zone();
+        }
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String c = candidate.trim();
+            if (c.startsWith("W/")) c = c.substring(2);
+            if (c.equals("*") || c.equals(etag)) return true;
+        }
+        return false;
+    }
+
+    private static Long parseLong(String v) {
+        try {
+            return v == null ? null : Long.valueOf(v);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static LocalDate parseDate(String v) {
+        try {
+            return v == null ? null : LocalDate.parse(v);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+}
@@ -28,7 +28,8 @@ public class CorsConfig {
                         )
                         .allowCredentials(true)
                         .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
-                        .allowedHeaders("*");
+                        .allowedHeaders("*")
+                        .exposedHeaders("ETag");
             }
         };
     }
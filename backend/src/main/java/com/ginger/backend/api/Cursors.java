@@ -0,0 +1,60 @@
+package com.ginger.backend.api;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Cursores opacos para paginación keyset. Por dentro son la clave de orden de la
+ * última fila devuelta en base64url; el cliente no debe interpretarlos.
+ * Un cursor que no se puede leer es un 400.
+ */
+public final class Cursors {
+
+    private Cursors() {}
+
+    /** Posición en un listado ordenado por (instante, id). */
+    public record TimeId(Instant at, long id) {}
+
+    public static String encode(Instant at, long id) {
+        return encode(at.getEpochSecond() + "." + at.getNano() + ":" + id);
+    }
+
+    public static String encode(long id) {
+        return encode(Long.toString(id));
+    }
+
+    public static TimeId decodeTimeId(String cursor) {
+        String raw = decode(cursor);
+        try {
+            int colon = raw.indexOf(':');
+            int dot = raw.indexOf('.');
+            if (colon < 0 || dot < 0 || dot > colon) throw new NumberFormatException();
+            Instant at = Instant.ofEpochSecond(Long.parseLong(raw.substring(0, dot)),
+                    Long.parseLong(raw.substring(dot + 1, colon)));
+            return new TimeId(at, Long.parseLong(raw.substring(colon + 1)));
+        } catch (NumberFormatException | java.time.DateTimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    public static long decodeId(String cursor) {
+        try {
+            return Long.parseLong(decode(cursor));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static String decode(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
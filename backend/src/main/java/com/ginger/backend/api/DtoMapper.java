@@ -41,5 +41,13 @@ public class DtoMapper {
                 s.getProtocol()
         );
     }
-}
 
+    public static WeightLogDto toDto(WeightLog w) {
+        return new WeightLogDto(
+                w.getId(),
+                w.getUserId(),
+                w.getWeightKg(),
+                w.getCreatedAt()
+        );
+    }
+}
@@ -0,0 +1,27 @@
+package com.ginger.backend.api;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final ConditionalGetInterceptor conditionalGet;
+
+    public WebConfig(ConditionalGetInterceptor conditionalGet) {
+        this.conditionalGet = conditionalGet;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(conditionalGet)
+                .addPathPatterns(
+                        "/api/summary/today",
+                        "/api/recommendations/today",
+                        "/api/stats/**",
+                        "/api/weight",
+                        "/api/food-logs"
+                );
+    }
+}
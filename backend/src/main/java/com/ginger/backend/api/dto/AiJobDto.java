@@ -0,0 +1,14 @@
+package com.ginger.backend.api.dto;
+
+import java.time.Instant;
+
+public record AiJobDto(
+        String id,
+        String kind,      // "parse-meal" | "log-meal"
+        String status,    // QUEUED | RUNNING | SUCCEEDED | FAILED
+        Object result,    // ParseMealResponse o LogMealResponse cuando SUCCEEDED
+        String error,
+        Instant createdAt,
+        Instant startedAt,
+        Instant finishedAt
+) {}
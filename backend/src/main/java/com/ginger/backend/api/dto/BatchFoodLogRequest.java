@@ -0,0 +1,25 @@
+package com.ginger.backend.api.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.time.Instant;
+import java.util.List;
+
+public record BatchFoodLogRequest(
+        @NotNull Long userId,
+        @NotEmpty @Size(max = 1000) List<@Valid Entry> entries
+) {
+    public record Entry(
+            @NotNull Instant eatenAt,
+            @NotBlank String description,
+            Double calories,
+            Double proteinG,
+            Double carbsG,
+            Double fatG,
+            Double sugarG
+    ) {}
+}
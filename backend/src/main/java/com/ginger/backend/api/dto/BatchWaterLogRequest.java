@@ -0,0 +1,20 @@
+package com.ginger.backend.api.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.time.Instant;
+import java.util.List;
+
+public record BatchWaterLogRequest(
+        @NotNull Long userId,
+        @NotEmpty @Size(max = 1000) List<@Valid Entry> entries
+) {
+    public record Entry(
+            @NotNull Instant drankAt,
+            @NotNull @Min(1) Integer ml
+    ) {}
+}
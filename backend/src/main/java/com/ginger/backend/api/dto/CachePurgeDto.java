@@ -0,0 +1,6 @@
+package com.ginger.backend.api.dto;
+
+public record CachePurgeDto(
+        String text,   // null = toda la caché
+        long removed
+) {}
@@ -0,0 +1,13 @@
+package com.ginger.backend.api.dto;
+
+import java.util.List;
+
+/**
+ * Página por cursor: nextCursor se pasa tal cual como ?cursor= para pedir la
+ * siguiente; es null cuando no hay más. Sin total (no hay count(*)).
+ */
+public record CursorPage<T>(
+        List<T> items,
+        String nextCursor,
+        boolean hasMore
+) {}
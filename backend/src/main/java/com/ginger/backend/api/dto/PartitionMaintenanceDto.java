@@ -0,0 +1,8 @@
+package com.ginger.backend.api.dto;
+
+import java.util.List;
+
+public record PartitionMaintenanceDto(
+        int created,
+        List<String> archived
+) {}
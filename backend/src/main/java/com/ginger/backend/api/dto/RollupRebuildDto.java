@@ -0,0 +1,6 @@
+package com.ginger.backend.api.dto;
+
+public record RollupRebuildDto(
+        Long userId,   // null = todos los usuarios
+        int rows
+) {}
@@ -0,0 +1,20 @@
+package com.ginger.backend.api.dto;
+
+import java.util.List;
+
+/**
+ * Cambios desde el cursor pedido. Cada entidad aparece una vez con su estado
+ * actual. Si resetRequired es true, el cursor es demasiado viejo y hay que hacer
+ * una carga completa antes de seguir con el cursor devuelto.
+ */
+public record SyncChangesDto(
+        long cursor,
+        boolean hasMore,
+        boolean resetRequired,
+        UserDto profile,
+        List<FoodLogDto> foodLogs,
+        List<WaterLogDto> waterLogs,
+        List<WeightLogDto> weightLogs,
+        List<FastingSessionDto> fastingSessions,
+        List<TombstoneDto> deleted
+) {}
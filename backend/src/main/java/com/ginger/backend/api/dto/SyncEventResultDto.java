@@ -0,0 +1,11 @@
+package com.ginger.backend.api.dto;
+
+import java.util.UUID;
+
+// status: APPLIED | DUPLICATE | REJECTED
+public record SyncEventResultDto(
+        UUID clientEventId,
+        String status,
+        Long entityId,
+        String error
+) {}
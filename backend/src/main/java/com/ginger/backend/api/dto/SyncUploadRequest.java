@@ -0,0 +1,32 @@
+package com.ginger.backend.api.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+// Cola offline del cliente, en el orden en que se generó
+public record SyncUploadRequest(
+        @NotNull Long userId,
+        @NotEmpty @Size(max = 500) List<@Valid Event> events
+) {
+    public enum Type { FOOD, WATER }
+
+    // Campos según el tipo: FOOD usa description + macros, WATER usa ml
+    public record Event(
+            @NotNull UUID clientEventId,
+            @NotNull Instant clientTime,
+            @NotNull Type type,
+            String description,
+            Double calories,
+            Double proteinG,
+            Double carbsG,
+            Double fatG,
+            Double sugarG,
+            Integer ml
+    ) {}
+}
@@ -0,0 +1,10 @@
+package com.ginger.backend.api.dto;
+
+import java.util.List;
+
+public record SyncUploadResponse(
+        int applied,
+        int duplicates,
+        int rejected,
+        List<SyncEventResultDto> results
+) {}
@@ -0,0 +1,7 @@
+package com.ginger.backend.api.dto;
+
+// Entidad borrada: el cliente la quita de su copia local
+public record TombstoneDto(
+        String type,
+        Long id
+) {}
@@ -0,0 +1,10 @@
+package com.ginger.backend.api.dto;
+
+import java.time.Instant;
+
+public record WeightLogDto(
+        Long id,
+        Long userId,
+        Double weightKg,
+        Instant createdAt
+) {}
@@ -0,0 +1,44 @@
+package com.ginger.backend.controller;
+
+import com.ginger.backend.ai.MealParseCache;
+import com.ginger.backend.api.dto.CachePurgeDto;
+import com.ginger.backend.api.dto.PartitionMaintenanceDto;
+import com.ginger.backend.api.dto.RollupRebuildDto;
+import com.ginger.backend.service.DailyTotalsService;
+import com.ginger.backend.service.PartitionMaintenanceService;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin")
+public class AdminController {
+
+    private final DailyTotalsService totalsService;
+    private final MealParseCache parseCache;
+    private final PartitionMaintenanceService partitions;
+
+    public AdminController(DailyTotalsService totalsService, MealParseCache parseCache,
+                           PartitionMaintenanceService partitions) {
+        this.totalsService = totalsService;
+        this.parseCache = parseCache;
+        this.partitions = partitions;
+    }
+
+    // Recalcula daily_nutrition_totals desde los logs (sin userId = todos)
+    @PostMapping("/rollups/rebuild")
+    public RollupRebuildDto rebuildRollups(@RequestParam(required = false) Long userId) {
+        int rows = totalsService.rebuild(userId);
+        return new RollupRebuildDto(userId, rows);
+    }
+
+    // Vacía la caché de parseMeal (memoria + BD), o solo la entrada de ?text=
+    @DeleteMapping("/ai-cache")
+    public CachePurgeDto purgeAiCache(@RequestParam(required = false) String text) {
+        return new CachePurgeDto(text, parseCache.purge(text));
+    }
+
+    // Lanza ya el mantenimiento de particiones (crear meses futuros + archivar los viejos)
+    @PostMapping("/partitions/maintain")
+    public PartitionMaintenanceDto maintainPartitions() {
+        return partitions.maintain();
+    }
+}
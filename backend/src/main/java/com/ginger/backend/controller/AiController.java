@@ -1,21 +1,41 @@
 package com.ginger.backend.controller;
 
+import com.ginger.backend.ai.AiExecutor;
+import com.ginger.backend.ai.AiJobService;
 import com.ginger.backend.ai.MealAiService;
+import com.ginger.backend.api.dto.AiJobDto;
 import com.ginger.backend.api.dto.ParseMealRequest;
 import com.ginger.backend.api.dto.ParseMealResponse;
 import com.ginger.backend.api.dto.LogMealResponse;
 import jakarta.validation.Valid;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 
 @RestController
 @RequestMapping("/api/ai")
 public class AiController {
 
+    // Tope del long-poll (por debajo del timeout async de Spring MVC)
+    private static final long MAX_WAIT_MS = 25_000;
+    private static final long STREAM_TIMEOUT_MS = 120_000;
+
     private final MealAiService mealAiService;
+    private final AiJobService jobService;
+    private final AiExecutor aiExecutor;
 
-    public AiController(MealAiService mealAiService) {
+    public AiController(MealAiService mealAiService, AiJobService jobService, AiExecutor aiExecutor) {
         this.mealAiService = mealAiService;
+        this.jobService = jobService;
+        this.aiExecutor = aiExecutor;
     }
 
     @PostMapping("/parse-meal")
@@ -23,9 +43,64 @@ public class AiController {
         return mealAiService.parseMeal(req.text());
     }
 
+    /**
+     * Misma petición con Accept: text/event-stream. Eventos:
+     * "item" (MealItemDto, uno por item en cuanto está completo),
+     * "totals" (ParseMealResponse final) o "error".
+     */
+    @PostMapping(value = "/parse-meal", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter parseMealStream(@Valid @RequestBody ParseMealRequest req) {
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+
+        aiExecutor.execute(() -> {
+            try {
+                ParseMealResponse result = mealAiService.streamMeal(req.text(), item -> send(emitter, "item", item));
+                send(emitter, "totals", result);
+            } catch (RuntimeException e) {
+                send(emitter, "error", Map.of("message", String.valueOf(e.getMessage())));
+            }
+            emitter.complete();
+        });
+
+        return emitter;
+    }
+
     @PostMapping("/log-meal")
     public LogMealResponse logMeal(@Valid @RequestBody ParseMealRequest req) {
         return mealAiService.parseAndLogMeal(req.userId(), req.text());
     }
 
+    // ---------------- Async (202 + job id) ----------------
+
+    @PostMapping("/jobs/parse-meal")
+    public ResponseEntity<AiJobDto> submitParseMeal(@Valid @RequestBody ParseMealRequest req) {
+        return accepted(jobService.submitParseMeal(req.text()));
+    }
+
+    @PostMapping("/jobs/log-meal")
+    public ResponseEntity<AiJobDto> submitLogMeal(@Valid @RequestBody ParseMealRequest req) {
+        return accepted(jobService.submitLogMeal(req.userId(), req.text()));
+    }
+
+    // waitMs > 0 = long-poll hasta que termine (sin bloquear un hilo del servidor)
+    @GetMapping("/jobs/{id}")
+    public CompletableFuture<AiJobDto> getJob(@PathVariable String id,
+                                              @RequestParam(defaultValue = "0") long waitMs) {
+        if (waitMs <= 0) return CompletableFuture.completedFuture(jobService.get(id));
+        return jobService.await(id, Duration.ofMillis(Math.min(waitMs, MAX_WAIT_MS)));
+    }
+
+    private static void send(SseEmitter emitter, String event, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(event).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            // El cliente se fue: el resultado igualmente queda en caché
+        }
+    }
+
+    private static ResponseEntity<AiJobDto> accepted(AiJobDto job) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/ai/jobs/" + job.id()))
+                .body(job);
+    }
 }
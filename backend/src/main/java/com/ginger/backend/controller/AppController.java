@@ -1,13 +1,19 @@
 package com.ginger.backend.controller;
 
+import com.ginger.backend.api.Cursors;
 import com.ginger.backend.api.DtoMapper;
 import com.ginger.backend.api.dto.*;
 import com.ginger.backend.domain.*;
 import com.ginger.backend.repo.*;
+import com.ginger.backend.service.FastingService;
+import com.ginger.backend.service.NutritionLogService;
+import com.ginger.backend.service.NutritionLogService.Source;
+import com.ginger.backend.service.ProfileService;
 import com.ginger.backend.service.RecommendationsService;
+import com.ginger.backend.service.SummaryService;
+import com.ginger.backend.service.UserProfileCache;
 import jakarta.validation.Valid;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 
@@ -21,25 +27,47 @@ import static com.ginger.backend.service.RecommendationsService.buildFastingSugg
 @RequestMapping("/api")
 public class AppController {
 
+    private static final int MAX_PAGE_SIZE = 200;
+
     private final UserProfileRepo userRepo;
     private final FoodLogRepo foodRepo;
-    private final WaterLogRepo waterRepo;
     private final FastingSessionRepo fastingRepo;
     private final RecommendationsService recService;
-
-    public AppController(UserProfileRepo userRepo, FoodLogRepo foodRepo, WaterLogRepo waterRepo, FastingSessionRepo fastingRepo, RecommendationsService recService) {
+    private final NutritionLogService logService;
+    private final UserProfileCache users;
+    private final ProfileService profileService;
+    private final FastingService fastingService;
+    private final SummaryService summaryService;
+
+    public AppController(UserProfileRepo userRepo, FoodLogRepo foodRepo, FastingSessionRepo fastingRepo, RecommendationsService recService,
+                         NutritionLogService logService, UserProfileCache users,
+                         ProfileService profileService, FastingService fastingService, SummaryService summaryService) {
         this.userRepo = userRepo;
         this.foodRepo = foodRepo;
-        this.waterRepo = waterRepo;
         this.fastingRepo = fastingRepo;
         this.recService = recService;
+        this.logService = logService;
+        this.users = users;
+        this.profileService = profileService;
+        this.fastingService = fastingService;
+        this.summaryService = summaryService;
     }
 
     // ---------------- Users ----------------
 
     @GetMapping("/users")
-    public List<UserDto> listUsers() {
-        return userRepo.findAll().stream().map(DtoMapper::toDto).toList();
+    public CursorPage<UserDto> listUsers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size
+    ) {
+        int n = pageSize(size);
+        long after = cursor == null ? 0 : Cursors.decodeId(cursor);
+        // Se pide una fila de más para saber si hay siguiente página sin count(*)
+        var rows = userRepo.findPageAfter(after, Limit.of(n + 1));
+        boolean hasMore = rows.size() > n;
+        var items = hasMore ? rows.subList(0, n) : rows;
+        String next = hasMore ? Cursors.encode(items.get(n - 1).id()) : null;
+        return new CursorPage<>(items, next, hasMore);
     }
 
     @PostMapping("/users")
@@ -52,21 +80,20 @@ public class AppController {
                 .weightKg(req.weightKg())
                 .build();
 
-        return toDto(userRepo.save(u));
+        return toDto(profileService.create(u));
     }
 
     @PostMapping("/goals")
     public UserDto updateGoals(@Valid @RequestBody UpdateGoalsRequest req) {
-        var user = userRepo.findById(req.userId()).orElseThrow(() -> new IllegalArgumentException("User not found"));
-
-        if (req.goalMode() != null) user.setGoalMode(req.goalMode());
-        if (req.calorieTargetKcal() != null) user.setCalorieTargetKcal(req.calorieTargetKcal());
-        if (req.proteinTargetG() != null) user.setProteinTargetG(req.proteinTargetG());
-        if (req.sugarLimitG() != null) user.setSugarLimitG(req.sugarLimitG());
-        if (req.waterGoalMl() != null) user.setWaterGoalMl(req.waterGoalMl());
-        if (req.fastingDefaultHours() != null) user.setFastingDefaultHours(req.fastingDefaultHours());
-
-        return toDto(userRepo.save(user));
+        var saved = profileService.update(req.userId(), user -> {
+            if (req.goalMode() != null) user.setGoalMode(req.goalMode());
+            if (req.calorieTargetKcal() != null) user.setCalorieTargetKcal(req.calorieTargetKcal());
+            if (req.proteinTargetG() != null) user.setProteinTargetG(req.proteinTargetG());
+            if (req.sugarLimitG() != null) user.setSugarLimitG(req.sugarLimitG());
+            if (req.waterGoalMl() != null) user.setWaterGoalMl(req.waterGoalMl());
+            if (req.fastingDefaultHours() != null) user.setFastingDefaultHours(req.fastingDefaultHours());
+        });
+        return toDto(saved);
     }
 
     // ---------------- Food ----------------
@@ -74,7 +101,9 @@ public class AppController {
     @PostMapping("/food")
     @ResponseStatus(HttpStatus.CREATED)
     public FoodLogDto addFood(@Valid @RequestBody CreateFoodLogRequest req) {
-        var user = userRepo.findById(req.userId()).orElseThrow(() -> new IllegalArgumentException("User not found"));
+        // Validamos contra la caché y enlazamos por referencia (sin cargar la fila)
+        users.require(req.userId());
+        var user = userRepo.getReferenceById(req.userId());
 
         var log = FoodLog.builder()
                 .user(user)
@@ -86,17 +115,59 @@ public class AppController {
                 .fatG(req.fatG())
                 .build();
 
-        return toDto(foodRepo.save(log));
+        return toDto(logService.logFood(log, Source.MANUAL));
+    }
+
+    @PostMapping("/food/batch")
+    @ResponseStatus(HttpStatus.CREATED)
+    public List<FoodLogDto> addFoodBatch(@Valid @RequestBody BatchFoodLogRequest req) {
+        users.require(req.userId());
+        var user = userRepo.getReferenceById(req.userId());
+
+        var logs = req.entries().stream()
+                .map(e -> FoodLog.builder()
+                        .user(user)
+                        .eatenAt(e.eatenAt())
+                        .description(e.description())
+                        .calories(e.calories())
+                        .proteinG(e.proteinG())
+                        .carbsG(e.carbsG())
+                        .fatG(e.fatG())
+                        .sugarG(e.sugarG())
+                        .build())
+                .toList();
+
+        return logService.logFoods(logs, Source.MANUAL).stream().map(DtoMapper::toDto).toList();
     }
 
     @GetMapping("/food-logs")
-    public Page<FoodLogDto> listFoodLogs(
+    public CursorPage<FoodLogDto> listFoodLogs(
             @RequestParam Long userId,
-            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "25") int size
     ) {
-        var p = foodRepo.findByUserIdOrderByEatenAtDesc(userId, PageRequest.of(page, size));
-        return p.map(DtoMapper::toDto);
+        int n = pageSize(size);
+        List<FoodLogDto> rows;
+        if (cursor == null) {
+            rows = foodRepo.findPage(userId, n + 1);
+        } else {
+            var after = Cursors.decodeTimeId(cursor);
+            rows = foodRepo.findPageBefore(userId, after.at(), after.id(), n + 1);
+        }
+        boolean hasMore = rows.size() > n;
+        var items = hasMore ? rows.subList(0, n) : rows;
+        String next = null;
+        if (hasMore) {
+            var last = items.get(n - 1);
+            next = Cursors.encode(last.eatenAt(), last.id());
+        }
+        return new CursorPage<>(items, next, hasMore);
+    }
+
+    @DeleteMapping("/food-logs/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void deleteFood(@PathVariable Long id, @RequestParam Long userId) {
+        logService.deleteFood(userId, id);
     }
 
     // ---------------- Water ----------------
@@ -104,7 +175,8 @@ public class AppController {
     @PostMapping("/water")
     @ResponseStatus(HttpStatus.CREATED)
     public WaterLogDto addWater(@Valid @RequestBody CreateWaterLogRequest req) {
-        var user = userRepo.findById(req.userId()).orElseThrow(() -> new IllegalArgumentException("User not found"));
+        users.require(req.userId());
+        var user = userRepo.getReferenceById(req.userId());
 
         var log = WaterLog.builder()
                 .user(user)
@@ -112,14 +184,36 @@ public class AppController {
                 .ml(req.ml())
                 .build();
 
-        return toDto(waterRepo.save(log));
+        return toDto(logService.logWater(log, Source.MANUAL));
+    }
+
+    @PostMapping("/water/batch")
+    @ResponseStatus(HttpStatus.CREATED)
+    public List<WaterLogDto> addWaterBatch(@Valid @RequestBody BatchWaterLogRequest req) {
+        users.require(req.userId());
+        var user = userRepo.getReferenceById(req.userId());
+
+        var logs = req.entries().stream()
+                .map(e -> WaterLog.builder()
+                        .user(user)
+                        .drankAt(e.drankAt())
+                        .ml(e.ml())
+                        .build())
+                .toList();
+
+        return logService.logWaters(logs, Source.MANUAL).stream().map(DtoMapper::toDto).toList();
+    }
+
+    @DeleteMapping("/water-logs/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void deleteWater(@PathVariable Long id, @RequestParam Long userId) {
+        logService.deleteWater(userId, id);
     }
 
     @PostMapping("/water/goal")
     public UserDto updateWaterGoal(@Valid @RequestBody UpdateWaterGoalRequest req) {
-        var user = userRepo.findById(req.userId()).orElseThrow(() -> new IllegalArgumentException("User not found"));
-        user.setWaterGoalMl(req.waterGoalMl());
-        return DtoMapper.toDto(userRepo.save(user));
+        var saved = profileService.update(req.userId(), user -> user.setWaterGoalMl(req.waterGoalMl()));
+        return DtoMapper.toDto(saved);
     }
 
     // ---------------- Fasting ----------------
@@ -127,32 +221,18 @@ public class AppController {
     @PostMapping("/fasting/start")
     @ResponseStatus(HttpStatus.CREATED)
     public FastingSessionDto startFasting(@Valid @RequestBody StartFastingRequest req) {
-        var user = userRepo.findById(req.userId()).orElseThrow(() -> new IllegalArgumentException("User not found"));
-
-        fastingRepo.findFirstByUserIdAndEndedAtIsNullOrderByStartedAtDesc(req.userId())
-                .ifPresent(active -> { throw new IllegalStateException("User already has an active fasting session"); });
-
-        var session = FastingSession.builder()
-                .user(user)
-                .startedAt(Instant.now())
-                .protocol(req.protocol() == null || req.protocol().isBlank() ? "custom" : req.protocol())
-                .build();
-
-        return toDto(fastingRepo.save(session));
+        users.require(req.userId());
+        return toDto(fastingService.start(req.userId(), req.protocol()));
     }
 
     @PostMapping("/fasting/stop")
     public FastingSessionDto stopFasting(@RequestParam Long userId) {
-        var active = fastingRepo.findFirstByUserIdAndEndedAtIsNullOrderByStartedAtDesc(userId)
-                .orElseThrow(() -> new IllegalStateException("No active fasting session"));
-
-        active.setEndedAt(Instant.now());
-        return toDto(fastingRepo.save(active));
+        return toDto(fastingService.stop(userId));
     }
 
     @GetMapping("/fasting/status")
     public FastingStatusDto fastingStatus(@RequestParam Long userId) {
-        var user = userRepo.findById(userId).orElseThrow(() -> new IllegalArgumentException("User not found"));
+        users.require(userId);
 
         var active = fastingRepo.findFirstByUserIdAndEndedAtIsNullOrderByStartedAtDesc(userId);
 
@@ -188,68 +268,19 @@ public class AppController {
 
     @GetMapping("/summary/today")
     public TodaySummaryDto todaySummary(@RequestParam Long userId) {
-        var user = userRepo.findById(userId).orElseThrow(() -> new IllegalArgumentException("User not found"));
-
-        ZoneId zone = ZoneId.systemDefault();
-        Instant todayStart = LocalDate.now(zone).atStartOfDay(zone).toInstant();
-        Instant now = Instant.now();
-
-        double caloriesToday = foodRepo.sumCaloriesBetween(userId, todayStart, now).orElse(0.0);
-        double proteinToday = foodRepo.sumProteinBetween(userId, todayStart, now).orElse(0.0);
-        double sugarToday = foodRepo.sumSugarBetween(userId, todayStart, now).orElse(0.0);
-        int waterMlToday = waterRepo.sumWaterBetween(userId, todayStart, now).orElse(0);
-        double carbsGToday = Math.max(0.0,( caloriesToday - (proteinToday * 4.0)) / 4.0);
-
-        Integer waterGoal = user.getWaterGoalMl();
-        if (waterGoal == null) waterGoal = 2000;
-
-        Integer calorieTarget = user.getCalorieTargetKcal();
-        if (calorieTarget == null) calorieTarget = 2000;
-
-        Integer proteinTarget = user.getProteinTargetG();
-        if (proteinTarget == null) proteinTarget = 120;
-
-        Integer sugarLimit = user.getSugarLimitG();
-        if (sugarLimit == null) sugarLimit = 0;
-
-        double carbsTargetG = Math.max(0.0, (calorieTarget - (proteinTarget * 4.0)) / 4.0);
-
-
-        DailyTargetsDto targets = new DailyTargetsDto(
-                calorieTarget,
-                proteinTarget,
-                sugarLimit,
-                waterGoal,
-                carbsTargetG
-        );
-
-
-        DailyProgressDto consumed = new DailyProgressDto(
-                caloriesToday,
-                proteinToday,
-                sugarToday,
-                waterMlToday,
-                carbsGToday
-        );
-
-        var activeFasting = fastingRepo.findFirstByUserIdAndEndedAtIsNullOrderByStartedAtDesc(userId);
-
-        return new TodaySummaryDto(
-                userId,
-                LocalDate.now(zone).toString(),
-                targets,
-                consumed,
-                activeFasting.isPresent(),
-                activeFasting.map(FastingSession::getProtocol).orElse(null),
-                activeFasting.map(FastingSession::getId).orElse(null)
-        );
+        return summaryService.today(userId);
     }
 
 
+
     // ---------------- Recommendations ----------------
 
     @GetMapping("/recommendations/today")
     public TodayRecommendationsDto todayRecommendations(@RequestParam Long userId) {
         return recService.today(userId);
     }
+
+    private static int pageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
 }
@@ -0,0 +1,23 @@
+package com.ginger.backend.controller;
+
+import com.ginger.backend.service.LiveSummaryHub;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/live")
+public class LiveController {
+
+    private final LiveSummaryHub hub;
+
+    public LiveController(LiveSummaryHub hub) {
+        this.hub = hub;
+    }
+
+    // Evento "summary" con el resumen de hoy al conectar y tras cada cambio del usuario
+    @GetMapping(value = "/summary", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter summary(@RequestParam Long userId) {
+        return hub.subscribe(userId);
+    }
+}
@@ -1,9 +1,9 @@
 package com.ginger.backend.api.profile;
 
-import com.ginger.backend.domain.FoodLog;
-import com.ginger.backend.domain.WaterLog;
-import com.ginger.backend.domain.WeightLog;
+import com.ginger.backend.api.dto.WeightLogDto;
+import com.ginger.backend.repo.DayBucket;
 import com.ginger.backend.repo.FoodLogRepo;
+import com.ginger.backend.repo.HourBucket;
 import com.ginger.backend.repo.WaterLogRepo;
 import com.ginger.backend.repo.WeightLogRepo;
 import org.springframework.web.bind.annotation.*;
@@ -26,14 +26,17 @@ public class StatsController {
         this.waterLogRepo = waterLogRepo;
     }
 
+    // endDate (opcional) = último día incluido; si ya pasó, la respuesta se puede cachear
     @GetMapping("/weight")
-    public List<WeightLog> weightSeries(
+    public List<WeightLogDto> weightSeries(
             @RequestParam Long userId,
-            @RequestParam(defaultValue = "90") int days
+            @RequestParam(defaultValue = "90") int days,
+            @RequestParam(required = false) LocalDate endDate,
+            @RequestParam(defaultValue = "Europe/Madrid") String tz
     ) {
-        Instant to = Instant.now();
+        Instant to = windowEnd(endDate, ZoneId.of(tz));
         Instant from = to.minus(days, ChronoUnit.DAYS);
-        return weightLogRepo.findByUserIdAndCreatedAtBetweenOrderByCreatedAtAsc(userId, from, to);
+        return weightLogRepo.findSeriesBetween(userId, from, to);
     }
 
     // ===== NUEVO 1: Totales diarios (calorías + agua) =====
@@ -41,40 +44,35 @@ public class StatsController {
     public List<DailyTotalsPoint> dailyTotals(
             @RequestParam Long userId,
             @RequestParam(defaultValue = "30") int days,
+            @RequestParam(required = false) LocalDate endDate,
             @RequestParam(defaultValue = "Europe/Madrid") String tz
     ) {
         ZoneId zone = ZoneId.of(tz);
 
-        Instant to = Instant.now();
-        Instant from = to.minus(days, ChronoUnit.DAYS);
-
-        List<FoodLog> foods = foodLogRepo.findByUserIdAndEatenAtBetween(userId, from, to);
-        List<WaterLog> waters = waterLogRepo.findByUserIdAndDrankAtBetween(userId, from, to);
+        // Ventana = días completos en tz (el primero desde las 00:00)
+        Instant to = windowEnd(endDate, zone);
+        LocalDate end = to.atZone(zone).toLocalDate();
+        LocalDate start = end.minusDays(days - 1);
+        Instant from = start.atStartOfDay(zone).toInstant();
 
-        // Agrupar por LocalDate (en tz)
-        Map<LocalDate, Double> caloriesByDay = new HashMap<>();
-        for (FoodLog f : foods) {
-            Instant at = f.getCreatedAt(); // cambia a f.getAt() si tu campo es at
-            LocalDate day = at.atZone(zone).toLocalDate();
-            caloriesByDay.merge(day, safeDouble(f.getCalories()), Double::sum);
+        // Postgres agrupa por día local (eatenAt / drankAt) y solo devuelve (día, suma)
+        Map<String, Double> caloriesByDay = new HashMap<>();
+        for (DayBucket b : foodLogRepo.sumCaloriesByDay(userId, from, to, zone.getId())) {
+            caloriesByDay.put(b.getDay(), safeDouble(b.getTotal()));
         }
 
-        Map<LocalDate, Integer> waterByDay = new HashMap<>();
-        for (WaterLog w : waters) {
-            Instant at = w.getDrankAt(); // cambia a w.getAt() si tu campo es at
-            LocalDate day = at.atZone(zone).toLocalDate();
-            waterByDay.merge(day, safeInt(w.getMl()), Integer::sum);
+        Map<String, Integer> waterByDay = new HashMap<>();
+        for (DayBucket b : waterLogRepo.sumWaterByDay(userId, from, to, zone.getId())) {
+            waterByDay.put(b.getDay(), safeInt(b.getTotal()));
         }
 
         // Generar lista continua de días (para que la gráfica no “salte”)
-        LocalDate end = Instant.now().atZone(zone).toLocalDate();
-        LocalDate start = end.minusDays(days - 1);
-
         List<DailyTotalsPoint> out = new ArrayList<>();
         for (LocalDate d = start; !d.isAfter(end); d = d.plusDays(1)) {
-            double cals = caloriesByDay.getOrDefault(d, 0.0);
-            int ml = waterByDay.getOrDefault(d, 0);
-            out.add(new DailyTotalsPoint(d.toString(), cals, ml));
+            String key = d.toString();
+            double cals = caloriesByDay.getOrDefault(key, 0.0);
+            int ml = waterByDay.getOrDefault(key, 0);
+            out.add(new DailyTotalsPoint(key, cals, ml));
         }
 
         return out;
@@ -85,20 +83,17 @@ public class StatsController {
     public List<HourCaloriesPoint> caloriesByHour(
             @RequestParam Long userId,
             @RequestParam(defaultValue = "14") int days,
+            @RequestParam(required = false) LocalDate endDate,
             @RequestParam(defaultValue = "Europe/Madrid") String tz
     ) {
         ZoneId zone = ZoneId.of(tz);
 
-        Instant to = Instant.now();
+        Instant to = windowEnd(endDate, zone);
         Instant from = to.minus(days, ChronoUnit.DAYS);
 
-        List<FoodLog> foods = foodLogRepo.findByUserIdAndEatenAtBetween(userId, from, to);
-
         double[] buckets = new double[24];
-        for (FoodLog f : foods) {
-            Instant at = f.getCreatedAt(); // cambia a f.getAt() si tu campo es at
-            int hour = at.atZone(zone).getHour();
-            buckets[hour] += safeDouble(f.getCalories());
+        for (HourBucket b : foodLogRepo.sumCaloriesByHour(userId, from, to, zone.getId())) {
+            buckets[b.getHour()] = safeDouble(b.getTotal());
         }
 
         List<HourCaloriesPoint> out = new ArrayList<>();
@@ -108,6 +103,14 @@ public class StatsController {
         return out;
     }
 
-    private static double safeDouble(Double v) { return v == null ? 0.0 : v; }
-    private static int safeInt(Integer v) { return v == null ? 0 : v; }
+    // Ahora, o el último instante de endDate si es anterior (las consultas usan <= to)
+    private static Instant windowEnd(LocalDate endDate, ZoneId zone) {
+        Instant now = Instant.now();
+        if (endDate == null) return now;
+        Instant endOfDay = endDate.plusDays(1).atStartOfDay(zone).toInstant().minus(1, ChronoUnit.MICROS);
+        return endOfDay.isBefore(now) ? endOfDay : now;
+    }
+
+    private static double safeDouble(Number v) { return v == null ? 0.0 : v.doubleValue(); }
+    private static int safeInt(Number v) { return v == null ? 0 : v.intValue(); }
 }
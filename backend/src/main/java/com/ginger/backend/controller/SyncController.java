@@ -0,0 +1,34 @@
+package com.ginger.backend.controller;
+
+import com.ginger.backend.api.dto.SyncChangesDto;
+import com.ginger.backend.api.dto.SyncUploadRequest;
+import com.ginger.backend.api.dto.SyncUploadResponse;
+import com.ginger.backend.service.SyncFeedService;
+import com.ginger.backend.service.SyncService;
+import jakarta.validation.Valid;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/sync")
+public class SyncController {
+
+    private final SyncService syncService;
+    private final SyncFeedService feedService;
+
+    public SyncController(SyncService syncService, SyncFeedService feedService) {
+        this.syncService = syncService;
+        this.feedService = feedService;
+    }
+
+    // Cambios desde ?since= (cursor de la respuesta anterior); sin since devuelve el cursor actual
+    @GetMapping
+    public SyncChangesDto changes(@RequestParam Long userId, @RequestParam(required = false) Long since) {
+        return feedService.changes(userId, since);
+    }
+
+    // Sube la cola offline; reenviar el mismo lote devuelve DUPLICATE sin escribir nada
+    @PostMapping
+    public SyncUploadResponse upload(@Valid @RequestBody SyncUploadRequest req) {
+        return syncService.upload(req);
+    }
+}
@@ -1,9 +1,11 @@
 package com.ginger.backend.api.profile;
 
-import com.ginger.backend.domain.UserProfile;
+import com.ginger.backend.api.DtoMapper;
+import com.ginger.backend.api.dto.WeightLogDto;
 import com.ginger.backend.domain.WeightLog;
-import com.ginger.backend.repo.UserProfileRepo;
 import com.ginger.backend.repo.WeightLogRepo;
+import com.ginger.backend.service.ProfileService;
+import org.springframework.data.domain.Limit;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -13,11 +15,11 @@ import java.util.List;
 public class WeightController {
 
     private final WeightLogRepo weightLogRepo;
-    private final UserProfileRepo userProfileRepo;
+    private final ProfileService profileService;
 
-    public WeightController(WeightLogRepo weightLogRepo, UserProfileRepo userProfileRepo) {
+    public WeightController(WeightLogRepo weightLogRepo, ProfileService profileService) {
         this.weightLogRepo = weightLogRepo;
-        this.userProfileRepo = userProfileRepo;
+        this.profileService = profileService;
     }
 
     public static class AddWeightRequest {
@@ -26,31 +28,19 @@ public class WeightController {
     }
 
     @PostMapping
-    public WeightLog add(@RequestBody AddWeightRequest r) {
+    public WeightLogDto add(@RequestBody AddWeightRequest r) {
         if (r.userId == null || r.weightKg == null) {
             throw new RuntimeException("userId and weightKg are required");
         }
 
-        // 1) insertar en histórico
-        WeightLog saved = weightLogRepo.save(
-                WeightLog.builder()
-                        .userId(r.userId)
-                        .weightKg(r.weightKg)
-                        .build()
-        );
+        // histórico + peso actual en perfil, en una transacción
+        WeightLog saved = profileService.logWeight(r.userId, r.weightKg);
 
-        // 2) actualizar peso actual en perfil
-        UserProfile u = userProfileRepo.findById(r.userId)
-                .orElseThrow(() -> new RuntimeException("UserProfile not found: " + r.userId));
-
-        u.setWeightKg(r.weightKg);
-        userProfileRepo.save(u);
-
-        return saved;
+        return DtoMapper.toDto(saved);
     }
 
     @GetMapping
-    public List<WeightLog> list(@RequestParam Long userId) {
-        return weightLogRepo.findTop90ByUserIdOrderByCreatedAtAsc(userId);
+    public List<WeightLogDto> list(@RequestParam Long userId) {
+        return weightLogRepo.findSeries(userId, Limit.of(90));
     }
 }
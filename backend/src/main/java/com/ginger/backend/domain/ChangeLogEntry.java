@@ -0,0 +1,45 @@
+package com.ginger.backend.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+// Outbox append-only: una fila por cambio, numerada con la versión del usuario
+@Entity
+@Table(name = "change_log",
+        uniqueConstraints = @UniqueConstraint(name = "uk_change_log_user_version", columnNames = {"user_id", "version"}))
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+public class ChangeLogEntry {
+
+    public enum EntityType { USER_PROFILE, FOOD_LOG, WATER_LOG, WEIGHT_LOG, FASTING_SESSION }
+
+    public enum Op { UPSERT, DELETE }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "change_log_seq")
+    @SequenceGenerator(name = "change_log_seq", sequenceName = "change_log_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private Long version;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 24)
+    private EntityType entityType;
+
+    @Column(nullable = false)
+    private Long entityId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 8)
+    private Op op;
+
+    @Column(nullable = false)
+    private Instant changedAt;
+}
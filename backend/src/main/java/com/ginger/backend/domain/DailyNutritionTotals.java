@@ -0,0 +1,41 @@
+package com.ginger.backend.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Totales del día por usuario. Se actualiza en la misma transacción que cada
+ * FoodLog/WaterLog, así el resumen de hoy es una sola lectura por clave primaria.
+ */
+@Entity
+@Table(name = "daily_nutrition_totals")
+@IdClass(DailyNutritionTotalsId.class)
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+public class DailyNutritionTotals {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Column(name = "log_date")
+    private LocalDate logDate; // día local (zona del servidor)
+
+    private double calories;
+    private double proteinG;
+    private double carbsG;
+    private double fatG;
+    private double sugarG;
+    private int waterMl;
+
+    private int foodEntries;
+    private int waterEntries;
+
+    @Column(nullable = false)
+    private Instant updatedAt;
+}
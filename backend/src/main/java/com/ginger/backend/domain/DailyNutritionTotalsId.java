@@ -0,0 +1,14 @@
+package com.ginger.backend.domain;
+
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@EqualsAndHashCode
+public class DailyNutritionTotalsId implements Serializable {
+    private Long userId;
+    private LocalDate logDate;
+}
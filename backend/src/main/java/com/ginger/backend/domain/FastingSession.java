@@ -13,7 +13,8 @@ import java.time.Instant;
 public class FastingSession {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "fasting_sessions_seq")
+    @SequenceGenerator(name = "fasting_sessions_seq", sequenceName = "fasting_sessions_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(optional = false, fetch = FetchType.LAZY)
@@ -13,7 +13,8 @@ import java.time.Instant;
 public class FoodLog {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "food_logs_seq")
+    @SequenceGenerator(name = "food_logs_seq", sequenceName = "food_logs_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(optional = false, fetch = FetchType.LAZY)
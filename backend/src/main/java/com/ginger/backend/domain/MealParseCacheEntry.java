@@ -0,0 +1,28 @@
+package com.ginger.backend.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+// Nivel persistente de la caché de parseMeal (compartido entre instancias)
+@Entity
+@Table(name = "meal_parse_cache")
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+public class MealParseCacheEntry {
+
+    @Id
+    @Column(length = 64)
+    private String cacheKey; // sha-256 (hex) de modelo + versión + texto normalizado
+
+    @Column(nullable = false, columnDefinition = "text")
+    private String normalizedText;
+
+    @Column(nullable = false, columnDefinition = "text")
+    private String responseJson; // ParseMealResponse serializado
+
+    @Column(nullable = false)
+    private Instant createdAt;
+}
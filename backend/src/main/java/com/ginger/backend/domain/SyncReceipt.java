@@ -0,0 +1,39 @@
+package com.ginger.backend.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// Un evento de sync ya aplicado: la clave (usuario, evento del cliente) evita duplicados en reintentos
+@Entity
+@Table(name = "sync_receipts",
+        uniqueConstraints = @UniqueConstraint(name = "uk_sync_receipts_user_event", columnNames = {"user_id", "client_event_id"}))
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+public class SyncReceipt {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sync_receipts_seq")
+    @SequenceGenerator(name = "sync_receipts_seq", sequenceName = "sync_receipts_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "client_event_id", nullable = false)
+    private UUID clientEventId;
+
+    @Column(nullable = false, length = 16)
+    private String type; // FOOD | WATER
+
+    private Long entityId; // id del FoodLog / WaterLog creado
+
+    @Column(nullable = false)
+    private Instant clientTime;
+
+    @Column(nullable = false)
+    private Instant appliedAt;
+}
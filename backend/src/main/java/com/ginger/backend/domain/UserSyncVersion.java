@@ -0,0 +1,18 @@
+package com.ginger.backend.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+// Contador de cambios por usuario: cada escritura lo sube y bloquea la fila hasta el commit
+@Entity
+@Table(name = "user_sync_versions")
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+public class UserSyncVersion {
+
+    @Id
+    private Long userId;
+
+    @Column(nullable = false)
+    private Long version;
+}
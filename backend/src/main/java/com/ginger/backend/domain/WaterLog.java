@@ -13,7 +13,8 @@ import java.time.Instant;
 public class WaterLog {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "water_logs_seq")
+    @SequenceGenerator(name = "water_logs_seq", sequenceName = "water_logs_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(optional = false, fetch = FetchType.LAZY)
@@ -13,7 +13,8 @@ import java.time.Instant;
 public class WeightLog {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "weight_log_seq")
+    @SequenceGenerator(name = "weight_log_seq", sequenceName = "weight_log_seq", allocationSize = 50)
     private Long id;
 
     // MVP: guardamos userId directo (sin relación JPA para evitar líos)
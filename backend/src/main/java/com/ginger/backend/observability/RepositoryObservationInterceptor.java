@@ -0,0 +1,46 @@
+package com.ginger.backend.observability;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Envuelve cada método de un repositorio en una observación repository.calls
+ * (span "food-log-repo.find-page" con las sentencias JDBC como hijas, y timer con
+ * tags repository/method, acotados por el código).
+ */
+class RepositoryObservationInterceptor implements MethodInterceptor {
+
+    private final ObjectProvider<ObservationRegistry> observations;
+    private final String repository;
+    private ObservationRegistry registry; // lazy: los repositorios se crean antes que el registry
+
+    RepositoryObservationInterceptor(ObjectProvider<ObservationRegistry> observations, Class<?> repositoryInterface) {
+        this.observations = observations;
+        this.repository = repositoryInterface.getSimpleName();
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        String method = invocation.getMethod().getName();
+        if (invocation.getMethod().getDeclaringClass() == Object.class) return invocation.proceed();
+
+        if (registry == null) registry = observations.getIfAvailable(() -> ObservationRegistry.NOOP);
+
+        Observation observation = Observation.createNotStarted("repository.calls", registry)
+                .contextualName(repository + "." + method)
+                .lowCardinalityKeyValue("repository", repository)
+                .lowCardinalityKeyValue("method", method)
+                .start();
+        try (Observation.Scope scope = observation.openScope()) {
+            return invocation.proceed();
+        } catch (Throwable t) {
+            observation.error(t);
+            throw t;
+        } finally {
+            observation.stop();
+        }
+    }
+}
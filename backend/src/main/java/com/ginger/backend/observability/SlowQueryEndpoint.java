@@ -0,0 +1,31 @@
+package com.ginger.backend.observability;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * GET /actuator/slowqueries: sentencias por encima del umbral, con sus ejecuciones
+ * más lentas y el último plan capturado. DELETE vacía lo acumulado.
+ */
+@Component
+@Endpoint(id = "slowqueries")
+public class SlowQueryEndpoint {
+
+    private final SlowQuerySampler sampler;
+
+    public SlowQueryEndpoint(SlowQuerySampler sampler) {
+        this.sampler = sampler;
+    }
+
+    @ReadOperation
+    public SlowQuerySampler.Report slowQueries() {
+        return sampler.report();
+    }
+
+    @DeleteOperation
+    public void reset() {
+        sampler.reset();
+    }
+}
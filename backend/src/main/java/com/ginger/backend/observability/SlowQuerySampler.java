@@ -0,0 +1,278 @@
+package com.ginger.backend.observability;
+
+import jakarta.annotation.PreDestroy;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Muestreo de sentencias lentas en el propio proxy JDBC (datasource-micrometer
+ * registra los QueryExecutionListener que haya como beans). Por debajo del umbral
+ * solo cuesta una comparación.
+ *
+ * Por cada SQL normalizado se guardan las N ejecuciones más lentas (tipos de los
+ * parámetros, nunca valores), en un mapa acotado que descarta el menos reciente.
+ * Opcionalmente, cuando una lectura de tablas marca un nuevo máximo, se captura su
+ * EXPLAIN (ANALYZE, BUFFERS) en segundo plano, con los mismos parámetros y en una
+ * transacción que se deshace. EXPLAIN ANALYZE ejecuta la sentencia y el rollback no
+ * deshace los locks de sesión ni las secuencias: las SELECT que llaman a funciones
+ * con efectos (advisory locks, nextval, create_monthly_partitions...) o bloquean
+ * filas no se explican. Se consulta en /actuator/slowqueries.
+ */
+@Component
+public class SlowQuerySampler implements QueryExecutionListener {
+
+    private static final Logger log = LoggerFactory.getLogger(SlowQuerySampler.class);
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern PLACEHOLDER_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern ROW_LIST = Pattern.compile("\\(\\s*\\(\\?\\.\\.\\.\\)(?:\\s*,\\s*\\(\\?\\.\\.\\.\\))+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern PLAN_ROWS = Pattern.compile("actual time=\\S+ rows=(\\d+)");
+    private static final Pattern FROM = Pattern.compile("\\bfrom\\b");
+    // Funciones con efectos que sobreviven al rollback, escrituras en CTE y bloqueos de filas
+    private static final Pattern SIDE_EFFECTS = Pattern.compile(
+            "\\b(?:pg_\\w+|nextval|setval|set_config|create_\\w+|lo_\\w+|dblink\\w*)\\s*\\("
+                    + "|\\b(?:insert|update|delete|merge)\\b|\\bfor\\s+(?:share|no\\s+key|key)\\b");
+
+    private final long thresholdMs;
+    private final int topN;
+    private final int maxStatements;
+    private final boolean explainEnabled;
+    private final Duration explainMinInterval;
+    private final Duration explainTimeout;
+    private final ObjectProvider<DataSource> dataSource;
+
+    // SQL normalizado -> estadísticas; orden de acceso para descartar el menos reciente
+    private final Map<String, Stats> statements;
+
+    // EXPLAIN de uno en uno y con cola corta: si se llena, se descarta
+    private final ThreadPoolExecutor explainer;
+    private static final ThreadLocal<Boolean> EXPLAINING = ThreadLocal.withInitial(() -> false);
+
+    public SlowQuerySampler(ObjectProvider<DataSource> dataSource,
+                            @Value("${app.slow-queries.threshold:200ms}") Duration threshold,
+                            @Value("${app.slow-queries.top-n:5}") int topN,
+                            @Value("${app.slow-queries.max-statements:200}") int maxStatements,
+                            @Value("${app.slow-queries.explain.enabled:false}") boolean explainEnabled,
+                            @Value("${app.slow-queries.explain.min-interval:10m}") Duration explainMinInterval,
+                            @Value("${app.slow-queries.explain.timeout:5s}") Duration explainTimeout) {
+        this.dataSource = dataSource;
+        this.thresholdMs = threshold.toMillis();
+        this.topN = topN;
+        this.maxStatements = maxStatements;
+        this.explainEnabled = explainEnabled;
+        this.explainMinInterval = explainMinInterval;
+        this.explainTimeout = explainTimeout;
+        this.statements = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Stats> eldest) {
+                return size() > SlowQuerySampler.this.maxStatements;
+            }
+        };
+        this.explainer = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(8), r -> {
+            Thread t = new Thread(r, "slow-query-explain");
+            t.setDaemon(true);
+            return t;
+        }, new ThreadPoolExecutor.DiscardPolicy());
+        this.explainer.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        long elapsed = execInfo.getElapsedTime();
+        if (elapsed < thresholdMs || EXPLAINING.get()) return;
+
+        Integer rows = affectedRows(execInfo.getResult());
+        for (QueryInfo query : queryInfoList) {
+            List<ParameterSetOperation> params = query.getParametersList().isEmpty()
+                    ? List.of() : query.getParametersList().get(0);
+            String shape = shape(params, query.getParametersList().size());
+            record(normalize(query.getQuery()), query.getQuery(), params,
+                    new Sample(Instant.now(), elapsed, shape, rows, MDC.get("traceId")));
+        }
+    }
+
+    private void record(String sql, String rawSql, List<ParameterSetOperation> params, Sample sample) {
+        Stats stats;
+        synchronized (statements) {
+            stats = statements.computeIfAbsent(sql, k -> new Stats());
+        }
+
+        boolean explain;
+        synchronized (stats) {
+            boolean newMax = stats.count == 0 || sample.durationMs() > stats.maxMs;
+            stats.count++;
+            stats.totalMs += sample.durationMs();
+            stats.maxMs = Math.max(stats.maxMs, sample.durationMs());
+            stats.lastSeen = sample.at();
+
+            stats.slowest.add(sample);
+            stats.slowest.sort(Comparator.comparingLong(Sample::durationMs).reversed());
+            if (stats.slowest.size() > topN) stats.slowest.remove(stats.slowest.size() - 1);
+
+            explain = explainEnabled && newMax && isPlainRead(sql)
+                    && (stats.planAt == null || stats.planAt.plus(explainMinInterval).isBefore(sample.at()));
+            // Se reserva aquí para no encolar dos EXPLAIN de la misma sentencia
+            if (explain) stats.planAt = sample.at();
+        }
+
+        if (explain) {
+            List<ParameterSetOperation> binds = List.copyOf(params);
+            explainer.execute(() -> capturePlan(stats, rawSql, binds));
+        }
+    }
+
+    private void capturePlan(Stats stats, String sql, List<ParameterSetOperation> binds) {
+        EXPLAINING.set(true);
+        try (Connection c = dataSource.getObject().getConnection()) {
+            c.setAutoCommit(false);
+            try {
+                try (Statement st = c.createStatement()) {
+                    st.execute("set local statement_timeout = " + explainTimeout.toMillis());
+                }
+                StringBuilder plan = new StringBuilder();
+                try (PreparedStatement ps = c.prepareStatement("explain (analyze, buffers) " + sql)) {
+                    for (ParameterSetOperation op : binds) op.getMethod().invoke(ps, op.getArgs());
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) plan.append(rs.getString(1)).append('\n');
+                    }
+                }
+                Matcher m = PLAN_ROWS.matcher(plan);
+                synchronized (stats) {
+                    stats.plan = plan.toString();
+                    stats.planRows = m.find() ? Long.parseLong(m.group(1)) : null;
+                    stats.planAt = Instant.now();
+                }
+            } finally {
+                // EXPLAIN ANALYZE ejecuta la sentencia: nunca se confirma nada
+                c.rollback();
+                // Ni vuelve al pool un lock de sesión que se haya colado
+                c.setAutoCommit(true);
+                try (Statement st = c.createStatement()) {
+                    st.execute("select pg_advisory_unlock_all()");
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Could not capture plan for slow query: {}", sql, e);
+        } finally {
+            EXPLAINING.remove();
+        }
+    }
+
+    /** Sentencias lentas, de la más lenta a la menos. */
+    public Report report() {
+        List<Map.Entry<String, Stats>> entries;
+        synchronized (statements) {
+            entries = new ArrayList<>(statements.entrySet());
+        }
+        List<StatementReport> out = new ArrayList<>(entries.size());
+        for (Map.Entry<String, Stats> e : entries) {
+            Stats s = e.getValue();
+            synchronized (s) {
+                out.add(new StatementReport(e.getKey(), s.count, s.maxMs, s.totalMs, s.lastSeen,
+                        List.copyOf(s.slowest), s.plan, s.planRows, s.plan == null ? null : s.planAt));
+            }
+        }
+        out.sort(Comparator.comparingLong(StatementReport::maxMs).reversed());
+        return new Report(thresholdMs, out);
+    }
+
+    public void reset() {
+        synchronized (statements) {
+            statements.clear();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        explainer.shutdownNow();
+    }
+
+    /** Mismo SQL con distintos literales o distinto tamaño de IN (...) cuenta como una sola sentencia. */
+    static String normalize(String sql) {
+        String s = STRING_LITERAL.matcher(sql).replaceAll("?");
+        s = NUMBER_LITERAL.matcher(s).replaceAll("?");
+        s = PLACEHOLDER_LIST.matcher(s).replaceAll("(?...)");
+        s = ROW_LIST.matcher(s).replaceAll("((?...)...)");
+        return WHITESPACE.matcher(s).replaceAll(" ").trim();
+    }
+
+    // Tipos de los parámetros en orden (Long, Timestamp, null...) y tamaño del batch
+    static String shape(List<ParameterSetOperation> params, int batchSize) {
+        List<String> types = new ArrayList<>(params.size());
+        for (ParameterSetOperation op : params) {
+            Object[] args = op.getArgs();
+            Object value = args.length > 1 ? args[1] : null;
+            types.add(ParameterSetOperation.isSetNullParameterOperation(op) || value == null
+                    ? "null" : value.getClass().getSimpleName());
+        }
+        return batchSize > 1 ? types + " x" + batchSize : types.toString();
+    }
+
+    private static Integer affectedRows(Object result) {
+        if (result instanceof Integer n) return n;
+        if (result instanceof Long n) return n.intValue();
+        if (result instanceof int[] batch) {
+            int sum = 0;
+            for (int n : batch) sum += Math.max(n, 0);
+            return sum;
+        }
+        return null; // SELECT: las filas salen del plan capturado
+    }
+
+    // Solo SELECT/WITH que leen tablas y no llaman a nada que deje huella
+    static boolean isPlainRead(String sql) {
+        String s = sql.toLowerCase();
+        return (s.startsWith("select") || s.startsWith("with"))
+                && FROM.matcher(s).find() && !SIDE_EFFECTS.matcher(s).find();
+    }
+
+    private static final class Stats {
+        long count;
+        long totalMs;
+        long maxMs;
+        Instant lastSeen;
+        final List<Sample> slowest = new ArrayList<>();
+        String plan;
+        Long planRows;
+        Instant planAt;
+    }
+
+    public record Sample(Instant at, long durationMs, String parameters, Integer rows, String traceId) {}
+
+    public record StatementReport(String sql, long count, long maxMs, long totalMs, Instant lastSeen,
+                                  List<Sample> slowest, String plan, Long planRows, Instant planAt) {}
+
+    public record Report(long thresholdMs, List<StatementReport> statements) {}
+}
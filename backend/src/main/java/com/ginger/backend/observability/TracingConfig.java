@@ -0,0 +1,46 @@
+package com.ginger.backend.observability;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+import java.nio.file.Path;
+
+/**
+ * Trazas (Micrometer Tracing + OpenTelemetry). Spans que salen solos: petición
+ * HTTP y cada sentencia JDBC (datasource-micrometer). Aquí se añaden un span por
+ * llamada a repositorio y el exporter a fichero; OTLP se activa con
+ * management.otlp.tracing.endpoint. El muestreo va en management.tracing.sampling.
+ */
+@Configuration
+public class TracingConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "app.tracing.file.enabled", havingValue = "true")
+    FileSpanExporter fileSpanExporter(ObjectMapper mapper,
+                                      @Value("${app.tracing.file.path:build/traces/spans.jsonl}") String path) {
+        return new FileSpanExporter(mapper, Path.of(path));
+    }
+
+    // static: los BeanPostProcessor se crean antes que el resto de beans
+    @Bean
+    static BeanPostProcessor repositoryObservationPostProcessor(ObjectProvider<ObservationRegistry> observations) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxy, info) -> proxy.addAdvice(
+                                    new RepositoryObservationInterceptor(observations, info.getRepositoryInterface()))));
+                }
+                return bean;
+            }
+        };
+    }
+}
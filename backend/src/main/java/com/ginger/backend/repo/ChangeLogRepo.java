@@ -0,0 +1,27 @@
+package com.ginger.backend.repo;
+
+import com.ginger.backend.domain.ChangeLogEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface ChangeLogRepo extends JpaRepository<ChangeLogEntry, Long> {
+
+    @Query("""
+    select c from ChangeLogEntry c
+    where c.userId = :userId and c.version > :since
+    order by c.version
+  """)
+    List<ChangeLogEntry> findSince(@Param("userId") Long userId, @Param("since") long since, Pageable page);
+
+    @Transactional
+    @Modifying
+    @Query("delete from ChangeLogEntry c where c.changedAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") Instant cutoff);
+}
@@ -0,0 +1,106 @@
+package com.ginger.backend.repo;
+
+import com.ginger.backend.domain.DailyNutritionTotals;
+import com.ginger.backend.domain.DailyNutritionTotalsId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+
+public interface DailyNutritionTotalsRepo extends JpaRepository<DailyNutritionTotals, DailyNutritionTotalsId> {
+
+    // Advisory locks del rollup (transaccionales): 7301 = todos los usuarios, 7302 = un usuario.
+    // Las escrituras los toman compartidos (no se bloquean entre sí) y rebuild en exclusiva,
+    // para que ningún delta caiga entre el delete y el insert del rebuild.
+
+    // Upsert atómico: dos inserts concurrentes del mismo día suman, no se pisan.
+    // El lock va en la misma sentencia: se toma antes de escribir la fila y sin ida y vuelta extra.
+    // Ojo: la naming strategy deja proteinG como "proteing" (sin guion bajo antes de la última letra).
+    @Modifying
+    @Query(value = """
+    insert into daily_nutrition_totals as t
+        (user_id, log_date, calories, proteing, carbsg, fatg, sugarg, water_ml, food_entries, water_entries, updated_at)
+    select :userId, :logDate, :calories, :proteinG, :carbsG, :fatG, :sugarG, :waterMl, :foodEntries, :waterEntries, now()
+    from (select pg_advisory_xact_lock_shared(7301, 0),
+                 pg_advisory_xact_lock_shared(7302, cast(cast(:userId as bigint) % 2147483647 as integer))) l
+    on conflict (user_id, log_date) do update set
+        calories = t.calories + excluded.calories,
+        proteing = t.proteing + excluded.proteing,
+        carbsg = t.carbsg + excluded.carbsg,
+        fatg = t.fatg + excluded.fatg,
+        sugarg = t.sugarg + excluded.sugarg,
+        water_ml = t.water_ml + excluded.water_ml,
+        food_entries = t.food_entries + excluded.food_entries,
+        water_entries = t.water_entries + excluded.water_entries,
+        updated_at = excluded.updated_at
+  """, nativeQuery = true)
+    void addTotals(@Param("userId") Long userId,
+                   @Param("logDate") LocalDate logDate,
+                   @Param("calories") double calories,
+                   @Param("proteinG") double proteinG,
+                   @Param("carbsG") double carbsG,
+                   @Param("fatG") double fatG,
+                   @Param("sugarG") double sugarG,
+                   @Param("waterMl") int waterMl,
+                   @Param("foodEntries") int foodEntries,
+                   @Param("waterEntries") int waterEntries);
+
+    @Query(value = "select 1 from (select pg_advisory_xact_lock(7301, 0)) l", nativeQuery = true)
+    int lockAllForRebuild();
+
+    @Query(value = """
+    select 1 from (select pg_advisory_xact_lock_shared(7301, 0),
+                          pg_advisory_xact_lock(7302, cast(cast(:userId as bigint) % 2147483647 as integer))) l
+  """, nativeQuery = true)
+    int lockUserForRebuild(@Param("userId") Long userId);
+
+    // userId null = todos los usuarios
+    @Modifying
+    @Query(value = """
+    delete from daily_nutrition_totals
+    where cast(:userId as bigint) is null or user_id = :userId
+  """, nativeQuery = true)
+    int deleteForUser(@Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = """
+    insert into daily_nutrition_totals
+        (user_id, log_date, calories, proteing, carbsg, fatg, sugarg, water_ml, food_entries, water_entries, updated_at)
+    select user_id, log_date,
+           sum(calories), sum(proteing), sum(carbsg), sum(fatg), sum(sugarg),
+           sum(water_ml), sum(food_entries), sum(water_entries), now()
+    from (
+        select f.user_id,
+               cast(f.eaten_at at time zone :zone as date) as log_date,
+               coalesce(f.calories, 0) as calories,
+               coalesce(f.proteing, 0) as proteing,
+               coalesce(f.carbsg, 0) as carbsg,
+               coalesce(f.fatg, 0) as fatg,
+               coalesce(f.sugarg, 0) as sugarg,
+               0 as water_ml, 1 as food_entries, 0 as water_entries
+        from food_logs_history f
+        where cast(:userId as bigint) is null or f.user_id = :userId
+        union all
+        select w.user_id,
+               cast(w.drank_at at time zone :zone as date),
+               0, 0, 0, 0, 0,
+               w.ml, 0, 1
+        from water_logs_history w
+        where cast(:userId as bigint) is null or w.user_id = :userId
+    ) raw
+    group by user_id, log_date
+    on conflict (user_id, log_date) do update set
+        calories = excluded.calories,
+        proteing = excluded.proteing,
+        carbsg = excluded.carbsg,
+        fatg = excluded.fatg,
+        sugarg = excluded.sugarg,
+        water_ml = excluded.water_ml,
+        food_entries = excluded.food_entries,
+        water_entries = excluded.water_entries,
+        updated_at = excluded.updated_at
+  """, nativeQuery = true)
+    int rebuildFromLogs(@Param("userId") Long userId, @Param("zone") String zone);
+}
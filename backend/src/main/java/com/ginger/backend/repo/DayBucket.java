@@ -0,0 +1,7 @@
+package com.ginger.backend.repo;
+
+// Fila agregada por día local: day = "2026-01-15"
+public interface DayBucket {
+    String getDay();
+    Number getTotal();
+}
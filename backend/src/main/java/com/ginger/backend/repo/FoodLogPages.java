@@ -0,0 +1,14 @@
+package com.ginger.backend.repo;
+
+import com.ginger.backend.api.dto.FoodLogDto;
+
+import java.time.Instant;
+import java.util.List;
+
+// Historial por keyset de /api/food-logs, leído directamente a FoodLogDto (ver FoodLogPagesImpl)
+public interface FoodLogPages {
+
+    List<FoodLogDto> findPage(Long userId, int limit);
+
+    List<FoodLogDto> findPageBefore(Long userId, Instant at, Long id, int limit);
+}
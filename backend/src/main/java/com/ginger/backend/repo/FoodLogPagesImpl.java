@@ -0,0 +1,68 @@
+package com.ginger.backend.repo;
+
+import com.ginger.backend.api.dto.FoodLogDto;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Keyset sobre (eaten_at, id) contra food_logs_history, así que las páginas siguen
+ * hasta las filas archivadas. Cada rama es un range scan del índice (user_id, eaten_at)
+ * de cada partición: igual de rápido en la página 1 que en la 1000.
+ *
+ * Va por JdbcTemplate y no por una @Query nativa: con SQL nativo Spring Data solo
+ * devuelve entidades o proyecciones por interfaz, y aquí cada fila pasa directamente
+ * a FoodLogDto sin entidad ni persistence context.
+ */
+class FoodLogPagesImpl implements FoodLogPages {
+
+    private static final String COLUMNS = """
+        select f.id, f.user_id, f.description, f.calories, f.proteing, f.carbsg, f.fatg, f.sugarg, f.eaten_at
+        from food_logs_history f
+        """;
+
+    private static final RowMapper<FoodLogDto> ROW = (rs, i) -> new FoodLogDto(
+            rs.getLong("id"),
+            rs.getLong("user_id"),
+            rs.getString("description"),
+            rs.getObject("calories", Double.class),
+            rs.getObject("proteing", Double.class),
+            rs.getObject("carbsg", Double.class),
+            rs.getObject("fatg", Double.class),
+            rs.getObject("sugarg", Double.class),
+            rs.getObject("eaten_at", OffsetDateTime.class).toInstant()
+    );
+
+    private final JdbcTemplate jdbc;
+
+    FoodLogPagesImpl(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<FoodLogDto> findPage(Long userId, int limit) {
+        return jdbc.query(COLUMNS + """
+                where f.user_id = ?
+                order by f.eaten_at desc, f.id desc
+                limit ?
+                """, ROW, userId, limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<FoodLogDto> findPageBefore(Long userId, Instant at, Long id, int limit) {
+        OffsetDateTime ts = at.atOffset(ZoneOffset.UTC);
+        return jdbc.query(COLUMNS + """
+                where f.user_id = ?
+                  and f.eaten_at <= ? and (f.eaten_at < ? or f.id < ?)
+                order by f.eaten_at desc, f.id desc
+                limit ?
+                """, ROW, userId, ts, ts, id, limit);
+    }
+}
@@ -1,46 +1,49 @@
 package com.ginger.backend.repo;
 
 import com.ginger.backend.domain.FoodLog;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
 
-public interface FoodLogRepo extends JpaRepository<FoodLog, Long> {
-
-    List<FoodLog> findByUserIdAndEatenAtBetween(Long userId, Instant from, Instant to);
-
-    Page<FoodLog> findByUserIdOrderByEatenAtDesc(Long userId, Pageable pageable);
-
-    @Query("""
-    select coalesce(sum(f.calories), 0)
-    from FoodLog f
-    where f.user.id = :userId and f.eatenAt between :from and :to
-  """)
-    Optional<Double> sumCaloriesBetween(@Param("userId") Long userId, @Param("from") Instant from, @Param("to") Instant to);
-
-    @Query("""
-  select sum(coalesce(f.proteinG, 0))
-  from FoodLog f
-  where f.user.id = :userId and f.eatenAt between :from and :to
-""")
-    Optional<Double> sumProteinBetween(@Param("userId") Long userId,
-                                       @Param("from") Instant from,
-                                       @Param("to") Instant to);
-
-    @Query("""
-  select sum(coalesce(f.sugarG, 0))
-  from FoodLog f
-  where f.user.id = :userId and f.eatenAt between :from and :to
-""")
-    Optional<Double> sumSugarBetween(@Param("userId") Long userId,
+public interface FoodLogRepo extends JpaRepository<FoodLog, Long>, FoodLogPages {
+
+    // Para el feed de sync: un cambio puede apuntar a una fila que ya se archivó
+    @Transactional(readOnly = true)
+    @Query(value = "select f.* from food_logs_history f where f.id in (:ids)", nativeQuery = true)
+    List<FoodLog> findAllInHistory(@Param("ids") Collection<Long> ids);
+
+    // Las filas archivadas son de solo lectura (ver PartitionMaintenanceService)
+    @Query(value = "select exists (select 1 from archive.food_logs where id = :id and user_id = :userId)", nativeQuery = true)
+    boolean existsArchived(@Param("userId") Long userId, @Param("id") Long id);
+
+    // Agregados para las gráficas: se agrupa en Postgres con la zona pedida.
+    // Van contra food_logs_history (caliente + archivo) para que los rangos largos vean todo.
+    @Query(value = """
+    select to_char(f.eaten_at at time zone :tz, 'YYYY-MM-DD') as day,
+           sum(coalesce(f.calories, 0)) as total
+    from food_logs_history f
+    where f.user_id = :userId and f.eaten_at >= :from and f.eaten_at <= :to
+    group by 1
+  """, nativeQuery = true)
+    List<DayBucket> sumCaloriesByDay(@Param("userId") Long userId,
                                      @Param("from") Instant from,
-                                     @Param("to") Instant to);
-
+                                     @Param("to") Instant to,
+                                     @Param("tz") String tz);
+
+    @Query(value = """
+    select cast(extract(hour from f.eaten_at at time zone :tz) as integer) as hour,
+           sum(coalesce(f.calories, 0)) as total
+    from food_logs_history f
+    where f.user_id = :userId and f.eaten_at >= :from and f.eaten_at <= :to
+    group by 1
+  """, nativeQuery = true)
+    List<HourBucket> sumCaloriesByHour(@Param("userId") Long userId,
+                                       @Param("from") Instant from,
+                                       @Param("to") Instant to,
+                                       @Param("tz") String tz);
 }
-
@@ -0,0 +1,7 @@
+package com.ginger.backend.repo;
+
+// Fila agregada por hora local del día (0-23)
+public interface HourBucket {
+    Integer getHour();
+    Double getTotal();
+}
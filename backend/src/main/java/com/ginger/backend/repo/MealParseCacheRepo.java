@@ -0,0 +1,44 @@
+package com.ginger.backend.repo;
+
+import com.ginger.backend.domain.MealParseCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+public interface MealParseCacheRepo extends JpaRepository<MealParseCacheEntry, String> {
+
+    // Dos instancias pueden guardar la misma clave a la vez: gana la última
+    @Transactional
+    @Modifying
+    @Query(value = """
+    insert into meal_parse_cache (cache_key, normalized_text, response_json, created_at)
+    values (:cacheKey, :normalizedText, :responseJson, :createdAt)
+    on conflict (cache_key) do update set
+        normalized_text = excluded.normalized_text,
+        response_json = excluded.response_json,
+        created_at = excluded.created_at
+  """, nativeQuery = true)
+    void upsert(@Param("cacheKey") String cacheKey,
+                @Param("normalizedText") String normalizedText,
+                @Param("responseJson") String responseJson,
+                @Param("createdAt") Instant createdAt);
+
+    @Transactional
+    @Modifying
+    @Query("delete from MealParseCacheEntry e where e.createdAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") Instant cutoff);
+
+    @Transactional
+    @Modifying
+    @Query("delete from MealParseCacheEntry e where e.cacheKey = :cacheKey")
+    int deleteByKey(@Param("cacheKey") String cacheKey);
+
+    @Transactional
+    @Modifying
+    @Query("delete from MealParseCacheEntry e")
+    int deleteAllEntries();
+}
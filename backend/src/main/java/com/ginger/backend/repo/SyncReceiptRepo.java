@@ -0,0 +1,23 @@
+package com.ginger.backend.repo;
+
+import com.ginger.backend.domain.SyncReceipt;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface SyncReceiptRepo extends JpaRepository<SyncReceipt, Long> {
+
+    List<SyncReceipt> findByUserIdAndClientEventIdIn(Long userId, Collection<UUID> clientEventIds);
+
+    @Transactional
+    @Modifying
+    @Query("delete from SyncReceipt r where r.appliedAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") Instant cutoff);
+}
@@ -1,6 +1,40 @@
 package com.ginger.backend.repo;
 
+import com.ginger.backend.api.dto.UserDto;
 import com.ginger.backend.domain.UserProfile;
+import com.ginger.backend.service.UserProfileSnapshot;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface UserProfileRepo extends JpaRepository<UserProfile, Long> {}
+import java.util.List;
+import java.util.Optional;
+
+public interface UserProfileRepo extends JpaRepository<UserProfile, Long> {
+
+    // Listado por keyset sobre la PK, proyectado al DTO
+    @Transactional(readOnly = true)
+    @Query("""
+    select new com.ginger.backend.api.dto.UserDto(
+        u.id, u.name, u.age, u.heightCm, u.weightKg, u.goalMode, u.calorieTargetKcal,
+        u.proteinTargetG, u.sugarLimitG, u.waterGoalMl, u.fastingDefaultHours)
+    from UserProfile u
+    where u.id > :afterId
+    order by u.id
+  """)
+    List<UserDto> findPageAfter(@Param("afterId") Long afterId, Limit limit);
+
+    // Carga de la caché de perfiles sin pasar por la entidad
+    @Transactional(readOnly = true)
+    @Query("""
+    select new com.ginger.backend.service.UserProfileSnapshot(
+        u.id, u.name, u.age, u.heightCm, u.weightKg, u.sex, u.activityLevel, u.goal, u.goalPace,
+        u.goalMode, u.calorieTargetKcal, u.proteinTargetG, u.sugarLimitG, u.waterGoalMl,
+        u.fastingDefaultHours, u.createdAt)
+    from UserProfile u
+    where u.id = :id
+  """)
+    Optional<UserProfileSnapshot> findSnapshot(@Param("id") Long id);
+}
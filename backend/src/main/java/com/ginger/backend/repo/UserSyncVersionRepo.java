@@ -0,0 +1,24 @@
+package com.ginger.backend.repo;
+
+import com.ginger.backend.domain.UserSyncVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface UserSyncVersionRepo extends JpaRepository<UserSyncVersion, Long> {
+
+    // Reserva :n versiones y devuelve la última. El lock de la fila serializa a los
+    // escritores del mismo usuario, así las versiones quedan en orden de commit.
+    @Query(value = """
+    insert into user_sync_versions as v (user_id, version)
+    values (:userId, :n)
+    on conflict (user_id) do update set version = v.version + excluded.version
+    returning version
+  """, nativeQuery = true)
+    long reserve(@Param("userId") Long userId, @Param("n") int n);
+
+    @Query("select v.version from UserSyncVersion v where v.userId = :userId")
+    Optional<Long> currentVersion(@Param("userId") Long userId);
+}
@@ -4,19 +4,32 @@ import com.ginger.backend.domain.WaterLog;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
 
 public interface WaterLogRepo extends JpaRepository<WaterLog, Long> {
-    List<WaterLog> findByUserIdAndDrankAtBetween(Long userId, Instant from, Instant to);
 
-    @Query("""
-    select coalesce(sum(w.ml), 0)
-    from WaterLog w
-    where w.user.id = :userId and w.drankAt between :from and :to
-  """)
-    Optional<Integer> sumWaterBetween(@Param("userId") Long userId, @Param("from") Instant from, @Param("to") Instant to);
-    
+    @Query(value = """
+    select to_char(w.drank_at at time zone :tz, 'YYYY-MM-DD') as day,
+           sum(w.ml) as total
+    from water_logs_history w
+    where w.user_id = :userId and w.drank_at >= :from and w.drank_at <= :to
+    group by 1
+  """, nativeQuery = true)
+    List<DayBucket> sumWaterByDay(@Param("userId") Long userId,
+                                  @Param("from") Instant from,
+                                  @Param("to") Instant to,
+                                  @Param("tz") String tz);
+
+    // Para el feed de sync: un cambio puede apuntar a una fila que ya se archivó
+    @Transactional(readOnly = true)
+    @Query(value = "select w.* from water_logs_history w where w.id in (:ids)", nativeQuery = true)
+    List<WaterLog> findAllInHistory(@Param("ids") Collection<Long> ids);
+
+    // Las filas archivadas son de solo lectura (ver PartitionMaintenanceService)
+    @Query(value = "select exists (select 1 from archive.water_logs where id = :id and user_id = :userId)", nativeQuery = true)
+    boolean existsArchived(@Param("userId") Long userId, @Param("id") Long id);
 }
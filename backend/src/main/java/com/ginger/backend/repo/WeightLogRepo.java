@@ -1,7 +1,12 @@
 package com.ginger.backend.repo;
 
+import com.ginger.backend.api.dto.WeightLogDto;
 import com.ginger.backend.domain.WeightLog;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.util.List;
@@ -9,10 +14,27 @@ import java.util.Optional;
 
 public interface WeightLogRepo extends JpaRepository<WeightLog, Long> {
 
-    List<WeightLog> findTop90ByUserIdOrderByCreatedAtAsc(Long userId);
-
     Optional<WeightLog> findTop1ByUserIdOrderByCreatedAtDesc(Long userId);
 
-    List<WeightLog> findByUserIdAndCreatedAtBetweenOrderByCreatedAtAsc(Long userId, Instant from, Instant to);
+    // Lecturas para gráficas: proyección directa al DTO en transacción de solo lectura
+    @Transactional(readOnly = true)
+    @Query("""
+    select new com.ginger.backend.api.dto.WeightLogDto(w.id, w.userId, w.weightKg, w.createdAt)
+    from WeightLog w
+    where w.userId = :userId
+    order by w.createdAt asc
+  """)
+    List<WeightLogDto> findSeries(@Param("userId") Long userId, Limit limit);
+
+    @Transactional(readOnly = true)
+    @Query("""
+    select new com.ginger.backend.api.dto.WeightLogDto(w.id, w.userId, w.weightKg, w.createdAt)
+    from WeightLog w
+    where w.userId = :userId and w.createdAt between :from and :to
+    order by w.createdAt asc
+  """)
+    List<WeightLogDto> findSeriesBetween(@Param("userId") Long userId,
+                                         @Param("from") Instant from,
+                                         @Param("to") Instant to);
 
 }
@@ -0,0 +1,86 @@
+package com.ginger.backend.service;
+
+import com.ginger.backend.domain.ChangeLogEntry;
+import com.ginger.backend.domain.ChangeLogEntry.EntityType;
+import com.ginger.backend.domain.ChangeLogEntry.Op;
+import com.ginger.backend.repo.ChangeLogRepo;
+import com.ginger.backend.repo.UserSyncVersionRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Escribe el change_log que alimenta GET /api/sync. Siempre dentro de la
+ * transacción del cambio: si la escritura hace rollback, el registro también.
+ * Publica además un UserDataChangedEvent para los listeners de después del commit.
+ */
+@Service
+public class ChangeLogService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeLogService.class);
+
+    private final ChangeLogRepo changeRepo;
+    private final UserSyncVersionRepo versionRepo;
+    private final ApplicationEventPublisher events;
+    private final Duration retention;
+
+    public ChangeLogService(ChangeLogRepo changeRepo,
+                            UserSyncVersionRepo versionRepo,
+                            ApplicationEventPublisher events,
+                            @Value("${app.sync.changes.retention:90d}") Duration retention) {
+        this.changeRepo = changeRepo;
+        this.versionRepo = versionRepo;
+        this.events = events;
+        this.retention = retention;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Long userId, EntityType type, Long entityId, Op op) {
+        record(userId, type, List.of(entityId), op);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Long userId, EntityType type, Collection<Long> entityIds, Op op) {
+        if (entityIds.isEmpty()) return;
+
+        long last = versionRepo.reserve(userId, entityIds.size());
+        long version = last - entityIds.size();
+        Instant now = Instant.now();
+
+        List<ChangeLogEntry> entries = new ArrayList<>(entityIds.size());
+        for (Long id : entityIds) {
+            entries.add(ChangeLogEntry.builder()
+                    .userId(userId)
+                    .version(++version)
+                    .entityType(type)
+                    .entityId(id)
+                    .op(op)
+                    .changedAt(now)
+                    .build());
+        }
+        changeRepo.saveAll(entries);
+        events.publishEvent(new UserDataChangedEvent(userId, type));
+    }
+
+    public long currentVersion(Long userId) {
+        return versionRepo.currentVersion(userId).orElse(0L);
+    }
+
+    // Un cliente con un cursor más viejo que esto tendrá que hacer una carga completa
+    @Scheduled(fixedDelayString = "${app.sync.changes.cleanup-interval:PT6H}", initialDelayString = "${app.sync.changes.cleanup-interval:PT6H}")
+    void deleteExpired() {
+        int removed = changeRepo.deleteOlderThan(Instant.now().minus(retention));
+        if (removed > 0) log.info("deleted {} expired change log rows", removed);
+    }
+}
@@ -0,0 +1,141 @@
+package com.ginger.backend.service;
+
+import com.ginger.backend.domain.DailyNutritionTotals;
+import com.ginger.backend.domain.DailyNutritionTotalsId;
+import com.ginger.backend.domain.FoodLog;
+import com.ginger.backend.domain.WaterLog;
+import com.ginger.backend.repo.DailyNutritionTotalsRepo;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@Service
+public class DailyTotalsService {
+
+    private final DailyNutritionTotalsRepo totalsRepo;
+
+    // Misma zona que usa el resumen de hoy
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    public DailyTotalsService(DailyNutritionTotalsRepo totalsRepo) {
+        this.totalsRepo = totalsRepo;
+    }
+
+    public ZoneId zone() {
+        return zone;
+    }
+
+    public LocalDate today() {
+        return LocalDate.now(zone);
+    }
+
+    public LocalDate dayOf(Instant at) {
+        return at.atZone(zone).toLocalDate();
+    }
+
+    public Optional<DailyNutritionTotals> find(Long userId, LocalDate day) {
+        return totalsRepo.findById(new DailyNutritionTotalsId(userId, day));
+    }
+
+    // Se llama desde las escrituras de logs: tiene que ir en su transacción
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void addFood(FoodLog f) {
+        addFoods(List.of(f));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void addWater(WaterLog w) {
+        addWaters(List.of(w));
+    }
+
+    // Batches: se agrupa en memoria y se hace un upsert por (usuario, día)
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void addFoods(Collection<FoodLog> logs) {
+        applyFoods(logs, 1);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void addWaters(Collection<WaterLog> logs) {
+        applyWaters(logs, 1);
+    }
+
+    // Borrados: mismo upsert con los valores en negativo
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void removeFood(FoodLog f) {
+        applyFoods(List.of(f), -1);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void removeWater(WaterLog w) {
+        applyWaters(List.of(w), -1);
+    }
+
+    private void applyFoods(Collection<FoodLog> logs, int sign) {
+        Map<DailyNutritionTotalsId, Delta> byDay = new LinkedHashMap<>();
+        for (FoodLog f : logs) {
+            Delta d = byDay.computeIfAbsent(new DailyNutritionTotalsId(f.getUser().getId(), dayOf(f.getEatenAt())), k -> new Delta());
+            d.calories += sign * safe(f.getCalories());
+            d.proteinG += sign * safe(f.getProteinG());
+            d.carbsG += sign * safe(f.getCarbsG());
+            d.fatG += sign * safe(f.getFatG());
+            d.sugarG += sign * safe(f.getSugarG());
+            d.foodEntries += sign;
+        }
+        apply(byDay);
+    }
+
+    private void applyWaters(Collection<WaterLog> logs, int sign) {
+        Map<DailyNutritionTotalsId, Delta> byDay = new LinkedHashMap<>();
+        for (WaterLog w : logs) {
+            Delta d = byDay.computeIfAbsent(new DailyNutritionTotalsId(w.getUser().getId(), dayOf(w.getDrankAt())), k -> new Delta());
+            d.waterMl += sign * (w.getMl() == null ? 0 : w.getMl());
+            d.waterEntries += sign;
+        }
+        apply(byDay);
+    }
+
+    private void apply(Map<DailyNutritionTotalsId, Delta> byDay) {
+        byDay.forEach((key, d) -> totalsRepo.addTotals(
+                key.getUserId(),
+                key.getLogDate(),
+                d.calories,
+                d.proteinG,
+                d.carbsG,
+                d.fatG,
+                d.sugarG,
+                d.waterMl,
+                d.foodEntries,
+                d.waterEntries
+        ));
+    }
+
+    /**
+     * Recalcula los totales desde food_logs/water_logs. userId null = todos.
+     * Devuelve cuántas filas (usuario, día) quedaron. Bloquea las escrituras de
+     * ese usuario (o de todos) hasta el commit; las que ya estaban en curso
+     * terminan antes o suman su delta después.
+     */
+    @Transactional
+    public int rebuild(Long userId) {
+        if (userId == null) totalsRepo.lockAllForRebuild();
+        else totalsRepo.lockUserForRebuild(userId);
+        totalsRepo.deleteForUser(userId);
+        return totalsRepo.rebuildFromLogs(userId, zone.getId());
+    }
+
+    private static double safe(Double v) { return v == null ? 0.0 : v; }
+
+    private static final class Delta {
+        double calories, proteinG, carbsG, fatG, sugarG;
+        int waterMl, foodEntries, waterEntries;
+    }
+}
@@ -0,0 +1,52 @@
+package com.ginger.backend.service;
+
+import com.ginger.backend.domain.ChangeLogEntry.EntityType;
+import com.ginger.backend.domain.ChangeLogEntry.Op;
+import com.ginger.backend.domain.FastingSession;
+import com.ginger.backend.repo.FastingSessionRepo;
+import com.ginger.backend.repo.UserProfileRepo;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+@Service
+public class FastingService {
+
+    private final FastingSessionRepo fastingRepo;
+    private final UserProfileRepo userRepo;
+    private final ChangeLogService changeLog;
+
+    public FastingService(FastingSessionRepo fastingRepo, UserProfileRepo userRepo, ChangeLogService changeLog) {
+        this.fastingRepo = fastingRepo;
+        this.userRepo = userRepo;
+        this.changeLog = changeLog;
+    }
+
+    @Transactional
+    public FastingSession start(Long userId, String protocol) {
+        fastingRepo.findFirstByUserIdAndEndedAtIsNullOrderByStartedAtDesc(userId)
+                .ifPresent(active -> { throw new IllegalStateException("User already has an active fasting session"); });
+
+        var session = FastingSession.builder()
+                .user(userRepo.getReferenceById(userId))
+                .startedAt(Instant.now())
+                .protocol(protocol == null || protocol.isBlank() ? "custom" : protocol)
+                .build();
+
+        FastingSession saved = fastingRepo.save(session);
+        changeLog.record(userId, EntityType.FASTING_SESSION, saved.getId(), Op.UPSERT);
+        return saved;
+    }
+
+    @Transactional
+    public FastingSession stop(Long userId) {
+        var active = fastingRepo.findFirstByUserIdAndEndedAtIsNullOrderByStartedAtDesc(userId)
+                .orElseThrow(() -> new IllegalStateException("No active fasting session"));
+
+        active.setEndedAt(Instant.now());
+        FastingSession saved = fastingRepo.save(active);
+        changeLog.record(userId, EntityType.FASTING_SESSION, saved.getId(), Op.UPSERT);
+        return saved;
+    }
+}
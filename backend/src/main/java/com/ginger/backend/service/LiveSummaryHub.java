@@ -0,0 +1,284 @@
+package com.ginger.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ginger.backend.api.dto.TodaySummaryDto;
+import com.ginger.backend.domain.ChangeLogEntry.EntityType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Push del resumen de hoy por SSE. Tras el commit de una escritura de comida,
+ * agua, ayuno u objetivos se recalcula el resumen una vez por usuario (los cambios
+ * seguidos se agrupan) y se encola en cada conexión abierta de ese usuario.
+ *
+ * Las conexiones inactivas no ocupan hilos (async de Servlet). Cada una tiene un
+ * buffer acotado y se vacía desde un pool pequeño; si el buffer se llena, el
+ * cliente va lento y se le desconecta en vez de frenar a los escritores. El
+ * heartbeat mantiene vivos los proxies y detecta sockets muertos.
+ *
+ * send() del emitter es bloqueante: si el socket de un cliente no acepta datos,
+ * el hilo se queda dentro hasta el timeout de escritura de Tomcat. Un watchdog
+ * da por perdida cualquier escritura que pase de write-timeout: desconecta al
+ * cliente y añade un hilo al pool mientras el atascado siga dentro, así que el
+ * resto de conexiones no espera por él.
+ *
+ * El fan-out es por nodo: el listener AFTER_COMMIT solo ve los commits de esta
+ * instancia. Con varias réplicas, una conexión abierta en otro nodo no recibe el
+ * push de esa escritura; lo verá en el siguiente cambio hecho en su nodo o al
+ * reconectar (que siempre empieza por el resumen actual).
+ */
+@Component
+public class LiveSummaryHub {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveSummaryHub.class);
+
+    private static final Set<EntityType> DASHBOARD_TYPES =
+            EnumSet.of(EntityType.FOOD_LOG, EntityType.WATER_LOG, EntityType.FASTING_SESSION, EntityType.USER_PROFILE);
+
+    private static final Set<DataWithMediaType> HEARTBEAT = SseEmitter.event().comment("ping").build();
+
+    private final SummaryService summaryService;
+    private final ObjectMapper mapper;
+    private final Duration timeout;
+    private final int bufferSize;
+    private final int maxPerUser;
+    private final int threads;
+    private final long writeTimeoutNanos;
+
+    private final Map<Long, Set<Subscriber>> byUser = new ConcurrentHashMap<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final ThreadPoolExecutor pool;
+    private final ExecutorService timed;
+    private final Counter pushed;
+    private final Counter dropped;
+    private final Counter writeTimeouts;
+    private int stuckWriters;
+
+    public LiveSummaryHub(SummaryService summaryService,
+                          ObjectMapper mapper,
+                          MeterRegistry registry,
+                          @Value("${app.live.timeout:30m}") Duration timeout,
+                          @Value("${app.live.buffer-size:16}") int bufferSize,
+                          @Value("${app.live.max-per-user:10}") int maxPerUser,
+                          @Value("${app.live.threads:4}") int threads,
+                          @Value("${app.live.write-timeout:5s}") Duration writeTimeout) {
+        this.summaryService = summaryService;
+        this.mapper = mapper;
+        this.timeout = timeout;
+        this.bufferSize = bufferSize;
+        this.maxPerUser = maxPerUser;
+        this.threads = threads;
+        this.writeTimeoutNanos = writeTimeout.toNanos();
+
+        AtomicInteger n = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(
+                threads, threads,
+                60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), // como mucho una tarea por conexión y por usuario pendiente
+                r -> {
+                    Thread t = new Thread(r, "live-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }
+        );
+        pool.allowCoreThreadTimeOut(true);
+        this.timed = ExecutorServiceMetrics.monitor(registry, pool, "liveExecutor");
+
+        Gauge.builder("live.subscribers", subscribers, AtomicInteger::get).register(registry);
+        this.pushed = Counter.builder("live.events").tag("result", "queued").register(registry);
+        this.dropped = Counter.builder("live.events").tag("result", "dropped").register(registry);
+        this.writeTimeouts = Counter.builder("live.events").tag("result", "write_timeout").register(registry);
+    }
+
+    public SseEmitter subscribe(Long userId) {
+        TodaySummaryDto initial = summaryService.today(userId); // valida el usuario
+
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscriber s = new Subscriber(userId, emitter, new ArrayBlockingQueue<>(bufferSize));
+
+        byUser.compute(userId, (k, set) -> {
+            if (set == null) set = ConcurrentHashMap.newKeySet();
+            if (set.size() >= maxPerUser) throw new IllegalStateException("Too many live connections for this user");
+            set.add(s);
+            return set;
+        });
+        subscribers.incrementAndGet();
+
+        emitter.onCompletion(() -> remove(s));
+        emitter.onTimeout(() -> remove(s));
+        emitter.onError(e -> remove(s));
+
+        enqueue(s, summaryEvent(initial));
+        return emitter;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onChange(UserDataChangedEvent e) {
+        if (!DASHBOARD_TYPES.contains(e.type()) || !byUser.containsKey(e.userId())) return;
+        // Varias escrituras seguidas del mismo usuario: un solo recálculo
+        if (dirty.add(e.userId())) timed.execute(() -> push(e.userId()));
+    }
+
+    private void push(Long userId) {
+        dirty.remove(userId);
+        Set<Subscriber> subs = byUser.get(userId);
+        if (subs == null || subs.isEmpty()) return;
+
+        Set<DataWithMediaType> event;
+        try {
+            event = summaryEvent(summaryService.today(userId));
+        } catch (RuntimeException ex) {
+            log.warn("live summary for user {} failed", userId, ex);
+            return;
+        }
+        for (Subscriber s : subs) enqueue(s, event);
+    }
+
+    @Scheduled(fixedDelayString = "${app.live.heartbeat:PT15S}", initialDelayString = "${app.live.heartbeat:PT15S}")
+    void heartbeat() {
+        byUser.values().forEach(subs -> subs.forEach(s -> enqueue(s, HEARTBEAT)));
+    }
+
+    private void enqueue(Subscriber s, Set<DataWithMediaType> event) {
+        if (s.removed.get()) return;
+        if (!s.queue.offer(event)) {
+            // Cliente lento: fuera, que reconecte y reciba el estado actual
+            dropped.increment();
+            close(s);
+            return;
+        }
+        if (event != HEARTBEAT) pushed.increment();
+        scheduleDrain(s);
+    }
+
+    private void scheduleDrain(Subscriber s) {
+        if (s.draining.compareAndSet(false, true)) timed.execute(() -> drain(s));
+    }
+
+    // Solo el hilo que drena escribe o cierra el emitter: complete() espera al send() en curso
+    private void drain(Subscriber s) {
+        do {
+            Set<DataWithMediaType> next;
+            while ((next = s.queue.poll()) != null && !s.removed.get()) {
+                s.writeStarted = System.nanoTime();
+                s.writing.set(WRITING);
+                try {
+                    s.emitter.send(next);
+                } catch (IOException | IllegalStateException e) {
+                    // Conexión cerrada por el cliente
+                    remove(s);
+                } finally {
+                    if (!s.writing.compareAndSet(WRITING, IDLE)) releaseStuckWriter();
+                }
+            }
+            if (s.removed.get()) {
+                s.queue.clear();
+                s.emitter.complete();
+                return;
+            }
+            // Si otro hilo hizo close() mientras se drenaba, hay que volver a entrar para completar
+            s.draining.set(false);
+        } while ((!s.queue.isEmpty() || s.removed.get()) && s.draining.compareAndSet(false, true));
+    }
+
+    @Scheduled(fixedDelayString = "${app.live.watchdog:PT1S}", initialDelayString = "${app.live.watchdog:PT1S}")
+    void watchdog() {
+        long now = System.nanoTime();
+        byUser.values().forEach(subs -> subs.forEach(s -> {
+            if (s.writing.get() == WRITING && now - s.writeStarted > writeTimeoutNanos
+                    && s.writing.compareAndSet(WRITING, TIMED_OUT)) {
+                // El hilo sigue bloqueado en el socket: se le sustituye hasta que vuelva
+                writeTimeouts.increment();
+                addStuckWriter();
+                remove(s);
+                s.queue.clear();
+                log.debug("live write to user {} timed out, dropping connection", s.userId);
+            }
+        }));
+    }
+
+    private synchronized void addStuckWriter() {
+        stuckWriters++;
+        pool.setMaximumPoolSize(threads + stuckWriters);
+        pool.setCorePoolSize(threads + stuckWriters);
+    }
+
+    private synchronized void releaseStuckWriter() {
+        stuckWriters--;
+        pool.setCorePoolSize(threads + stuckWriters);
+        pool.setMaximumPoolSize(threads + stuckWriters);
+    }
+
+    private void close(Subscriber s) {
+        remove(s);
+        s.queue.clear();
+        scheduleDrain(s);
+    }
+
+    private void remove(Subscriber s) {
+        if (!s.removed.compareAndSet(false, true)) return;
+        byUser.computeIfPresent(s.userId, (k, set) -> {
+            set.remove(s);
+            return set.isEmpty() ? null : set;
+        });
+        subscribers.decrementAndGet();
+    }
+
+    // Se serializa una vez y se comparte entre todas las conexiones del usuario
+    private Set<DataWithMediaType> summaryEvent(TodaySummaryDto summary) {
+        try {
+            return SseEmitter.event().name("summary").data(mapper.writeValueAsString(summary)).build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        byUser.values().forEach(subs -> subs.forEach(s -> s.emitter.complete()));
+        pool.shutdown();
+    }
+
+    private static final int IDLE = 0;
+    private static final int WRITING = 1;
+    private static final int TIMED_OUT = 2;
+
+    private static final class Subscriber {
+        final Long userId;
+        final SseEmitter emitter;
+        final BlockingQueue<Set<DataWithMediaType>> queue;
+        final AtomicBoolean draining = new AtomicBoolean();
+        final AtomicBoolean removed = new AtomicBoolean();
+        final AtomicInteger writing = new AtomicInteger(IDLE);
+        volatile long writeStarted;
+
+        Subscriber(Long userId, SseEmitter emitter, BlockingQueue<Set<DataWithMediaType>> queue) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.queue = queue;
+        }
+    }
+}
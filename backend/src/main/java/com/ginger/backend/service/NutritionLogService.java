@@ -0,0 +1,128 @@
+package com.ginger.backend.service;
+
+import com.ginger.backend.domain.ChangeLogEntry.EntityType;
+import com.ginger.backend.domain.ChangeLogEntry.Op;
+import com.ginger.backend.domain.FoodLog;
+import com.ginger.backend.domain.WaterLog;
+import com.ginger.backend.repo.FoodLogRepo;
+import com.ginger.backend.repo.WaterLogRepo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Único punto de escritura de comida y agua: guarda el log y actualiza
+ * daily_nutrition_totals y el change_log en la misma transacción.
+ */
+@Service
+public class NutritionLogService {
+
+    private final FoodLogRepo foodRepo;
+    private final WaterLogRepo waterRepo;
+    private final DailyTotalsService totalsService;
+    private final ChangeLogService changeLog;
+
+    // nutrition.logs{type, source}: tags cerrados, nunca el usuario
+    private final Map<Source, Counter> foodCounters = new EnumMap<>(Source.class);
+    private final Map<Source, Counter> waterCounters = new EnumMap<>(Source.class);
+
+    /** De dónde viene el registro: manual (app), ai (parseo de Gemini) o sync (cola offline). */
+    public enum Source { MANUAL, AI, SYNC }
+
+    public NutritionLogService(FoodLogRepo foodRepo, WaterLogRepo waterRepo, DailyTotalsService totalsService,
+                               ChangeLogService changeLog, MeterRegistry registry) {
+        this.foodRepo = foodRepo;
+        this.waterRepo = waterRepo;
+        this.totalsService = totalsService;
+        this.changeLog = changeLog;
+        for (Source source : Source.values()) {
+            foodCounters.put(source, counter(registry, "food", source));
+            waterCounters.put(source, counter(registry, "water", source));
+        }
+    }
+
+    private static Counter counter(MeterRegistry registry, String type, Source source) {
+        return Counter.builder("nutrition.logs")
+                .tag("type", type)
+                .tag("source", source.name().toLowerCase())
+                .register(registry);
+    }
+
+    @Transactional
+    public FoodLog logFood(FoodLog log, Source source) {
+        FoodLog saved = foodRepo.save(log);
+        totalsService.addFood(saved);
+        changeLog.record(saved.getUser().getId(), EntityType.FOOD_LOG, saved.getId(), Op.UPSERT);
+        foodCounters.get(source).increment();
+        return saved;
+    }
+
+    @Transactional
+    public WaterLog logWater(WaterLog log, Source source) {
+        WaterLog saved = waterRepo.save(log);
+        totalsService.addWater(saved);
+        changeLog.record(saved.getUser().getId(), EntityType.WATER_LOG, saved.getId(), Op.UPSERT);
+        waterCounters.get(source).increment();
+        return saved;
+    }
+
+    // Batches: con ids de secuencia (pooled) Hibernate agrupa los INSERT en batches JDBC
+    @Transactional
+    public List<FoodLog> logFoods(List<FoodLog> logs, Source source) {
+        List<FoodLog> saved = foodRepo.saveAll(logs);
+        totalsService.addFoods(saved);
+        foodCounters.get(source).increment(saved.size());
+        saved.stream()
+                .collect(Collectors.groupingBy(f -> f.getUser().getId(),
+                        Collectors.mapping(FoodLog::getId, Collectors.toList())))
+                .forEach((userId, ids) -> changeLog.record(userId, EntityType.FOOD_LOG, ids, Op.UPSERT));
+        return saved;
+    }
+
+    @Transactional
+    public List<WaterLog> logWaters(List<WaterLog> logs, Source source) {
+        List<WaterLog> saved = waterRepo.saveAll(logs);
+        totalsService.addWaters(saved);
+        waterCounters.get(source).increment(saved.size());
+        saved.stream()
+                .collect(Collectors.groupingBy(w -> w.getUser().getId(),
+                        Collectors.mapping(WaterLog::getId, Collectors.toList())))
+                .forEach((userId, ids) -> changeLog.record(userId, EntityType.WATER_LOG, ids, Op.UPSERT));
+        return saved;
+    }
+
+    @Transactional
+    public void deleteFood(Long userId, Long id) {
+        FoodLog f = foodRepo.findById(id)
+                .filter(x -> x.getUser().getId().equals(userId))
+                .orElseThrow(() -> missing(foodRepo.existsArchived(userId, id), "Food log"));
+        totalsService.removeFood(f);
+        foodRepo.delete(f);
+        changeLog.record(userId, EntityType.FOOD_LOG, id, Op.DELETE);
+    }
+
+    @Transactional
+    public void deleteWater(Long userId, Long id) {
+        WaterLog w = waterRepo.findById(id)
+                .filter(x -> x.getUser().getId().equals(userId))
+                .orElseThrow(() -> missing(waterRepo.existsArchived(userId, id), "Water log"));
+        totalsService.removeWater(w);
+        waterRepo.delete(w);
+        changeLog.record(userId, EntityType.WATER_LOG, id, Op.DELETE);
+    }
+
+    // Lo archivado (más de app.partitions.hot-months) se ve en el historial pero ya no se toca
+    private static ResponseStatusException missing(boolean archived, String what) {
+        return archived
+                ? new ResponseStatusException(HttpStatus.GONE, what + " is archived and can no longer be deleted")
+                : new ResponseStatusException(HttpStatus.NOT_FOUND, what + " not found");
+    }
+}
@@ -0,0 +1,138 @@
+package com.ginger.backend.service;
+
+import com.ginger.backend.api.dto.PartitionMaintenanceDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Mantenimiento de las particiones mensuales de food_logs / water_logs (V4):
+ * crea las de los próximos meses y archiva las que superan app.partitions.hot-months.
+ *
+ * Archivar = DETACH de la tabla caliente, mover al esquema archive, CLUSTER por
+ * (user_id, fecha) con fillfactor 100 (compacta y ordenada para lecturas de rango),
+ * ATTACH al padre archive.<tabla> y VACUUM FREEZE para que autovacuum no vuelva a
+ * tocarla. Siguen visibles en las vistas *_history, que usan las stats, el historial
+ * paginado y el feed de sync. Son de solo lectura: borrar una fila archivada es un 410.
+ *
+ * Corre en una sola conexión con advisory lock: con varias instancias solo trabaja una.
+ */
+@Service
+public class PartitionMaintenanceService {
+
+    private static final Logger log = LoggerFactory.getLogger(PartitionMaintenanceService.class);
+
+    private static final long LOCK_KEY = 7_341_001L;
+    private static final List<String> TABLES = List.of("food_logs", "water_logs");
+    private static final Pattern MONTHLY = Pattern.compile("^(food_logs|water_logs)_(\\d{4})_(\\d{2})$");
+
+    private final JdbcTemplate jdbc;
+    private final int monthsAhead;
+    private final int hotMonths;
+
+    public PartitionMaintenanceService(JdbcTemplate jdbc,
+                                       @Value("${app.partitions.months-ahead:3}") int monthsAhead,
+                                       @Value("${app.partitions.hot-months:24}") int hotMonths) {
+        this.jdbc = jdbc;
+        this.monthsAhead = monthsAhead;
+        this.hotMonths = hotMonths;
+    }
+
+    @Scheduled(cron = "${app.partitions.cron:0 30 3 * * *}")
+    void scheduled() {
+        PartitionMaintenanceDto result = maintain();
+        if (result.created() > 0 || !result.archived().isEmpty()) {
+            log.info("partition maintenance: {} created, archived {}", result.created(), result.archived());
+        }
+    }
+
+    public PartitionMaintenanceDto maintain() {
+        return jdbc.execute((ConnectionCallback<PartitionMaintenanceDto>) con -> {
+            // Todo en la misma conexión (autocommit): el lock es de sesión y VACUUM no admite transacción
+            JdbcTemplate db = new JdbcTemplate(new SingleConnectionDataSource(con, true));
+
+            Boolean locked = db.queryForObject("select pg_try_advisory_lock(?)", Boolean.class, LOCK_KEY);
+            if (!Boolean.TRUE.equals(locked)) {
+                log.info("partition maintenance already running on another instance");
+                return new PartitionMaintenanceDto(0, List.of());
+            }
+            try {
+                int created = 0;
+                List<String> archived = new ArrayList<>();
+                YearMonth current = YearMonth.now(ZoneOffset.UTC);
+                for (String table : TABLES) {
+                    created += createAhead(db, table, current);
+                    archived.addAll(archiveBefore(db, table, current.minusMonths(hotMonths)));
+                }
+                return new PartitionMaintenanceDto(created, archived);
+            } finally {
+                db.queryForObject("select pg_advisory_unlock(?)", Boolean.class, LOCK_KEY);
+            }
+        });
+    }
+
+    private int createAhead(JdbcTemplate db, String table, YearMonth current) {
+        Integer n = db.queryForObject("select create_monthly_partitions(?, ?, ?)", Integer.class,
+                table, current.atDay(1), current.plusMonths(monthsAhead).atDay(1));
+        return n == null ? 0 : n;
+    }
+
+    private List<String> archiveBefore(JdbcTemplate db, String table, YearMonth cutoff) {
+        List<String> children = db.queryForList("""
+                select c.relname
+                from pg_inherits i
+                join pg_class c on c.oid = i.inhrelid
+                where i.inhparent = to_regclass(?)
+                order by c.relname
+                """, String.class, "public." + table);
+
+        List<String> archived = new ArrayList<>();
+        for (String part : children) {
+            Matcher m = MONTHLY.matcher(part);
+            if (!m.matches() || !m.group(1).equals(table)) continue; // la partición default se queda
+            YearMonth month = YearMonth.of(Integer.parseInt(m.group(2)), Integer.parseInt(m.group(3)));
+            if (!month.isBefore(cutoff)) continue;
+
+            archive(db, table, part, month);
+            archived.add(part);
+        }
+        return archived;
+    }
+
+    // Los nombres salen de pg_inherits y del patrón de arriba, no de la entrada del usuario
+    private void archive(JdbcTemplate db, String table, String part, YearMonth month) {
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+
+        db.execute("alter table public." + table + " detach partition public." + part);
+        db.execute("alter table public." + part + " set schema archive");
+        db.execute("alter table archive." + part + " set (fillfactor = 100)");
+
+        String index = db.queryForObject("""
+                select i.relname
+                from pg_index x
+                join pg_class i on i.oid = x.indexrelid
+                where x.indrelid = to_regclass(?) and not x.indisprimary
+                order by i.relname
+                limit 1
+                """, String.class, "archive." + part);
+        db.execute("cluster archive." + part + " using " + index);
+
+        db.execute("alter table archive." + table + " attach partition archive." + part
+                + " for values from ('" + from + " 00:00:00+00') to ('" + to + " 00:00:00+00')");
+        db.execute("vacuum (freeze, analyze) archive." + part);
+    }
+}
@@ -0,0 +1,102 @@
+package com.ginger.backend.service;
+
+import com.ginger.backend.api.profile.OnboardingRequest;
+import com.ginger.backend.domain.ChangeLogEntry.EntityType;
+import com.ginger.backend.domain.ChangeLogEntry.Op;
+import com.ginger.backend.domain.UserProfile;
+import com.ginger.backend.domain.WeightLog;
+import com.ginger.backend.repo.UserProfileRepo;
+import com.ginger.backend.repo.WeightLogRepo;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.function.Consumer;
+
+/**
+ * Escrituras de perfil y peso, cada una en su transacción junto con el change_log.
+ * La caché de perfiles se invalida al confirmar, antes que los listeners del
+ * UserDataChangedEvent (el push en vivo lee el perfil de la caché).
+ */
+@Service
+public class ProfileService {
+
+    private final UserProfileRepo userRepo;
+    private final WeightLogRepo weightRepo;
+    private final ProfileCalculatorService calculator;
+    private final ChangeLogService changeLog;
+    private final UserProfileCache users;
+
+    public ProfileService(UserProfileRepo userRepo, WeightLogRepo weightRepo,
+                          ProfileCalculatorService calculator, ChangeLogService changeLog,
+                          UserProfileCache users) {
+        this.userRepo = userRepo;
+        this.weightRepo = weightRepo;
+        this.calculator = calculator;
+        this.changeLog = changeLog;
+        this.users = users;
+    }
+
+    @Transactional
+    public UserProfile create(UserProfile u) {
+        UserProfile saved = userRepo.save(u);
+        changeLog.record(saved.getId(), EntityType.USER_PROFILE, saved.getId(), Op.UPSERT);
+        return saved;
+    }
+
+    @Transactional
+    public UserProfile update(Long userId, Consumer<UserProfile> changes) {
+        UserProfile u = load(userId);
+        changes.accept(u);
+        return saveProfile(u);
+    }
+
+    @Transactional
+    public UserProfile saveOnboarding(Long userId, OnboardingRequest r) {
+        UserProfile u = load(userId);
+
+        // Guardar inputs
+        u.setAge(r.age);
+        u.setHeightCm(r.heightCm);
+        if (r.weightKg != null && !r.weightKg.equals(u.getWeightKg())) {
+            u.setWeightKg(r.weightKg);
+            saveWeight(userId, r.weightKg);
+        }
+        u.setSex(r.sex);
+        u.setActivityLevel(r.activityLevel);
+        u.setGoal(r.goal);
+        u.setGoalPace(r.goalPace);
+
+        calculator.recalcAndApply(u);
+        return saveProfile(u);
+    }
+
+    // Histórico + peso actual del perfil
+    @Transactional
+    public WeightLog logWeight(Long userId, Double weightKg) {
+        UserProfile u = load(userId);
+        WeightLog saved = saveWeight(userId, weightKg);
+        u.setWeightKg(weightKg);
+        saveProfile(u);
+        return saved;
+    }
+
+    private UserProfile load(Long userId) {
+        return userRepo.findById(userId).orElseThrow(() -> new IllegalArgumentException("User not found"));
+    }
+
+    private UserProfile saveProfile(UserProfile u) {
+        UserProfile saved = userRepo.save(u);
+        users.evictAfterCommit(saved.getId());
+        changeLog.record(saved.getId(), EntityType.USER_PROFILE, saved.getId(), Op.UPSERT);
+        return saved;
+    }
+
+    private WeightLog saveWeight(Long userId, Double weightKg) {
+        WeightLog saved = weightRepo.save(WeightLog.builder()
+                .userId(userId)
+                .weightKg(weightKg)
+                .build());
+        changeLog.record(userId, EntityType.WEIGHT_LOG, saved.getId(), Op.UPSERT);
+        return saved;
+    }
+}
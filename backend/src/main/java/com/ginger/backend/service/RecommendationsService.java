@@ -1,11 +1,9 @@
 package com.ginger.backend.service;
 
 import com.ginger.backend.api.dto.TodayRecommendationsDto;
+import com.ginger.backend.domain.DailyNutritionTotals;
 import com.ginger.backend.domain.FastingSession;
 import com.ginger.backend.repo.FastingSessionRepo;
-import com.ginger.backend.repo.FoodLogRepo;
-import com.ginger.backend.repo.UserProfileRepo;
-import com.ginger.backend.repo.WaterLogRepo;
 import org.springframework.stereotype.Service;
 
 import java.time.*;
@@ -15,30 +13,27 @@ import java.util.List;
 @Service
 public class RecommendationsService {
 
-    private final UserProfileRepo userRepo;
-    private final FoodLogRepo foodRepo;
-    private final WaterLogRepo waterRepo;
+    private final UserProfileCache users;
     private final FastingSessionRepo fastingRepo;
+    private final DailyTotalsService totalsService;
 
-    public RecommendationsService(UserProfileRepo userRepo, FoodLogRepo foodRepo, WaterLogRepo waterRepo, FastingSessionRepo fastingRepo) {
-        this.userRepo = userRepo;
-        this.foodRepo = foodRepo;
-        this.waterRepo = waterRepo;
+    public RecommendationsService(UserProfileCache users, FastingSessionRepo fastingRepo, DailyTotalsService totalsService) {
+        this.users = users;
         this.fastingRepo = fastingRepo;
+        this.totalsService = totalsService;
     }
 
     public TodayRecommendationsDto today(Long userId) {
-        var user = userRepo.findById(userId).orElseThrow(() -> new IllegalArgumentException("User not found"));
+        var user = users.require(userId);
 
-        ZoneId zone = ZoneId.systemDefault();
-        LocalDate date = LocalDate.now(zone);
-        Instant from = date.atStartOfDay(zone).toInstant();
+        LocalDate date = totalsService.today();
         Instant now = Instant.now();
 
-        double caloriesToday = foodRepo.sumCaloriesBetween(userId, from, now).orElse(0.0);
-        int waterMlToday = waterRepo.sumWaterBetween(userId, from, now).orElse(0);
+        var totals = totalsService.find(userId, date);
+        double caloriesToday = totals.map(DailyNutritionTotals::getCalories).orElse(0.0);
+        int waterMlToday = totals.map(DailyNutritionTotals::getWaterMl).orElse(0);
 
-        Integer goal = user.getWaterGoalMl();
+        Integer goal = user.waterGoalMl();
         if (goal == null) goal = 2000;
 
         var msgs = new ArrayList<String>();
@@ -0,0 +1,85 @@
+package com.ginger.backend.service;
+
+import com.ginger.backend.api.dto.DailyProgressDto;
+import com.ginger.backend.api.dto.DailyTargetsDto;
+import com.ginger.backend.api.dto.TodaySummaryDto;
+import com.ginger.backend.domain.DailyNutritionTotals;
+import com.ginger.backend.domain.FastingSession;
+import com.ginger.backend.repo.FastingSessionRepo;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+
+// Resumen de hoy: lo usan GET /summary/today y el push en vivo del dashboard
+@Service
+public class SummaryService {
+
+    private final UserProfileCache users;
+    private final DailyTotalsService totalsService;
+    private final FastingSessionRepo fastingRepo;
+
+    public SummaryService(UserProfileCache users, DailyTotalsService totalsService, FastingSessionRepo fastingRepo) {
+        this.users = users;
+        this.totalsService = totalsService;
+        this.fastingRepo = fastingRepo;
+    }
+
+    public TodaySummaryDto today(Long userId) {
+
+        var user = users.require(userId);
+
+        // Una lectura por PK de la tabla de totales en vez de sumar los logs del día
+        LocalDate today = totalsService.today();
+        var totals = totalsService.find(userId, today);
+
+        double caloriesToday = totals.map(DailyNutritionTotals::getCalories).orElse(0.0);
+        double proteinToday = totals.map(DailyNutritionTotals::getProteinG).orElse(0.0);
+        double sugarToday = totals.map(DailyNutritionTotals::getSugarG).orElse(0.0);
+        int waterMlToday = totals.map(DailyNutritionTotals::getWaterMl).orElse(0);
+        double carbsGToday = Math.max(0.0,( caloriesToday - (proteinToday * 4.0)) / 4.0);
+
+        Integer waterGoal = user.waterGoalMl();
+        if (waterGoal == null) waterGoal = 2000;
+
+        Integer calorieTarget = user.calorieTargetKcal();
+        if (calorieTarget == null) calorieTarget = 2000;
+
+        Integer proteinTarget = user.proteinTargetG();
+        if (proteinTarget == null) proteinTarget = 120;
+
+        Integer sugarLimit = user.sugarLimitG();
+        if (sugarLimit == null) sugarLimit = 0;
+
+        double carbsTargetG = Math.max(0.0, (calorieTarget - (proteinTarget * 4.0)) / 4.0);
+
+
+        DailyTargetsDto targets = new DailyTargetsDto(
+                calorieTarget,
+                proteinTarget,
+                sugarLimit,
+                waterGoal,
+                carbsTargetG
+        );
+
+
+        DailyProgressDto consumed = new DailyProgressDto(
+                caloriesToday,
+                proteinToday,
+                sugarToday,
+                waterMlToday,
+                carbsGToday
+        );
+
+        var activeFasting = fastingRepo.findFirstByUserIdAndEndedAtIsNullOrderByStartedAtDesc(userId);
+
+        return new TodaySummaryDto(
+                userId,
+                today.toString(),
+                targets,
+                consumed,
+                activeFasting.isPresent(),
+                activeFasting.map(FastingSession::getProtocol).orElse(null),
+                activeFasting.map(FastingSession::getId).orElse(null)
+        );
+    }
+}
@@ -0,0 +1,120 @@
+package com.ginger.backend.service;
+
+import com.ginger.backend.api.DtoMapper;
+import com.ginger.backend.api.dto.*;
+import com.ginger.backend.domain.ChangeLogEntry;
+import com.ginger.backend.domain.ChangeLogEntry.EntityType;
+import com.ginger.backend.domain.ChangeLogEntry.Op;
+import com.ginger.backend.domain.FoodLog;
+import com.ginger.backend.domain.WaterLog;
+import com.ginger.backend.repo.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * Feed de cambios para GET /api/sync. Lee el change_log desde el cursor, se queda
+ * con la última operación de cada entidad y carga solo esas filas, así que el
+ * coste depende del delta y no del histórico.
+ */
+@Service
+public class SyncFeedService {
+
+    private final ChangeLogRepo changeRepo;
+    private final ChangeLogService changeLog;
+    private final UserProfileRepo userRepo;
+    private final FoodLogRepo foodRepo;
+    private final WaterLogRepo waterRepo;
+    private final WeightLogRepo weightRepo;
+    private final FastingSessionRepo fastingRepo;
+    private final UserProfileCache users;
+    private final int maxChanges;
+
+    public SyncFeedService(ChangeLogRepo changeRepo,
+                           ChangeLogService changeLog,
+                           UserProfileRepo userRepo,
+                           FoodLogRepo foodRepo,
+                           WaterLogRepo waterRepo,
+                           WeightLogRepo weightRepo,
+                           FastingSessionRepo fastingRepo,
+                           UserProfileCache users,
+                           @Value("${app.sync.feed.max-changes:1000}") int maxChanges) {
+        this.changeRepo = changeRepo;
+        this.changeLog = changeLog;
+        this.userRepo = userRepo;
+        this.foodRepo = foodRepo;
+        this.waterRepo = waterRepo;
+        this.weightRepo = weightRepo;
+        this.fastingRepo = fastingRepo;
+        this.users = users;
+        this.maxChanges = maxChanges;
+    }
+
+    @Transactional(readOnly = true)
+    public SyncChangesDto changes(Long userId, Long since) {
+        users.require(userId);
+
+        // Sin cursor: el cliente acaba de hacer la carga completa, solo necesita el punto de partida
+        if (since == null) {
+            return empty(changeLog.currentVersion(userId), false);
+        }
+
+        List<ChangeLogEntry> rows = changeRepo.findSince(userId, since, PageRequest.of(0, maxChanges + 1));
+        boolean hasMore = rows.size() > maxChanges;
+        if (hasMore) rows = rows.subList(0, maxChanges);
+
+        // Las versiones son consecutivas por usuario: un hueco significa que se purgó el log
+        long current = changeLog.currentVersion(userId);
+        boolean gap = rows.isEmpty() ? since < current : rows.get(0).getVersion() != since + 1;
+        if (gap) {
+            return empty(current, true);
+        }
+        if (rows.isEmpty()) {
+            return empty(Math.max(since, current), false);
+        }
+
+        // Última operación por entidad (el orden es por versión)
+        Map<EntityType, Map<Long, Op>> latest = new EnumMap<>(EntityType.class);
+        for (ChangeLogEntry c : rows) {
+            latest.computeIfAbsent(c.getEntityType(), t -> new LinkedHashMap<>()).put(c.getEntityId(), c.getOp());
+        }
+
+        List<TombstoneDto> deleted = new ArrayList<>();
+        Map<EntityType, List<Long>> upserts = new EnumMap<>(EntityType.class);
+        latest.forEach((type, ops) -> ops.forEach((id, op) -> {
+            if (op == Op.DELETE) deleted.add(new TombstoneDto(type.name(), id));
+            else upserts.computeIfAbsent(type, t -> new ArrayList<>()).add(id);
+        }));
+
+        UserDto profile = null;
+        if (upserts.containsKey(EntityType.USER_PROFILE)) {
+            profile = userRepo.findById(userId).map(DtoMapper::toDto).orElse(null);
+        }
+
+        // Comida y agua desde *_history: la fila pudo archivarse después del cambio
+        List<Long> foodIds = ids(upserts, EntityType.FOOD_LOG);
+        var foods = (foodIds.isEmpty() ? List.<FoodLog>of() : foodRepo.findAllInHistory(foodIds)).stream()
+                .map(DtoMapper::toDto).toList();
+        List<Long> waterIds = ids(upserts, EntityType.WATER_LOG);
+        var waters = (waterIds.isEmpty() ? List.<WaterLog>of() : waterRepo.findAllInHistory(waterIds)).stream()
+                .map(DtoMapper::toDto).toList();
+        var weights = weightRepo.findAllById(ids(upserts, EntityType.WEIGHT_LOG)).stream()
+                .map(DtoMapper::toDto).toList();
+        var fasting = fastingRepo.findAllById(ids(upserts, EntityType.FASTING_SESSION)).stream()
+                .map(DtoMapper::toDto).toList();
+
+        long cursor = rows.get(rows.size() - 1).getVersion();
+        return new SyncChangesDto(cursor, hasMore, false, profile, foods, waters, weights, fasting, deleted);
+    }
+
+    private static List<Long> ids(Map<EntityType, List<Long>> upserts, EntityType type) {
+        return upserts.getOrDefault(type, List.of());
+    }
+
+    private static SyncChangesDto empty(long cursor, boolean resetRequired) {
+        return new SyncChangesDto(cursor, false, resetRequired, null, List.of(), List.of(), List.of(), List.of(), List.of());
+    }
+}
@@ -0,0 +1,204 @@
+package com.ginger.backend.service;
+
+import com.ginger.backend.api.dto.SyncEventResultDto;
+import com.ginger.backend.api.dto.SyncUploadRequest;
+import com.ginger.backend.api.dto.SyncUploadRequest.Event;
+import com.ginger.backend.api.dto.SyncUploadResponse;
+import com.ginger.backend.domain.FoodLog;
+import com.ginger.backend.domain.SyncReceipt;
+import com.ginger.backend.domain.UserProfile;
+import com.ginger.backend.domain.WaterLog;
+import com.ginger.backend.repo.SyncReceiptRepo;
+import com.ginger.backend.repo.UserProfileRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Aplica la cola offline del cliente de forma idempotente. Cada evento lleva un
+ * UUID generado en el móvil; sync_receipts guarda (usuario, UUID) de los ya
+ * aplicados, así que reenviar el mismo lote solo cuesta una consulta.
+ */
+@Service
+public class SyncService {
+
+    private static final Logger log = LoggerFactory.getLogger(SyncService.class);
+
+    public static final String APPLIED = "APPLIED";
+    public static final String DUPLICATE = "DUPLICATE";
+    public static final String REJECTED = "REJECTED";
+
+    private final SyncReceiptRepo receiptRepo;
+    private final UserProfileRepo userRepo;
+    private final UserProfileCache users;
+    private final NutritionLogService logService;
+    private final TransactionTemplate tx;
+    private final Duration maxClockSkew;
+    private final Duration receiptRetention;
+
+    public SyncService(SyncReceiptRepo receiptRepo,
+                       UserProfileRepo userRepo,
+                       UserProfileCache users,
+                       NutritionLogService logService,
+                       PlatformTransactionManager txManager,
+                       @Value("${app.sync.max-clock-skew:1d}") Duration maxClockSkew,
+                       @Value("${app.sync.receipts.retention:90d}") Duration receiptRetention) {
+        this.receiptRepo = receiptRepo;
+        this.userRepo = userRepo;
+        this.users = users;
+        this.logService = logService;
+        this.tx = new TransactionTemplate(txManager);
+        this.maxClockSkew = maxClockSkew;
+        this.receiptRetention = receiptRetention;
+    }
+
+    public SyncUploadResponse upload(SyncUploadRequest req) {
+        users.require(req.userId());
+        try {
+            return tx.execute(s -> apply(req));
+        } catch (DataIntegrityViolationException e) {
+            // Otra petición con los mismos eventos ganó la carrera: al repetir salen como duplicados
+            log.info("sync upload for user {} raced with another upload, retrying", req.userId());
+            return tx.execute(s -> apply(req));
+        }
+    }
+
+    private SyncUploadResponse apply(SyncUploadRequest req) {
+        List<Event> events = req.events();
+        Set<UUID> ids = new HashSet<>();
+        for (Event e : events) ids.add(e.clientEventId());
+
+        Map<UUID, SyncReceipt> existing = new HashMap<>();
+        for (SyncReceipt r : receiptRepo.findByUserIdAndClientEventIdIn(req.userId(), ids)) {
+            existing.put(r.getClientEventId(), r);
+        }
+
+        UserProfile user = userRepo.getReferenceById(req.userId());
+        Instant now = Instant.now();
+
+        String[] status = new String[events.size()];
+        String[] errors = new String[events.size()];
+        Set<UUID> seen = new HashSet<>();
+        List<Event> foodEvents = new ArrayList<>();
+        List<FoodLog> foods = new ArrayList<>();
+        List<Event> waterEvents = new ArrayList<>();
+        List<WaterLog> waters = new ArrayList<>();
+
+        for (int i = 0; i < events.size(); i++) {
+            Event e = events.get(i);
+            if (existing.containsKey(e.clientEventId()) || !seen.add(e.clientEventId())) {
+                status[i] = DUPLICATE;
+                continue;
+            }
+            String error = validate(e, now);
+            if (error != null) {
+                status[i] = REJECTED;
+                errors[i] = error;
+                seen.remove(e.clientEventId()); // un rechazo no cuenta como aplicado
+                continue;
+            }
+            status[i] = APPLIED;
+            if (e.type() == SyncUploadRequest.Type.FOOD) {
+                foodEvents.add(e);
+                foods.add(FoodLog.builder()
+                        .user(user)
+                        .eatenAt(e.clientTime())
+                        .description(e.description().trim())
+                        .calories(e.calories())
+                        .proteinG(e.proteinG())
+                        .carbsG(e.carbsG())
+                        .fatG(e.fatG())
+                        .sugarG(e.sugarG())
+                        .build());
+            } else {
+                waterEvents.add(e);
+                waters.add(WaterLog.builder()
+                        .user(user)
+                        .drankAt(e.clientTime())
+                        .ml(e.ml())
+                        .build());
+            }
+        }
+
+        // Si todo era duplicado no se escribe nada
+        List<SyncReceipt> receipts = new ArrayList<>();
+        if (!foods.isEmpty()) {
+            List<FoodLog> saved = logService.logFoods(foods, NutritionLogService.Source.SYNC);
+            for (int i = 0; i < saved.size(); i++) {
+                receipts.add(receipt(req.userId(), foodEvents.get(i), saved.get(i).getId(), now));
+            }
+        }
+        if (!waters.isEmpty()) {
+            List<WaterLog> saved = logService.logWaters(waters, NutritionLogService.Source.SYNC);
+            for (int i = 0; i < saved.size(); i++) {
+                receipts.add(receipt(req.userId(), waterEvents.get(i), saved.get(i).getId(), now));
+            }
+        }
+        if (!receipts.isEmpty()) {
+            receiptRepo.saveAll(receipts);
+            receiptRepo.flush(); // que el choque con la clave única salte aquí y no en el commit
+        }
+
+        Map<UUID, Long> entityIds = new HashMap<>();
+        existing.forEach((id, r) -> entityIds.put(id, r.getEntityId()));
+        receipts.forEach(r -> entityIds.put(r.getClientEventId(), r.getEntityId()));
+
+        List<SyncEventResultDto> results = new ArrayList<>(events.size());
+        int applied = 0, duplicates = 0, rejected = 0;
+        for (int i = 0; i < events.size(); i++) {
+            UUID id = events.get(i).clientEventId();
+            switch (status[i]) {
+                case APPLIED -> applied++;
+                case DUPLICATE -> duplicates++;
+                default -> rejected++;
+            }
+            Long entityId = REJECTED.equals(status[i]) ? null : entityIds.get(id);
+            results.add(new SyncEventResultDto(id, status[i], entityId, errors[i]));
+        }
+        return new SyncUploadResponse(applied, duplicates, rejected, results);
+    }
+
+    private String validate(Event e, Instant now) {
+        if (e.clientTime().isAfter(now.plus(maxClockSkew))) return "clientTime is in the future";
+        return switch (e.type()) {
+            case FOOD -> {
+                if (e.description() == null || e.description().isBlank()) yield "description is required";
+                if (negative(e.calories()) || negative(e.proteinG()) || negative(e.carbsG())
+                        || negative(e.fatG()) || negative(e.sugarG())) yield "nutrients must be >= 0";
+                yield null;
+            }
+            case WATER -> e.ml() == null || e.ml() < 1 ? "ml must be >= 1" : null;
+        };
+    }
+
+    private static boolean negative(Double v) {
+        return v != null && v < 0;
+    }
+
+    private static SyncReceipt receipt(Long userId, Event e, Long entityId, Instant now) {
+        return SyncReceipt.builder()
+                .userId(userId)
+                .clientEventId(e.clientEventId())
+                .type(e.type().name())
+                .entityId(entityId)
+                .clientTime(e.clientTime())
+                .appliedAt(now)
+                .build();
+    }
+
+    // Los recibos solo tienen que sobrevivir a la cola offline más larga
+    @Scheduled(fixedDelayString = "${app.sync.receipts.cleanup-interval:PT6H}", initialDelayString = "${app.sync.receipts.cleanup-interval:PT6H}")
+    void deleteExpiredReceipts() {
+        int removed = receiptRepo.deleteOlderThan(Instant.now().minus(receiptRetention));
+        if (removed > 0) log.info("deleted {} expired sync receipts", removed);
+    }
+}
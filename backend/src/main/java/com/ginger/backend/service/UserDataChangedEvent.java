@@ -0,0 +1,6 @@
+package com.ginger.backend.service;
+
+import com.ginger.backend.domain.ChangeLogEntry.EntityType;
+
+// Se publica dentro de la transacción de escritura; los listeners lo reciben tras el commit
+public record UserDataChangedEvent(Long userId, EntityType type) {}
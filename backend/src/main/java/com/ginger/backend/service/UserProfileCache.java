@@ -0,0 +1,80 @@
+package com.ginger.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ginger.backend.repo.UserProfileRepo;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Caché read-through de perfiles (acotada y con TTL). Quien modifica un
+ * UserProfile llama a evictAfterCommit() dentro de la transacción (ProfileService).
+ * Métricas en /actuator/metrics/cache.gets?tag=cache:userProfiles
+ */
+@Component
+public class UserProfileCache {
+
+    private final UserProfileRepo userRepo;
+    private final Cache<Long, UserProfileSnapshot> cache;
+
+    public UserProfileCache(UserProfileRepo userRepo,
+                            MeterRegistry registry,
+                            @Value("${app.cache.users.max-size:10000}") long maxSize,
+                            @Value("${app.cache.users.ttl:10m}") Duration ttl) {
+        this.userRepo = userRepo;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, "userProfiles");
+    }
+
+    // Los usuarios que no existen no se cachean (el loader devuelve null)
+    public Optional<UserProfileSnapshot> find(Long userId) {
+        if (userId == null) return Optional.empty();
+        return Optional.ofNullable(cache.get(userId,
+                id -> userRepo.findSnapshot(id).orElse(null)));
+    }
+
+    public UserProfileSnapshot require(Long userId) {
+        return find(userId).orElseThrow(() -> new IllegalArgumentException("User not found"));
+    }
+
+    public void evict(Long userId) {
+        if (userId != null) cache.invalidate(userId);
+    }
+
+    /**
+     * Invalida al confirmarse la transacción en curso (o ya, si no hay ninguna).
+     * Va antes que los listeners AFTER_COMMIT, como LiveSummaryHub, para que no
+     * lean el perfil viejo; invalidar antes del commit dejaría que otra lectura
+     * volviera a cachear la versión sin confirmar todavía.
+     */
+    public void evictAfterCommit(Long userId) {
+        if (userId == null) return;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public int getOrder() {
+                return Ordered.HIGHEST_PRECEDENCE;
+            }
+
+            @Override
+            public void afterCommit() {
+                evict(userId);
+            }
+        });
+    }
+}
@@ -0,0 +1,54 @@
+package com.ginger.backend.service;
+
+import com.ginger.backend.api.profile.ActivityLevel;
+import com.ginger.backend.api.profile.Goal;
+import com.ginger.backend.api.profile.GoalPace;
+import com.ginger.backend.api.profile.Sex;
+import com.ginger.backend.domain.UserProfile;
+
+import java.time.Instant;
+
+/**
+ * Copia inmutable de un UserProfile para la caché. Mismos campos (y mismo JSON)
+ * que la entidad, pero sin estar atada a ningún persistence context.
+ */
+public record UserProfileSnapshot(
+        Long id,
+        String name,
+        Integer age,
+        Double heightCm,
+        Double weightKg,
+        Sex sex,
+        ActivityLevel activityLevel,
+        Goal goal,
+        GoalPace goalPace,
+        String goalMode,
+        Integer calorieTargetKcal,
+        Integer proteinTargetG,
+        Integer sugarLimitG,
+        Integer waterGoalMl,
+        Integer fastingDefaultHours,
+        Instant createdAt
+) {
+
+    public static UserProfileSnapshot of(UserProfile u) {
+        return new UserProfileSnapshot(
+                u.getId(),
+                u.getName(),
+                u.getAge(),
+                u.getHeightCm(),
+                u.getWeightKg(),
+                u.getSex(),
+                u.getActivityLevel(),
+                u.getGoal(),
+                u.getGoalPace(),
+                u.getGoalMode(),
+                u.getCalorieTargetKcal(),
+                u.getProteinTargetG(),
+                u.getSugarLimitG(),
+                u.getWaterGoalMl(),
+                u.getFastingDefaultHours(),
+                u.getCreatedAt()
+        );
+    }
+}
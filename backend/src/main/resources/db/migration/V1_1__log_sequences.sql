@@ -0,0 +1,12 @@
+-- Los logs pasan de IDENTITY a secuencias con allocationSize 50 para poder
+-- insertar por lotes. Las bases que ya corrieron la app con ddl-auto pueden
+-- tener las secuencias creadas; V2 las pone por encima del max(id).
+create sequence if not exists food_logs_seq start with 1 increment by 50;
+create sequence if not exists water_logs_seq start with 1 increment by 50;
+create sequence if not exists fasting_sessions_seq start with 1 increment by 50;
+create sequence if not exists weight_log_seq start with 1 increment by 50;
+
+alter table food_logs alter column id drop identity if exists;
+alter table water_logs alter column id drop identity if exists;
+alter table fasting_sessions alter column id drop identity if exists;
+alter table weight_log alter column id drop identity if exists;
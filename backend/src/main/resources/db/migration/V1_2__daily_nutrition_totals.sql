@@ -0,0 +1,15 @@
+-- Totales diarios por usuario para el resumen de hoy y las gráficas
+create table if not exists daily_nutrition_totals (
+    user_id       bigint not null,
+    log_date      date not null,
+    calories      float(53) not null,
+    proteing      float(53) not null,
+    carbsg        float(53) not null,
+    fatg          float(53) not null,
+    sugarg        float(53) not null,
+    water_ml      integer not null,
+    food_entries  integer not null,
+    water_entries integer not null,
+    updated_at    timestamp(6) with time zone not null,
+    primary key (user_id, log_date)
+);
@@ -0,0 +1,7 @@
+-- Respuestas del modelo por texto de comida normalizado
+create table if not exists meal_parse_cache (
+    cache_key       varchar(64) not null primary key,
+    normalized_text text not null,
+    response_json   text not null,
+    created_at      timestamp(6) with time zone not null
+);
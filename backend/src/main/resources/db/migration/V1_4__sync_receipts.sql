@@ -0,0 +1,13 @@
+-- Eventos de la cola offline ya aplicados, para que reenviar un lote sea idempotente
+create sequence if not exists sync_receipts_seq start with 1 increment by 50;
+
+create table if not exists sync_receipts (
+    id              bigint not null primary key,
+    user_id         bigint not null,
+    client_event_id uuid not null,
+    type            varchar(16) not null,
+    entity_id       bigint,
+    client_time     timestamp(6) with time zone not null,
+    applied_at      timestamp(6) with time zone not null,
+    constraint uk_sync_receipts_user_event unique (user_id, client_event_id)
+);
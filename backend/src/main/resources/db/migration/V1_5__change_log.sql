@@ -0,0 +1,18 @@
+-- Feed de cambios para GET /api/sync: versión consecutiva por usuario
+create table if not exists user_sync_versions (
+    user_id bigint not null primary key,
+    version bigint not null
+);
+
+create sequence if not exists change_log_seq start with 1 increment by 50;
+
+create table if not exists change_log (
+    id          bigint not null primary key,
+    user_id     bigint not null,
+    version     bigint not null,
+    entity_type varchar(24) not null check (entity_type in ('USER_PROFILE', 'FOOD_LOG', 'WATER_LOG', 'WEIGHT_LOG', 'FASTING_SESSION')),
+    entity_id   bigint not null,
+    op          varchar(8) not null check (op in ('UPSERT', 'DELETE')),
+    changed_at  timestamp(6) with time zone not null,
+    constraint uk_change_log_user_version unique (user_id, version)
+);
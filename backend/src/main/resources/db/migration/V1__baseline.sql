@@ -0,0 +1,57 @@
+-- Esquema tal y como lo dejaba ddl-auto: update antes de pasar a Flyway, con ids IDENTITY.
+-- Las bases existentes se marcan con baseline (versión 1) y no ejecutan este script;
+-- lo añadido después va en V1_1 en adelante, que sí corre sobre ellas.
+
+create table user_profiles (
+    id                    bigint generated by default as identity primary key,
+    name                  varchar(255) not null,
+    age                   integer,
+    height_cm             float(53),
+    weight_kg             float(53),
+    sex                   varchar(255) check (sex in ('MALE', 'FEMALE')),
+    activity_level        varchar(255) check (activity_level in ('SEDENTARY', 'LIGHT', 'MODERATE', 'HIGH', 'VERY_HIGH')),
+    goal                  varchar(255) check (goal in ('LOSE', 'MAINTAIN', 'GAIN')),
+    goal_pace             varchar(255) check (goal_pace in ('MILD', 'MEDIUM', 'AGGRESSIVE')),
+    goal_mode             varchar(255),
+    calorie_target_kcal   integer,
+    protein_targetg       integer,
+    sugar_limitg          integer,
+    water_goal_ml         integer,
+    fasting_default_hours integer,
+    created_at            timestamp(6) with time zone not null
+);
+
+create table food_logs (
+    id          bigint generated by default as identity primary key,
+    user_id     bigint not null references user_profiles (id),
+    eaten_at    timestamp(6) with time zone not null,
+    description varchar(255) not null,
+    calories    float(53),
+    proteing    float(53),
+    carbsg      float(53),
+    fatg        float(53),
+    sugarg      float(53),
+    created_at  timestamp(6) with time zone not null
+);
+
+create table water_logs (
+    id       bigint generated by default as identity primary key,
+    user_id  bigint not null references user_profiles (id),
+    drank_at timestamp(6) with time zone not null,
+    ml       integer not null
+);
+
+create table fasting_sessions (
+    id         bigint generated by default as identity primary key,
+    user_id    bigint not null references user_profiles (id),
+    started_at timestamp(6) with time zone not null,
+    ended_at   timestamp(6) with time zone,
+    protocol   varchar(255)
+);
+
+create table weight_log (
+    id         bigint generated by default as identity primary key,
+    user_id    bigint not null,
+    weight_kg  float(53) not null,
+    created_at timestamp(6) with time zone not null
+);
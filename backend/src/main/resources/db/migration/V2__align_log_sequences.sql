@@ -0,0 +1,6 @@
+-- Sustituye a db/align-sequences.sql, que corría en cada arranque. En bases que
+-- venían de IDENTITY, las secuencias tienen que empezar por encima del max(id).
+select setval('food_logs_seq', greatest((select coalesce(max(id), 0) from food_logs), (select last_value from food_logs_seq)));
+select setval('water_logs_seq', greatest((select coalesce(max(id), 0) from water_logs), (select last_value from water_logs_seq)));
+select setval('fasting_sessions_seq', greatest((select coalesce(max(id), 0) from fasting_sessions), (select last_value from fasting_sessions_seq)));
+select setval('weight_log_seq', greatest((select coalesce(max(id), 0) from weight_log), (select last_value from weight_log_seq)));
@@ -0,0 +1,19 @@
+-- Índices para las consultas de los repositorios. CONCURRENTLY para no bloquear
+-- las escrituras en bases con datos (Flyway lo ejecuta fuera de transacción).
+
+-- FoodLogRepo: rangos por usuario y fecha (sumas, buckets por día/hora, historial paginado)
+create index concurrently if not exists idx_food_logs_user_eaten on food_logs (user_id, eaten_at);
+
+-- WaterLogRepo: rangos por usuario y fecha
+create index concurrently if not exists idx_water_logs_user_drank on water_logs (user_id, drank_at);
+
+-- WeightLogRepo: serie por usuario ordenada por fecha
+create index concurrently if not exists idx_weight_log_user_created on weight_log (user_id, created_at);
+
+-- FastingSessionRepo.findFirstByUserIdAndEndedAtIsNullOrderByStartedAtDesc: solo sesiones activas
+create index concurrently if not exists idx_fasting_sessions_active on fasting_sessions (user_id, started_at desc) where ended_at is null;
+
+-- Limpiezas programadas por antigüedad
+create index concurrently if not exists idx_meal_parse_cache_created on meal_parse_cache (created_at);
+create index concurrently if not exists idx_sync_receipts_applied on sync_receipts (applied_at);
+create index concurrently if not exists idx_change_log_changed on change_log (changed_at);
@@ -0,0 +1,118 @@
+-- Particionado mensual de food_logs y water_logs por eaten_at / drank_at.
+-- La PK pasa a (id, fecha) porque Postgres exige la clave de partición en ella;
+-- el id sigue viniendo de la secuencia, así que sigue siendo único.
+-- Las particiones viejas se mueven al esquema archive (PartitionMaintenanceService)
+-- y las vistas *_history juntan ambos lados para las stats de rango largo.
+
+create schema if not exists archive;
+
+-- Crea (si faltan) las particiones mensuales <tabla>_YYYY_MM desde first_month hasta last_month incluido.
+-- Los meses van en UTC. Los meses ya archivados no se vuelven a crear.
+create or replace function create_monthly_partitions(parent text, first_month date, last_month date)
+returns int
+language plpgsql
+as $$
+declare
+    m date := date_trunc('month', first_month)::date;
+    part text;
+    created int := 0;
+begin
+    while m <= last_month loop
+        part := format('%s_%s', parent, to_char(m, 'YYYY_MM'));
+        if to_regclass(format('public.%I', part)) is null
+           and to_regclass(format('archive.%I', part)) is null then
+            execute format(
+                'create table public.%I partition of public.%I for values from (%L) to (%L)',
+                part, parent, m::timestamp at time zone 'UTC', (m + interval '1 month')::timestamp at time zone 'UTC');
+            -- Particiones pequeñas: autovacuum antes y bloat acotado
+            execute format(
+                'alter table public.%I set (autovacuum_vacuum_scale_factor = 0.05, autovacuum_analyze_scale_factor = 0.02)',
+                part);
+            created := created + 1;
+        end if;
+        m := (m + interval '1 month')::date;
+    end loop;
+    return created;
+end;
+$$;
+
+-- ---------------- food_logs ----------------
+
+alter table food_logs rename to food_logs_unpartitioned;
+alter table food_logs_unpartitioned rename constraint food_logs_pkey to food_logs_unpartitioned_pkey;
+
+create table food_logs (
+    id          bigint not null,
+    user_id     bigint not null references user_profiles (id),
+    eaten_at    timestamp(6) with time zone not null,
+    description varchar(255) not null,
+    calories    float(53),
+    proteing    float(53),
+    carbsg      float(53),
+    fatg        float(53),
+    sugarg      float(53),
+    created_at  timestamp(6) with time zone not null,
+    primary key (id, eaten_at)
+) partition by range (eaten_at);
+
+-- Lo que caiga fuera de las particiones mensuales (backfills muy antiguos, relojes adelantados)
+create table food_logs_default partition of food_logs default;
+
+-- Desde el mes más antiguo con datos (o 12 meses atrás) hasta 3 meses por delante
+select create_monthly_partitions('food_logs',
+    least((select min(eaten_at) from food_logs_unpartitioned)::date, (current_date - interval '12 months')::date),
+    (current_date + interval '3 months')::date);
+
+insert into food_logs (id, user_id, eaten_at, description, calories, proteing, carbsg, fatg, sugarg, created_at)
+select id, user_id, eaten_at, description, calories, proteing, carbsg, fatg, sugarg, created_at
+from food_logs_unpartitioned;
+
+drop table food_logs_unpartitioned;
+
+-- Índice particionado: cada partición tiene el suyo
+create index idx_food_logs_user_eaten on food_logs (user_id, eaten_at);
+
+-- ---------------- water_logs ----------------
+
+alter table water_logs rename to water_logs_unpartitioned;
+alter table water_logs_unpartitioned rename constraint water_logs_pkey to water_logs_unpartitioned_pkey;
+
+create table water_logs (
+    id       bigint not null,
+    user_id  bigint not null references user_profiles (id),
+    drank_at timestamp(6) with time zone not null,
+    ml       integer not null,
+    primary key (id, drank_at)
+) partition by range (drank_at);
+
+create table water_logs_default partition of water_logs default;
+
+select create_monthly_partitions('water_logs',
+    least((select min(drank_at) from water_logs_unpartitioned)::date, (current_date - interval '12 months')::date),
+    (current_date + interval '3 months')::date);
+
+insert into water_logs (id, user_id, drank_at, ml)
+select id, user_id, drank_at, ml
+from water_logs_unpartitioned;
+
+drop table water_logs_unpartitioned;
+
+create index idx_water_logs_user_drank on water_logs (user_id, drank_at);
+
+-- ---------------- archivo ----------------
+
+-- Mismas columnas; las particiones archivadas se cuelgan de aquí
+create table archive.food_logs (like public.food_logs) partition by range (eaten_at);
+create table archive.water_logs (like public.water_logs) partition by range (drank_at);
+
+-- Lecturas de rango largo (stats, rebuild de totales): caliente + archivo.
+-- Cada rama se poda por fecha, así que consultar solo meses recientes no toca el archivo.
+create view food_logs_history as
+select * from public.food_logs
+union all
+select * from archive.food_logs;
+
+create view water_logs_history as
+select * from public.water_logs
+union all
+select * from archive.water_logs;
@@ -0,0 +1,55 @@
+-- create_monthly_partitions fallaba si la partición default ya tenía filas de ese
+-- mes (p. ej. un eaten_at en el futuro): Postgres no deja crear una partición cuyo
+-- rango choca con filas de la default. Ahora esas filas se sacan de la default,
+-- se crea la partición y se reinsertan por el padre, todo en la misma transacción.
+create or replace function create_monthly_partitions(parent text, first_month date, last_month date)
+returns int
+language plpgsql
+as $$
+declare
+    m date := date_trunc('month', first_month)::date;
+    part text;
+    lo timestamptz;
+    hi timestamptz;
+    key text;
+    created int := 0;
+begin
+    -- Columna de partición (eaten_at / drank_at)
+    select a.attname into key
+    from pg_partitioned_table p
+    join pg_attribute a on a.attrelid = p.partrelid and a.attnum = p.partattrs[0]
+    where p.partrelid = format('public.%I', parent)::regclass;
+
+    while m <= last_month loop
+        part := format('%s_%s', parent, to_char(m, 'YYYY_MM'));
+        if to_regclass(format('public.%I', part)) is null
+           and to_regclass(format('archive.%I', part)) is null then
+            lo := m::timestamp at time zone 'UTC';
+            hi := (m + interval '1 month')::timestamp at time zone 'UTC';
+
+            if to_regclass(format('public.%I', parent || '_default')) is not null then
+                execute format(
+                    'create temp table moved_rows on commit drop as
+                     with d as (delete from public.%I where %I >= %L and %I < %L returning *) select * from d',
+                    parent || '_default', key, lo, key, hi);
+            end if;
+
+            execute format(
+                'create table public.%I partition of public.%I for values from (%L) to (%L)',
+                part, parent, lo, hi);
+            -- Particiones pequeñas: autovacuum antes y bloat acotado
+            execute format(
+                'alter table public.%I set (autovacuum_vacuum_scale_factor = 0.05, autovacuum_analyze_scale_factor = 0.02)',
+                part);
+
+            if to_regclass('pg_temp.moved_rows') is not null then
+                execute format('insert into public.%I select * from moved_rows', parent);
+                drop table moved_rows;
+            end if;
+            created := created + 1;
+        end if;
+        m := (m + interval '1 month')::date;
+    end loop;
+    return created;
+end;
+$$;
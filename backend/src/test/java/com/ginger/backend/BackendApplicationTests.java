@@ -1,9 +1,15 @@
 package com.ginger.backend;
 
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY;
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseType.POSTGRES;
+
+// Arranca contra un Postgres embebido: aplica las migraciones y valida el esquema
 @SpringBootTest
+@AutoConfigureEmbeddedDatabase(type = POSTGRES, provider = ZONKY)
 class BackendApplicationTests {
 
     @Test
@@ -0,0 +1,221 @@
+package com.ginger.backend.ai;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AiCallGuardTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    // Plazos cortos para que el test no espere: 10 ms de backoff, 50 ms de hedge mínimo
+    private AiCallGuard guard(Duration attemptTimeout, boolean hedge) {
+        return guard(attemptTimeout, hedge, 3, Duration.ofMinutes(1), 8);
+    }
+
+    private AiCallGuard guard(Duration attemptTimeout, boolean hedge, int maxAttempts, Duration openFor, int maxConcurrent) {
+        return new AiCallGuard(registry, Duration.ofSeconds(5), attemptTimeout, maxAttempts,
+                Duration.ofMillis(10), Duration.ofMillis(50), hedge, Duration.ofMillis(50),
+                10, 0.5, openFor, maxConcurrent);
+    }
+
+    @Test
+    void retriesTransientErrorsAndGivesUpOnClientErrors() {
+        AiCallGuard guard = guard(Duration.ofSeconds(1), false);
+
+        AtomicInteger calls = new AtomicInteger();
+        String value = guard.call(() -> {
+            if (calls.incrementAndGet() < 3) throw new IllegalStateException("503 Service Unavailable. overloaded");
+            return "ok";
+        });
+        assertEquals("ok", value);
+        assertEquals(3, calls.get());
+        assertEquals(2.0, registry.get("ai.calls.retries").counter().count());
+
+        // Un 400 es culpa de la petición: ni se reintenta ni se envuelve
+        calls.set(0);
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> guard.call(() -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("400 Bad Request. invalid schema");
+        }));
+        assertEquals("400 Bad Request. invalid schema", e.getMessage());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void slowAttemptTimesOutAndCircuitOpensAfterRepeatedFailures() {
+        AiCallGuard guard = guard(Duration.ofMillis(50), false);
+
+        assertThrows(AiUnavailableException.class, () -> guard.call(() -> sleep(500, "late")));
+        assertTrue(registry.get("ai.calls.timeouts").counter().count() >= 1);
+
+        // 5 llamadas fallidas de 5 (ventana 10, mínimo 5): se abre el circuito
+        for (int i = 0; i < 4; i++) {
+            assertThrows(AiUnavailableException.class, () -> guard.call(() -> {
+                throw new IllegalStateException("500 Internal Server Error. boom");
+            }));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, guard.circuitState());
+
+        AtomicInteger calls = new AtomicInteger();
+        assertThrows(AiUnavailableException.class, () -> guard.call(() -> {
+            calls.incrementAndGet();
+            return "ok";
+        }));
+        assertEquals(0, calls.get(), "an open circuit must not call the model");
+        assertEquals(1.0, registry.get("circuit.state").tag("state", "open").gauge().value());
+        assertEquals(1.0, registry.get("circuit.rejected").counter().count());
+    }
+
+    @Test
+    void hedgeAnswersWhenFirstAttemptIsSlow() {
+        AiCallGuard guard = guard(Duration.ofSeconds(3), true);
+
+        // Historial de llamadas rápidas para tener p95
+        for (int i = 0; i < 20; i++) guard.call(() -> "fast");
+        assertEquals(Duration.ofMillis(50).toNanos(), guard.hedgeDelay(AiCallGuard.Kind.SINGLE));
+
+        AtomicInteger calls = new AtomicInteger();
+        long t0 = System.nanoTime();
+        String value = guard.call(() -> calls.incrementAndGet() == 1 ? sleep(2000, "slow") : "hedge");
+        long elapsedMs = (System.nanoTime() - t0) / 1_000_000;
+
+        assertEquals("hedge", value);
+        assertTrue(elapsedMs < 1000, "hedge should answer long before the slow attempt, took " + elapsedMs + " ms");
+        assertEquals(1.0, registry.get("ai.calls.hedges").tag("result", "won").counter().count());
+        assertEquals(1.0, registry.get("ai.calls.hedge.win.ratio").gauge().value());
+    }
+
+    @Test
+    void batchCallsHaveTheirOwnHedgeWindow() {
+        AiCallGuard guard = guard(Duration.ofSeconds(3), true);
+        for (int i = 0; i < 20; i++) guard.call(() -> "fast");
+
+        // Un lote lento no se mide contra el p95 de las sueltas: sin historial propio no hay hedge
+        assertEquals(-1, guard.hedgeDelay(AiCallGuard.Kind.BATCH));
+        AtomicInteger calls = new AtomicInteger();
+        assertEquals("batch", guard.call(AiCallGuard.Kind.BATCH, () -> {
+            calls.incrementAndGet();
+            return sleep(300, "batch");
+        }));
+        assertEquals(1, calls.get());
+
+        // Y sus latencias no suben el p95 de las sueltas
+        for (int i = 0; i < 20; i++) guard.call(AiCallGuard.Kind.BATCH, () -> sleep(80, "batch"));
+        assertTrue(guard.hedgeDelay(AiCallGuard.Kind.BATCH) >= Duration.ofMillis(80).toNanos());
+        assertEquals(Duration.ofMillis(50).toNanos(), guard.hedgeDelay(AiCallGuard.Kind.SINGLE));
+    }
+
+    @Test
+    void saturatedPoolNeitherClosesHalfOpenCircuitNorHidesEarlierFailure() throws Exception {
+        // Un solo hilo: un intento que agota su plazo lo sigue ocupando
+        AiCallGuard guard = guard(Duration.ofMillis(100), false, 2, Duration.ofMillis(300), 1);
+
+        for (int i = 0; i < 4; i++) {
+            assertThrows(AiUnavailableException.class, () -> guard.call(() -> {
+                throw new IllegalStateException("500 Internal Server Error. boom");
+            }));
+            // El hilo tarda un poco en volver al pool tras completar el future
+            Thread.sleep(20);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, guard.circuitState());
+
+        // Primer intento: timeout (el hilo sigue dentro). Reintento: pool lleno.
+        // El fallo del primero cuenta: 5 de 5 y el circuito se abre
+        long t0 = System.nanoTime();
+        assertThrows(AiUnavailableException.class, () -> guard.call(() -> sleep(1500, "late")));
+        assertEquals(CircuitBreaker.State.OPEN, guard.circuitState());
+
+        // Pasado open-for, la llamada de prueba tampoco encuentra hilo: ni cierra ni reabre
+        Thread.sleep(400);
+        AtomicInteger calls = new AtomicInteger();
+        RejectedExecutionException saturated = assertThrows(RejectedExecutionException.class, () -> guard.call(() -> {
+            calls.incrementAndGet();
+            return "ok";
+        }));
+        assertFalse(saturated instanceof AiUnavailableException);
+        assertEquals(0, calls.get());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, guard.circuitState());
+
+        // El permiso de prueba quedó libre: cuando vuelve el hilo, la siguiente llamada prueba y cierra
+        long left = 1600 - (System.nanoTime() - t0) / 1_000_000;
+        if (left > 0) Thread.sleep(left);
+        assertEquals("ok", guard.call(() -> "ok"));
+        assertEquals(CircuitBreaker.State.CLOSED, guard.circuitState());
+    }
+
+    @Test
+    void clientErrorsAreNeitherSuccessesNorFailures() throws Exception {
+        AiCallGuard guard = guard(Duration.ofSeconds(1), false, 1, Duration.ofMillis(200), 8);
+
+        // 3 fallos, 6 errores de la petición y 2 fallos: 5 de 5 contados, el circuito se abre.
+        // Si los 400 contaran como éxito serían 4 fallos de 10 y seguiría cerrado
+        for (int i = 0; i < 3; i++) failWith(guard, "500 Internal Server Error. boom");
+        for (int i = 0; i < 6; i++) failWith(guard, "400 Bad Request. invalid schema");
+        for (int i = 0; i < 2; i++) failWith(guard, "500 Internal Server Error. boom");
+        assertEquals(CircuitBreaker.State.OPEN, guard.circuitState());
+
+        // La prueba de HALF_OPEN responde 400: no demuestra nada, ni cierra ni reabre
+        Thread.sleep(250);
+        failWith(guard, "400 Bad Request. invalid schema");
+        assertEquals(CircuitBreaker.State.HALF_OPEN, guard.circuitState());
+
+        // El permiso de prueba quedó libre: la siguiente llamada prueba y cierra
+        assertEquals("ok", guard.call(() -> "ok"));
+        assertEquals(CircuitBreaker.State.CLOSED, guard.circuitState());
+    }
+
+    @Test
+    void onlyTheProbeClosesAHalfOpenCircuit() throws Exception {
+        AiCallGuard guard = guard(Duration.ofSeconds(2), false, 1, Duration.ofMillis(200), 8);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            // Entra con el circuito cerrado y acaba bien cuando ya está en HALF_OPEN
+            Future<String> straggler = callers.submit(() -> guard.call(() -> sleep(700, "late")));
+            Thread.sleep(50);
+            for (int i = 0; i < 5; i++) failWith(guard, "500 Internal Server Error. boom");
+            assertEquals(CircuitBreaker.State.OPEN, guard.circuitState());
+
+            // La prueba tarda y acaba fallando
+            Thread.sleep(250);
+            Future<?> probe = callers.submit(() -> assertThrows(AiUnavailableException.class, () -> guard.call(() -> {
+                sleep(800, "");
+                throw new IllegalStateException("503 Service Unavailable. still down");
+            })));
+            Thread.sleep(50);
+            assertEquals(CircuitBreaker.State.HALF_OPEN, guard.circuitState());
+
+            assertEquals("late", straggler.get(5, TimeUnit.SECONDS));
+            assertEquals(CircuitBreaker.State.HALF_OPEN, guard.circuitState(), "a straggler must not close the circuit");
+
+            probe.get(5, TimeUnit.SECONDS);
+            assertEquals(CircuitBreaker.State.OPEN, guard.circuitState());
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    private static void failWith(AiCallGuard guard, String error) {
+        assertThrows(RuntimeException.class, () -> guard.call(() -> {
+            throw new IllegalStateException(error);
+        }));
+    }
+
+    private static String sleep(long ms, String value) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return value;
+    }
+}
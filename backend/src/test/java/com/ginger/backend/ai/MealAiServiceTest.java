@@ -0,0 +1,101 @@
+package com.ginger.backend.ai;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ginger.backend.api.dto.ParseMealResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MealAiServiceTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void truncatedBatchKeepsCompleteMealsAndRetriesTheRestAlone() throws Exception {
+        TruncatingModel model = new TruncatingModel();
+        MealAiService service = new MealAiService(model, JSON, null, null, null, null,
+                registry, ObservationRegistry.NOOP, true, 4, 4, Duration.ofSeconds(5));
+
+        List<String> texts = List.of("uno", "dos", "tres", "cuatro");
+        Map<String, ParseMealResponse> results = parseConcurrently(service, texts);
+
+        // El lote pide 4 veces el tope de tokens y llega cortado en la tercera comida
+        assertEquals(List.of(4), model.batchAnswers);
+        List<String> cut = List.of(model.batchOrder.get(2), model.batchOrder.get(3));
+        assertEquals(Set.copyOf(cut), Set.copyOf(model.singles));
+        for (String text : texts) {
+            String expected = cut.contains(text) ? "solo" : "2 huevos y tostada";
+            assertEquals(expected, results.get(text).description(), text);
+        }
+        assertEquals(1.0, registry.get("ai.meal.parse.failures").counter().count());
+        assertEquals(2.0, registry.get("microbatch.fallbacks").counter().count());
+    }
+
+    private static Map<String, ParseMealResponse> parseConcurrently(MealAiService service, List<String> texts) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(texts.size());
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            Map<String, Future<ParseMealResponse>> futures = new HashMap<>();
+            for (String text : texts) {
+                futures.put(text, pool.submit(() -> {
+                    start.await();
+                    return service.parseWithModel(text);
+                }));
+            }
+            start.countDown();
+            Map<String, ParseMealResponse> out = new HashMap<>();
+            for (var e : futures.entrySet()) out.put(e.getKey(), e.getValue().get(5, TimeUnit.SECONDS));
+            return out;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Lote: la respuesta del stub cortada a mitad de la comida con id "2". Suelta: otra comida
+    private static final class TruncatingModel implements AiTextModel {
+        private final StubAiClient stub = new StubAiClient("", Duration.ZERO, Duration.ZERO, 16);
+        private final List<Integer> batchAnswers = Collections.synchronizedList(new ArrayList<>());
+        private final List<String> batchOrder = Collections.synchronizedList(new ArrayList<>());
+        private final List<String> singles = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public String generateText(AiRequest request) {
+            if (request.answers() == 1) {
+                singles.add(request.prompt());
+                return StubAiClient.DEFAULT_RESPONSE.replace("2 huevos y tostada", "solo");
+            }
+            batchAnswers.add(request.answers());
+            try {
+                for (JsonNode meal : JSON.readTree(request.prompt())) batchOrder.add(meal.get("text").asText());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            String full = stub.generateText(request);
+            return full.substring(0, full.indexOf("\"id\":\"2\"") + 40);
+        }
+
+        @Override
+        public String streamText(AiRequest request, Consumer<String> onChunk) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.ginger.backend.ai;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ginger.backend.api.dto.MealItemDto;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MealStreamParserTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void emitsEachItemAsSoonAsItIsComplete() {
+        // Stub que escupe la respuesta enlatada en trozos de 7 caracteres cada 10 ms
+        StubAiClient stub = new StubAiClient("", Duration.ZERO, Duration.ofMillis(10), 7);
+
+        List<MealItemDto> items = new ArrayList<>();
+        List<Integer> chunksSeenAtItem = new ArrayList<>();
+        int[] chunks = {0};
+
+        MealStreamParser parser = new MealStreamParser(mapper, item -> {
+            items.add(item);
+            chunksSeenAtItem.add(chunks[0]);
+        });
+
+        String full = stub.streamText(MealAiService.mealRequest("2 huevos y una tostada"), chunk -> {
+            chunks[0]++;
+            parser.accept(chunk);
+        });
+
+        assertEquals(2, items.size());
+        assertEquals("Huevo", items.get(0).name());
+        assertEquals(155.0, items.get(0).calories());
+        assertEquals("Tostada", items.get(1).name());
+
+        // El primer item sale bastante antes de que termine el stream
+        assertTrue(chunksSeenAtItem.get(0) < chunks[0] - 5,
+                "first item at chunk " + chunksSeenAtItem.get(0) + " of " + chunks[0]);
+        assertEquals(full, parser.text().trim());
+    }
+
+    @Test
+    void handlesCodeFencesBracesInStringsAndSingleCharChunks() {
+        String raw = """
+                ```json
+                {"description": "tarta {de} \\"queso\\" [casera]",
+                 "totalCalories": 400,
+                 "notes": {"items": [{"name": "ignored"}]},
+                 "items": [{"name": "Tarta }{", "quantity": "1 porción", "calories": 400, "proteinG": 7,
+                            "carbsG": 45, "fatG": 21, "sugarG": 30, "extra": {"nested": true}}]}
+                ```
+                """;
+
+        List<MealItemDto> items = new ArrayList<>();
+        MealStreamParser parser = new MealStreamParser(mapper, items::add);
+        for (char c : raw.toCharArray()) parser.accept(String.valueOf(c));
+
+        assertEquals(1, items.size());
+        assertEquals("Tarta }{", items.get(0).name());
+        assertEquals(30.0, items.get(0).sugarG());
+    }
+}
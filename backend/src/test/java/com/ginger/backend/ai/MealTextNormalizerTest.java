@@ -0,0 +1,41 @@
+package com.ginger.backend.ai;
+
+import org.junit.jupiter.api.Test;
+
+import static com.ginger.backend.ai.MealTextNormalizer.normalize;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MealTextNormalizerTest {
+
+    @Test
+    void sameMealWrittenDifferentlyGetsTheSameKey() {
+        assertEquals("2 huevos y tostada", normalize("2 Huevos, y tostada!!"));
+        assertEquals(normalize("jamon serrano"), normalize("Jamón  serrano"));
+        assertEquals(normalize("1.5 kg patatas"), normalize("1,5 kg patatas"));
+        assertEquals(normalize("2.5 tazas"), normalize("2.50 tazas"));
+        assertEquals(normalize("2 yogures"), normalize("02 yogures"));
+        assertEquals(normalize("1/2 aguacate"), normalize("1 / 2 aguacate"));
+        assertEquals(normalize("0.25 kg queso"), normalize("0,250 kg queso"));
+    }
+
+    @Test
+    void thousandsSeparatorIsNotReadAsDecimal() {
+        // "1,000 g" y "1.000 g" son mil gramos, nunca "1 g"
+        assertNotEquals(normalize("1 g arroz"), normalize("1,000 g arroz"));
+        assertNotEquals(normalize("1 g arroz"), normalize("1.000 g arroz"));
+        assertNotEquals(normalize("2.5 l agua"), normalize("2.500 l agua"));
+        assertNotEquals(normalize("1 kcal"), normalize("1,000,000 kcal"));
+
+        // Los grupos de miles conservan sus ceros: "1,000" no es "1 0" ni "1,050" es "1 50"
+        assertEquals("1 000 g arroz", normalize("1,000 g arroz"));
+        assertEquals("1 000 000 kcal", normalize("1,000,000 kcal"));
+        assertNotEquals(normalize("1 0 g arroz"), normalize("1,000 g arroz"));
+        assertNotEquals(normalize("1 50 g arroz"), normalize("1,050 g arroz"));
+    }
+
+    @Test
+    void blankAndNullAreEmpty() {
+        assertEquals("", normalize(null));
+        assertEquals("", normalize("  ¡¿!? "));
+    }
+}
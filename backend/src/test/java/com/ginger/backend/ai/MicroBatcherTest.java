@@ -0,0 +1,161 @@
+package com.ginger.backend.ai;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MicroBatcherTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void missingOutputIsRetriedAloneAndTheRestComeFromTheBatch() throws Exception {
+        List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        List<String> singles = Collections.synchronizedList(new ArrayList<>());
+
+        // El lote "pierde" la entrada "b": tiene que repetirse sola
+        MicroBatcher<String, String> batcher = new MicroBatcher<>("test", 4, 4, Duration.ofSeconds(5),
+                inputs -> {
+                    batchSizes.add(inputs.size());
+                    return inputs.stream().map(i -> i.equals("b") ? null : "batch:" + i).toList();
+                },
+                i -> {
+                    singles.add(i);
+                    return "single:" + i;
+                },
+                registry);
+
+        List<String> results = runConcurrently(batcher, List.of("a", "b", "c", "d"));
+
+        assertEquals(List.of(4), batchSizes);
+        assertEquals(List.of("b"), singles);
+        assertEquals(List.of("batch:a", "single:b", "batch:c", "batch:d"), results);
+        assertEquals(1.0, registry.get("microbatch.fallbacks").counter().count());
+        assertEquals(4.0, registry.get("microbatch.size").summary().max());
+    }
+
+    @Test
+    void fallbacksRunConcurrentlyOnTheCallersThreads() throws Exception {
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        CountDownLatch together = new CountDownLatch(3);
+
+        // Todas faltan salvo "a"; cada repetición espera a las otras dos, así que en serie no acabaría
+        MicroBatcher<String, String> batcher = new MicroBatcher<>("test", 4, 4, Duration.ofSeconds(5),
+                inputs -> inputs.stream().map(i -> i.equals("a") ? "batch:" + i : null).toList(),
+                i -> {
+                    threads.add(Thread.currentThread().getName());
+                    together.countDown();
+                    try {
+                        assertTrue(together.await(5, TimeUnit.SECONDS), "fallbacks ran one after another");
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    return "single:" + i;
+                },
+                registry);
+
+        List<String> results = runConcurrently(batcher, List.of("a", "b", "c", "d"));
+
+        assertEquals(3, threads.size());
+        assertEquals(List.of("batch:a", "single:b", "single:c", "single:d"), results);
+    }
+
+    @Test
+    void fallbacksPerBatchAreCapped() throws Exception {
+        AtomicInteger singles = new AtomicInteger();
+        MicroBatcher<String, String> batcher = new MicroBatcher<>("test", 4, 1, Duration.ofSeconds(5),
+                inputs -> Collections.nCopies(inputs.size(), null),
+                i -> {
+                    singles.incrementAndGet();
+                    return "single:" + i;
+                },
+                registry);
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (String in : List.of("a", "b", "c", "d")) futures.add(pool.submit(() -> batcher.execute(in)));
+            int ok = 0, rejected = 0;
+            for (Future<String> f : futures) {
+                try {
+                    f.get(5, TimeUnit.SECONDS);
+                    ok++;
+                } catch (ExecutionException e) {
+                    assertInstanceOf(AiUnavailableException.class, e.getCause());
+                    rejected++;
+                }
+            }
+            assertEquals(1, ok);
+            assertEquals(3, rejected);
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, singles.get());
+        assertEquals(3.0, registry.get("microbatch.fallbacks.rejected").counter().count());
+    }
+
+    @Test
+    void failedBatchFailsEveryCaller() throws Exception {
+        MicroBatcher<String, String> batcher = new MicroBatcher<>("test", 3, 3, Duration.ofSeconds(5),
+                inputs -> { throw new IllegalStateException("model down"); },
+                i -> "single:" + i,
+                registry);
+
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (String in : List.of("a", "b", "c")) futures.add(pool.submit(() -> batcher.execute(in)));
+            for (Future<String> f : futures) {
+                Exception e = assertThrows(Exception.class, () -> f.get(5, TimeUnit.SECONDS));
+                assertInstanceOf(IllegalStateException.class, e.getCause());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void loneCallGoesThroughSingleAfterMaxWait() {
+        MicroBatcher<String, String> batcher = new MicroBatcher<>("test", 8, 8, Duration.ofMillis(5),
+                inputs -> { throw new AssertionError("a lot of one must not be batched"); },
+                i -> "single:" + i,
+                registry);
+
+        assertEquals("single:x", batcher.execute("x"));
+    }
+
+    private static List<String> runConcurrently(MicroBatcher<String, String> batcher, List<String> inputs) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(inputs.size());
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (String in : inputs) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return batcher.execute(in);
+                }));
+            }
+            start.countDown();
+            List<String> out = new ArrayList<>();
+            for (Future<String> f : futures) out.add(f.get(5, TimeUnit.SECONDS));
+            return out;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.ginger.backend.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ginger.backend.service.PartitionMaintenanceService;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY;
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseType.POSTGRES;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Lo que PartitionMaintenanceService mueve al esquema archive sigue en el
+ * historial paginado y en el feed de sync; borrarlo es un 410, no un no-op.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureEmbeddedDatabase(type = POSTGRES, provider = ZONKY)
+class ArchivedLogsTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired ObjectMapper json;
+    @Autowired JdbcTemplate jdbc;
+    @Autowired PartitionMaintenanceService partitions;
+
+    @Test
+    void archivedRowsStayReadableButCannotBeDeleted() throws Exception {
+        long userId = createUser("archive");
+        String uid = String.valueOf(userId);
+        long cursor = json.readTree(mvc.perform(get("/api/sync").param("userId", uid))
+                .andReturn().getResponse().getContentAsString()).get("cursor").asLong();
+
+        // Un mes más viejo que hot-months (24): su partición se archiva
+        YearMonth month = YearMonth.now(ZoneOffset.UTC).minusMonths(30);
+        for (String table : new String[] {"food_logs", "water_logs"}) {
+            jdbc.queryForObject("select create_monthly_partitions(?, ?, ?)", Integer.class, table, month.atDay(1), month.atDay(1));
+        }
+        Instant old = month.atDay(10).atStartOfDay(ZoneOffset.UTC).toInstant();
+        long foodId = json.readTree(mvc.perform(post("/api/food/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\":" + userId + ",\"entries\":[{\"eatenAt\":\"" + old + "\",\"description\":\"antiguo\",\"calories\":100}]}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString()).get(0).get("id").asLong();
+        long waterId = json.readTree(mvc.perform(post("/api/water/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\":" + userId + ",\"entries\":[{\"drankAt\":\"" + old + "\",\"ml\":300}]}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString()).get(0).get("id").asLong();
+        mvc.perform(post("/api/food").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\":" + userId + ",\"description\":\"hoy\",\"calories\":200}"))
+                .andExpect(status().isCreated());
+
+        String archived = "food_logs_" + month.toString().replace('-', '_');
+        assertTrue(partitions.maintain().archived().contains(archived));
+        assertEquals(0, jdbc.queryForObject("select count(*) from public.food_logs where id = ?", Long.class, foodId));
+
+        // El historial llega hasta la fila archivada
+        JsonNode page1 = page(uid, null);
+        assertTrue(page1.get("hasMore").asBoolean());
+        JsonNode page2 = page(uid, page1.get("nextCursor").asText());
+        assertEquals(foodId, page2.get("items").get(0).get("id").asLong());
+        assertFalse(page2.get("hasMore").asBoolean());
+
+        // El feed encuentra las filas aunque el cambio se registrara antes de archivarlas
+        JsonNode changes = json.readTree(mvc.perform(get("/api/sync").param("userId", uid).param("since", String.valueOf(cursor)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        assertTrue(changes.get("foodLogs").findValuesAsText("id").contains(String.valueOf(foodId)), changes.toString());
+        assertTrue(changes.get("waterLogs").findValuesAsText("id").contains(String.valueOf(waterId)), changes.toString());
+
+        mvc.perform(delete("/api/food-logs/" + foodId).param("userId", uid)).andExpect(status().isGone());
+        mvc.perform(delete("/api/water-logs/" + waterId).param("userId", uid)).andExpect(status().isGone());
+        mvc.perform(delete("/api/food-logs/" + (foodId + 1_000_000)).param("userId", uid)).andExpect(status().isNotFound());
+    }
+
+    private JsonNode page(String userId, String cursor) throws Exception {
+        var req = get("/api/food-logs").param("userId", userId).param("size", "1");
+        if (cursor != null) req.param("cursor", cursor);
+        return json.readTree(mvc.perform(req)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+
+    private long createUser(String name) throws Exception {
+        String body = mvc.perform(post("/api/users").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"" + name + "\"}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return json.readTree(body).get("id").asLong();
+    }
+}
@@ -0,0 +1,74 @@
+package com.ginger.backend.controller;
+
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY;
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseType.POSTGRES;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * ETag del resumen: 304 mientras no cambie nada del usuario, 200 con otra
+ * ETag en cuanto registra algo.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureEmbeddedDatabase(type = POSTGRES, provider = ZONKY)
+class ConditionalGetTest {
+
+    @Autowired MockMvc mvc;
+
+    @Test
+    void summaryIsNotModifiedUntilTheUserWrites() throws Exception {
+        String userId = createUser("etag");
+
+        String etag = mvc.perform(get("/api/summary/today").param("userId", userId))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mvc.perform(get("/api/summary/today").param("userId", userId).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+        mvc.perform(get("/api/summary/today").param("userId", userId).header(HttpHeaders.IF_NONE_MATCH, "W/" + etag))
+                .andExpect(status().isNotModified());
+
+        mvc.perform(post("/api/water").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\":" + userId + ",\"ml\":250}"))
+                .andExpect(status().isCreated());
+
+        String after = mvc.perform(get("/api/summary/today").param("userId", userId).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(after);
+        assertNotEquals(etag, after);
+
+        // La ETag es por usuario: lo que escribe otro no invalida esta
+        String other = createUser("etag-other");
+        mvc.perform(post("/api/water").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\":" + other + ",\"ml\":250}"))
+                .andExpect(status().isCreated());
+        mvc.perform(get("/api/summary/today").param("userId", userId).header(HttpHeaders.IF_NONE_MATCH, after))
+                .andExpect(status().isNotModified());
+    }
+
+    private String createUser(String name) throws Exception {
+        String body = mvc.perform(post("/api/users").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"" + name + "\"}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return body.replaceAll(".*\"id\":(\\d+).*", "$1");
+    }
+}
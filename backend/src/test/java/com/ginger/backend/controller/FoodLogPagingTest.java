@@ -0,0 +1,101 @@
+package com.ginger.backend.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY;
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseType.POSTGRES;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Paginación keyset de /api/food-logs con muchas filas en el mismo instante:
+ * el id desempata, así que no se repite ni se pierde ninguna entre páginas,
+ * aunque entren filas nuevas mientras se pagina.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureEmbeddedDatabase(type = POSTGRES, provider = ZONKY)
+class FoodLogPagingTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired ObjectMapper json;
+
+    @Test
+    void equalTimestampsAreNeitherRepeatedNorSkipped() throws Exception {
+        long userId = createUser("paging");
+        Instant same = Instant.now().minus(1, ChronoUnit.HOURS).truncatedTo(ChronoUnit.SECONDS);
+        Instant earlier = same.minus(1, ChronoUnit.MINUTES);
+        // Orden esperado: instante desc y, a igualdad, id desc
+        List<Long> expected = new ArrayList<>(logFoods(userId, same, 5));
+        expected.sort(Comparator.reverseOrder());
+        List<Long> older = new ArrayList<>(logFoods(userId, earlier, 2));
+        older.sort(Comparator.reverseOrder());
+        expected.addAll(older);
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            var req = get("/api/food-logs").param("userId", String.valueOf(userId)).param("size", "2");
+            if (cursor != null) req.param("cursor", cursor);
+            JsonNode page = json.readTree(mvc.perform(req)
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+            for (JsonNode item : page.get("items")) seen.add(item.get("id").asLong());
+            cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+            assertEquals(cursor != null, page.get("hasMore").asBoolean());
+
+            // Una fila nueva a mitad de recorrido queda delante del cursor y no desplaza nada
+            if (pages++ == 0) logFoods(userId, Instant.now(), 1);
+        } while (cursor != null);
+
+        assertEquals(expected, seen);
+        assertEquals(4, pages);
+    }
+
+    @Test
+    void unreadableCursorIsBadRequest() throws Exception {
+        mvc.perform(get("/api/food-logs").param("userId", "1").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private List<Long> logFoods(long userId, Instant at, int n) throws Exception {
+        StringBuilder entries = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            if (i > 0) entries.append(',');
+            entries.append("{\"eatenAt\":\"").append(at).append("\",\"description\":\"item ").append(i)
+                    .append("\",\"calories\":100}");
+        }
+        JsonNode saved = json.readTree(mvc.perform(post("/api/food/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\":" + userId + ",\"entries\":[" + entries + "]}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString());
+        List<Long> ids = new ArrayList<>();
+        for (JsonNode f : saved) ids.add(f.get("id").asLong());
+        return ids;
+    }
+
+    private long createUser(String name) throws Exception {
+        String body = mvc.perform(post("/api/users").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"" + name + "\"}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return json.readTree(body).get("id").asLong();
+    }
+}
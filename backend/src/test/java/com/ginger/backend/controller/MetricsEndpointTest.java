@@ -0,0 +1,57 @@
+package com.ginger.backend.controller;
+
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY;
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseType.POSTGRES;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * El scrape de Prometheus lleva lo que miramos en producción: histograma por
+ * ruta (con la plantilla, no el id), Hibernate, JVM y contadores de negocio.
+ * Las de Hikari no salen aquí: el DataSource embebido de los tests no es un pool.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@AutoConfigureEmbeddedDatabase(type = POSTGRES, provider = ZONKY)
+class MetricsEndpointTest {
+
+    @Autowired MockMvc mvc;
+
+    @Test
+    void prometheusScrapeHasRouteHistogramsAndBusinessCounters() throws Exception {
+        String body = mvc.perform(post("/api/users").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"metrics\"}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        String userId = body.replaceAll(".*\"id\":(\\d+).*", "$1");
+
+        mvc.perform(post("/api/food").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\":" + userId + ",\"description\":\"manzana\",\"calories\":80}"))
+                .andExpect(status().isCreated());
+        mvc.perform(get("/api/users/" + userId)).andExpect(status().isOk());
+
+        String scrape = mvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue(scrape.contains("http_server_requests_seconds_bucket{"), "route histogram");
+        assertTrue(scrape.contains("uri=\"/api/users/{userId}\""), "uri template tag");
+        assertTrue(!scrape.contains("uri=\"/api/users/" + userId + "\""), "raw id leaked into tags");
+        assertTrue(scrape.contains("nutrition_logs_total{application=\"backend\",source=\"manual\",type=\"food\"} 1.0"),
+                "business counter");
+        assertTrue(scrape.contains("hibernate_"), "hibernate statistics");
+        assertTrue(scrape.contains("jvm_gc_"), "gc metrics");
+    }
+}
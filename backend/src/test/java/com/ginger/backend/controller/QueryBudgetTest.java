@@ -0,0 +1,159 @@
+package com.ginger.backend.controller;
+
+import com.ginger.backend.service.UserProfileCache;
+import com.ginger.backend.support.QueryCountConfig;
+import com.ginger.backend.support.QueryCounter;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY;
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseType.POSTGRES;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Presupuesto de sentencias SQL por endpoint. Si un cambio mete un N+1 o una
+ * consulta de más, el test falla y lista el SQL que se ejecutó.
+ * Los GET cuentan también la lectura de versión del ETag (ConditionalGetInterceptor).
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+@AutoConfigureMockMvc
+@AutoConfigureEmbeddedDatabase(type = POSTGRES, provider = ZONKY)
+@Import(QueryCountConfig.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryBudgetTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired QueryCounter queries;
+    @Autowired EntityManagerFactory emf;
+    @Autowired UserProfileCache users;
+
+    long userId;
+
+    @BeforeAll
+    void seed() throws Exception {
+        String body = mvc.perform(post("/api/users").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"budget\"}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        userId = Long.parseLong(body.replaceAll(".*\"id\":(\\d+).*", "$1"));
+
+        StringBuilder entries = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            if (i > 0) entries.append(',');
+            entries.append("{\"description\":\"meal ").append(i)
+                    .append("\",\"calories\":300,\"eatenAt\":\"").append(Instant.now().minus(i, ChronoUnit.HOURS)).append("\"}");
+        }
+        mvc.perform(post("/api/food/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\":" + userId + ",\"entries\":[" + entries + "]}"))
+                .andExpect(status().isCreated());
+        mvc.perform(post("/api/weight").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\":" + userId + ",\"weightKg\":70}"))
+                .andExpect(status().isOk());
+
+        // Perfil ya en caché, como en régimen normal
+        mvc.perform(get("/api/users/" + userId)).andExpect(status().isOk());
+    }
+
+    // versión (ETag) + totales del día por PK + ayuno activo; el perfil sale de la caché
+    @Test
+    void todaySummary() throws Exception {
+        budget(3, get("/api/summary/today").param("userId", id()));
+    }
+
+    @Test
+    void foodHistoryPage() throws Exception {
+        projected(2, get("/api/food-logs").param("userId", id()).param("size", "25"));
+    }
+
+    @Test
+    void userListing() throws Exception {
+        projected(1, get("/api/users"));
+    }
+
+    @Test
+    void weightSeries() throws Exception {
+        projected(2, get("/api/weight").param("userId", id()));
+        projected(2, get("/api/stats/weight").param("userId", id()));
+    }
+
+    // Fallo de caché: el loader lee la proyección, no la entidad
+    @Test
+    void userProfileCacheMiss() throws Exception {
+        users.evict(userId);
+        projected(1, get("/api/users/" + userId));
+    }
+
+    @Test
+    void statsAggregates() throws Exception {
+        budget(3, get("/api/stats/daily-totals").param("userId", id()));
+        budget(2, get("/api/stats/calories-by-hour").param("userId", id()));
+    }
+
+    // insert + upsert de totales + versión + change_log (+ nextval cada 50 ids)
+    @Test
+    void logFood() throws Exception {
+        budget(5, post("/api/food").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"userId\":" + userId + ",\"description\":\"apple\",\"calories\":80}"));
+    }
+
+    // 150 filas sin un insert por fila: batches de 100 (hibernate.jdbc.batch_size) y nextval
+    // cada 50 ids, en food_logs y en change_log; un upsert de totales y una reserva de versiones
+    @Test
+    void logFoodBatch() throws Exception {
+        Instant at = Instant.now();
+        StringBuilder entries = new StringBuilder();
+        for (int i = 0; i < 150; i++) {
+            if (i > 0) entries.append(',');
+            entries.append("{\"description\":\"snack ").append(i)
+                    .append("\",\"calories\":50,\"eatenAt\":\"").append(at).append("\"}");
+        }
+        List<String> seen = budget(12, post("/api/food/batch").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"userId\":" + userId + ",\"entries\":[" + entries + "]}"));
+        assertEquals(List.of("[batch x100]", "[batch x50]"), seen.stream()
+                .filter(q -> q.contains("insert into food_logs"))
+                .map(q -> q.substring(0, q.indexOf(']') + 1))
+                .toList());
+    }
+
+    // Además del presupuesto: la respuesta sale directamente como DTO, sin cargar entidades
+    private void projected(int max, MockHttpServletRequestBuilder request) throws Exception {
+        Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+        long loaded = stats.getEntityLoadCount();
+        budget(max, request);
+        assertEquals(loaded, stats.getEntityLoadCount(), "entities loaded by a projected read");
+    }
+
+    private List<String> budget(int max, MockHttpServletRequestBuilder request) throws Exception {
+        var r = request.buildRequest(new MockServletContext());
+        String label = r.getMethod() + " " + r.getRequestURI();
+        return queries.assertAtMost(max, label, () ->
+                mvc.perform(request).andExpect(status().is2xxSuccessful()));
+    }
+
+    private String id() {
+        return Long.toString(userId);
+    }
+}
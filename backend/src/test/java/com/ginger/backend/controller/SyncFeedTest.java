@@ -0,0 +1,126 @@
+package com.ginger.backend.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.util.List;
+
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY;
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseType.POSTGRES;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * GET /api/sync: el cursor avanza sin saltarse cambios entre páginas, las
+ * versiones son consecutivas y un log purgado obliga a recargar.
+ */
+@SpringBootTest(properties = "app.sync.feed.max-changes=2")
+@AutoConfigureMockMvc
+@AutoConfigureEmbeddedDatabase(type = POSTGRES, provider = ZONKY)
+class SyncFeedTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired ObjectMapper json;
+    @Autowired JdbcTemplate jdbc;
+
+    @Test
+    void cursorWalksEveryChangeOnceAcrossPages() throws Exception {
+        long userId = createUser("feed");
+        long start = changes(userId, null).get("cursor").asLong();
+
+        mvc.perform(post("/api/food/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"userId":%d,"entries":[
+                                  {"eatenAt":"%s","description":"a","calories":100},
+                                  {"eatenAt":"%s","description":"b","calories":200},
+                                  {"eatenAt":"%s","description":"c","calories":300}
+                                ]}""".formatted(userId, Instant.now(), Instant.now(), Instant.now())))
+                .andExpect(status().isCreated());
+
+        // max-changes=2: dos páginas, la segunda empieza justo donde acabó la primera
+        JsonNode page1 = changes(userId, start);
+        assertTrue(page1.get("hasMore").asBoolean());
+        assertEquals(start + 2, page1.get("cursor").asLong());
+        assertEquals(2, page1.get("foodLogs").size());
+
+        JsonNode page2 = changes(userId, page1.get("cursor").asLong());
+        assertFalse(page2.get("hasMore").asBoolean());
+        assertEquals(start + 3, page2.get("cursor").asLong());
+        assertEquals(1, page2.get("foodLogs").size());
+        assertNotEquals(page1.get("foodLogs").get(0).get("id"), page2.get("foodLogs").get(0).get("id"));
+        assertNotEquals(page1.get("foodLogs").get(1).get("id"), page2.get("foodLogs").get(0).get("id"));
+
+        // Al día: mismo cursor, sin cambios
+        long cursor = page2.get("cursor").asLong();
+        JsonNode upToDate = changes(userId, cursor);
+        assertEquals(cursor, upToDate.get("cursor").asLong());
+        assertFalse(upToDate.get("resetRequired").asBoolean());
+        assertEquals(0, upToDate.get("foodLogs").size());
+
+        // Un borrado llega como tombstone
+        long deletedId = page2.get("foodLogs").get(0).get("id").asLong();
+        mvc.perform(delete("/api/food-logs/" + deletedId).param("userId", String.valueOf(userId)))
+                .andExpect(status().isNoContent());
+        JsonNode afterDelete = changes(userId, cursor);
+        assertEquals(cursor + 1, afterDelete.get("cursor").asLong());
+        assertEquals("FOOD_LOG", afterDelete.get("deleted").get(0).get("type").asText());
+        assertEquals(deletedId, afterDelete.get("deleted").get(0).get("id").asLong());
+
+        List<Long> versions = jdbc.queryForList(
+                "select version from change_log where user_id = ? order by version", Long.class, userId);
+        for (int i = 1; i < versions.size(); i++) {
+            assertEquals(versions.get(i - 1) + 1, versions.get(i), "versions must have no gaps: " + versions);
+        }
+    }
+
+    @Test
+    void purgedLogAsksForFullReload() throws Exception {
+        long userId = createUser("feed-purge");
+        long start = changes(userId, null).get("cursor").asLong();
+        for (int i = 0; i < 3; i++) {
+            mvc.perform(post("/api/water").contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"userId\":" + userId + ",\"ml\":250}"))
+                    .andExpect(status().isCreated());
+        }
+
+        // Como si la retención hubiera borrado el primer cambio tras el cursor del cliente
+        jdbc.update("delete from change_log where user_id = ? and version = ?", userId, start + 1);
+
+        JsonNode reset = changes(userId, start);
+        assertTrue(reset.get("resetRequired").asBoolean());
+        assertEquals(start + 3, reset.get("cursor").asLong());
+        assertEquals(0, reset.get("waterLogs").size());
+
+        // Con el cursor nuevo se sigue con normalidad
+        JsonNode next = changes(userId, reset.get("cursor").asLong());
+        assertFalse(next.get("resetRequired").asBoolean());
+    }
+
+    private JsonNode changes(long userId, Long since) throws Exception {
+        var req = get("/api/sync").param("userId", String.valueOf(userId));
+        if (since != null) req.param("since", String.valueOf(since));
+        return json.readTree(mvc.perform(req)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+
+    private long createUser(String name) throws Exception {
+        String body = mvc.perform(post("/api/users").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"" + name + "\"}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return json.readTree(body).get("id").asLong();
+    }
+}
@@ -0,0 +1,134 @@
+package com.ginger.backend.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY;
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseType.POSTGRES;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Reenviar la cola offline (en serie o dos veces a la vez) no puede duplicar
+ * logs ni entradas del change_log, y el recibo apunta a las mismas filas.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureEmbeddedDatabase(type = POSTGRES, provider = ZONKY)
+class SyncReplayTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired ObjectMapper json;
+    @Autowired JdbcTemplate jdbc;
+
+    @Test
+    void sameBatchTwiceWritesOnce() throws Exception {
+        long userId = createUser("replay");
+        String batch = batch(userId);
+
+        JsonNode first = upload(batch);
+        assertEquals(2, first.get("applied").asInt());
+        assertEquals(0, first.get("duplicates").asInt());
+
+        JsonNode second = upload(batch);
+        assertEquals(0, second.get("applied").asInt());
+        assertEquals(2, second.get("duplicates").asInt());
+        assertEquals(entityIds(first), entityIds(second));
+
+        assertSingleCopy(userId);
+    }
+
+    @Test
+    void sameBatchConcurrentlyWritesOnce() throws Exception {
+        long userId = createUser("replay-race");
+        String batch = batch(userId);
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<JsonNode>> uploads = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                uploads.add(pool.submit(() -> {
+                    start.await();
+                    return upload(batch);
+                }));
+            }
+            start.countDown();
+            JsonNode a = uploads.get(0).get(30, TimeUnit.SECONDS);
+            JsonNode b = uploads.get(1).get(30, TimeUnit.SECONDS);
+
+            // Uno aplica y el otro ve duplicados, sea cual sea el orden
+            assertEquals(2, a.get("applied").asInt() + b.get("applied").asInt());
+            assertEquals(2, a.get("duplicates").asInt() + b.get("duplicates").asInt());
+            assertEquals(entityIds(a), entityIds(b));
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertSingleCopy(userId);
+    }
+
+    private void assertSingleCopy(long userId) {
+        assertEquals(1, count("select count(*) from food_logs where user_id = ?", userId));
+        assertEquals(1, count("select count(*) from water_logs where user_id = ?", userId));
+        assertEquals(2, count("select count(*) from sync_receipts where user_id = ?", userId));
+        assertEquals(1, count("select count(*) from change_log where user_id = ? and entity_type = 'FOOD_LOG'", userId));
+        assertEquals(1, count("select count(*) from change_log where user_id = ? and entity_type = 'WATER_LOG'", userId));
+    }
+
+    private long count(String sql, long userId) {
+        return jdbc.queryForObject(sql, Long.class, userId);
+    }
+
+    private String batch(long userId) {
+        Instant at = Instant.now().minus(1, ChronoUnit.HOURS);
+        return """
+                {"userId":%d,"events":[
+                  {"clientEventId":"%s","clientTime":"%s","type":"FOOD","description":"tortilla","calories":300},
+                  {"clientEventId":"%s","clientTime":"%s","type":"WATER","ml":500}
+                ]}""".formatted(userId, UUID.randomUUID(), at, UUID.randomUUID(), at);
+    }
+
+    private JsonNode upload(String batch) throws Exception {
+        String body = mvc.perform(post("/api/sync").contentType(MediaType.APPLICATION_JSON).content(batch))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return json.readTree(body);
+    }
+
+    private static List<String> entityIds(JsonNode response) {
+        List<String> ids = new ArrayList<>();
+        for (JsonNode r : response.get("results")) {
+            ids.add(r.get("clientEventId").asText() + "=" + r.get("entityId").asLong());
+        }
+        return ids;
+    }
+
+    private long createUser(String name) throws Exception {
+        String body = mvc.perform(post("/api/users").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"" + name + "\"}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return json.readTree(body).get("id").asLong();
+    }
+}
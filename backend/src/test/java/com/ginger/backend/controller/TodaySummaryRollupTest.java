@@ -0,0 +1,141 @@
+package com.ginger.backend.controller;
+
+import com.ginger.backend.domain.FoodLog;
+import com.ginger.backend.domain.UserProfile;
+import com.ginger.backend.repo.DailyNutritionTotalsRepo;
+import com.ginger.backend.repo.UserProfileRepo;
+import com.ginger.backend.service.DailyTotalsService;
+import com.ginger.backend.service.NutritionLogService;
+import com.ginger.backend.service.NutritionLogService.Source;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY;
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseType.POSTGRES;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * El resumen de hoy sale de daily_nutrition_totals: lo que se registra (y se
+ * borra) tiene que verse ahí, y un rebuild concurrente con escrituras no puede
+ * perder deltas.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureEmbeddedDatabase(type = POSTGRES, provider = ZONKY)
+class TodaySummaryRollupTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired NutritionLogService logService;
+    @Autowired DailyTotalsService totalsService;
+    @Autowired UserProfileRepo userRepo;
+    @Autowired DailyNutritionTotalsRepo totalsRepo;
+    @Autowired TransactionTemplate tx;
+
+    @Test
+    void loggedFoodAndWaterShowUpInTodaySummary() throws Exception {
+        String userId = createUser("rollup");
+
+        String food = mvc.perform(post("/api/food").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\":" + userId + ",\"description\":\"arroz\",\"calories\":500,"
+                                + "\"proteinG\":30,\"carbsG\":60,\"fatG\":10}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        mvc.perform(post("/api/food").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\":" + userId + ",\"description\":\"manzana\",\"calories\":80}"))
+                .andExpect(status().isCreated());
+        mvc.perform(post("/api/water").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\":" + userId + ",\"ml\":250}"))
+                .andExpect(status().isCreated());
+
+        mvc.perform(get("/api/summary/today").param("userId", userId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.consumed.calories").value(580.0))
+                .andExpect(jsonPath("$.consumed.proteinG").value(30.0))
+                .andExpect(jsonPath("$.consumed.waterMl").value(250));
+
+        // Borrar resta; el rebuild desde los logs deja lo mismo
+        String foodId = food.replaceAll(".*\"id\":(\\d+).*", "$1");
+        mvc.perform(delete("/api/food-logs/" + foodId).param("userId", userId))
+                .andExpect(status().isNoContent());
+        mvc.perform(post("/api/admin/rollups/rebuild").param("userId", userId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rows").value(1));
+
+        mvc.perform(get("/api/summary/today").param("userId", userId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.consumed.calories").value(80.0))
+                .andExpect(jsonPath("$.consumed.proteinG").value(0.0))
+                .andExpect(jsonPath("$.consumed.waterMl").value(250));
+    }
+
+    @Test
+    void rebuildWaitsForWriteInFlightOnTheSameDay() throws Exception {
+        long userId = Long.parseLong(createUser("rollup-race"));
+        var user = userRepo.getReferenceById(userId);
+
+        // Un log ya confirmado y el rollup de hoy sin fila: el rebuild la va a crear
+        logService.logFood(food(user, 100.0), Source.MANUAL);
+        tx.executeWithoutResult(s -> totalsRepo.deleteForUser(userId));
+
+        // Escritura en curso: su upsert crea la fila de hoy pero aún no ha hecho commit
+        CountDownLatch written = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> writer = pool.submit(() -> tx.executeWithoutResult(s -> {
+                logService.logFood(food(user, 10.0), Source.MANUAL);
+                written.countDown();
+                sleep(500);
+            }));
+            written.await(10, TimeUnit.SECONDS);
+            Future<Integer> rebuild = pool.submit(() -> totalsService.rebuild(userId));
+
+            writer.get(30, TimeUnit.SECONDS);
+            assertEquals(1, rebuild.get(30, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // Sin el lock, el rebuild pisaba la fila con su foto de antes del commit (100)
+        mvc.perform(get("/api/summary/today").param("userId", String.valueOf(userId)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.consumed.calories").value(110.0));
+    }
+
+    private static FoodLog food(UserProfile user, double calories) {
+        return FoodLog.builder().user(user).eatenAt(Instant.now()).description("race").calories(calories).build();
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String createUser(String name) throws Exception {
+        String body = mvc.perform(post("/api/users").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"" + name + "\"}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return body.replaceAll(".*\"id\":(\\d+).*", "$1");
+    }
+}
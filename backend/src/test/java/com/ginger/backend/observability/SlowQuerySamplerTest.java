@@ -0,0 +1,111 @@
+package com.ginger.backend.observability;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY;
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseType.POSTGRES;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Umbral 0: todo cuenta como lento, así se ve el camino completo hasta el plan
+@SpringBootTest(properties = {
+        "app.slow-queries.threshold=0ms",
+        "app.slow-queries.explain.enabled=true"
+})
+@AutoConfigureMockMvc
+@AutoConfigureEmbeddedDatabase(type = POSTGRES, provider = ZONKY)
+class SlowQuerySamplerTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired ObjectMapper mapper;
+    @Autowired JdbcTemplate jdbc;
+
+    @Test
+    void normalizesLiteralsAndInLists() {
+        assertEquals("select * from food_logs where user_id=? and description=? and id in (?...)",
+                SlowQuerySampler.normalize("select *\n  from food_logs where user_id=42 and description='it''s' and id in (?, ?, ?)"));
+        assertEquals("select x from t where (a,b) in ((?...)...)",
+                SlowQuerySampler.normalize("select x from t where (a,b) in ((?,?),(?,?),(?,?))"));
+    }
+
+    @Test
+    void explainsOnlyPlainTableReads() {
+        assertTrue(SlowQuerySampler.isPlainRead("select f.id from food_logs_history f where f.user_id=? order by f.eaten_at desc limit ?"));
+        assertTrue(SlowQuerySampler.isPlainRead("with t as (select user_id from food_logs) select count(*) from t"));
+        assertFalse(SlowQuerySampler.isPlainRead("select pg_try_advisory_lock(?)"));
+        assertFalse(SlowQuerySampler.isPlainRead("select create_monthly_partitions(?, ?, ?)"));
+        assertFalse(SlowQuerySampler.isPlainRead("select 1 from (select pg_advisory_xact_lock(?, ?)) l"));
+        assertFalse(SlowQuerySampler.isPlainRead("select nextval(?) from generate_series(?, ?)"));
+        assertFalse(SlowQuerySampler.isPlainRead("select * from user_profiles where id=? for update"));
+        assertFalse(SlowQuerySampler.isPlainRead("with d as (delete from food_logs where id=? returning id) select id from d"));
+    }
+
+    // Como PartitionMaintenanceService: EXPLAIN ANALYZE del lock lo volvería a tomar en otra conexión
+    @Test
+    void advisoryLocksAreNotReplayedByExplain() throws Exception {
+        mvc.perform(delete("/actuator/slowqueries")).andExpect(status().is2xxSuccessful());
+        jdbc.execute((ConnectionCallback<Boolean>) c -> {
+            JdbcTemplate db = new JdbcTemplate(new SingleConnectionDataSource(c, true));
+            db.queryForObject("select pg_try_advisory_lock(?)", Boolean.class, 7_341_999L);
+            return db.queryForObject("select pg_advisory_unlock(?)", Boolean.class, 7_341_999L);
+        });
+
+        Thread.sleep(500);
+        JsonNode report = mapper.readTree(mvc.perform(get("/actuator/slowqueries"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        assertEquals(2, report.path("statements").size(), report.toString());
+        for (JsonNode s : report.path("statements")) {
+            assertTrue(s.path("plan").isNull(), s.toString());
+        }
+    }
+
+    @Test
+    void foodHistoryScanShowsUpWithShapeAndPlan() throws Exception {
+        String body = mvc.perform(post("/api/users").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"slow\"}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        String userId = body.replaceAll(".*\"id\":(\\d+).*", "$1");
+        mvc.perform(post("/api/food").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\":" + userId + ",\"description\":\"pan\",\"calories\":120}"))
+                .andExpect(status().isCreated());
+
+        mvc.perform(delete("/actuator/slowqueries")).andExpect(status().is2xxSuccessful());
+        mvc.perform(get("/api/food-logs").param("userId", userId).param("size", "10"))
+                .andExpect(status().isOk());
+
+        // El plan se captura en segundo plano
+        JsonNode statement = null;
+        for (int i = 0; i < 50 && (statement == null || statement.path("plan").isNull()); i++) {
+            Thread.sleep(100);
+            JsonNode report = mapper.readTree(mvc.perform(get("/actuator/slowqueries"))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+            for (JsonNode s : report.path("statements")) {
+                if (s.path("sql").asText().contains("from food_logs")) statement = s;
+            }
+        }
+
+        assertNotNull(statement);
+        assertEquals(1, statement.path("count").asLong());
+        assertTrue(statement.path("slowest").get(0).path("parameters").asText().startsWith("[Long"),
+                statement.toString());
+        assertTrue(statement.path("plan").asText().contains("actual time="), statement.toString());
+        assertEquals(1, statement.path("planRows").asLong());
+    }
+}
@@ -0,0 +1,87 @@
+package com.ginger.backend.observability;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY;
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseType.POSTGRES;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Una petición a log-meal deja una sola traza con el span HTTP, el del modelo,
+ * el del parseo, los de repositorio y las sentencias JDBC debajo.
+ */
+@SpringBootTest(properties = {
+        "app.ai.provider=stub",
+        "app.ai.stub.latency=0ms",
+        "app.tracing.file.enabled=true",
+        "management.tracing.sampling.probability=1.0"
+})
+@AutoConfigureMockMvc
+@AutoConfigureObservability(metrics = false)
+@AutoConfigureEmbeddedDatabase(type = POSTGRES, provider = ZONKY)
+class TracingTest {
+
+    static Path spans;
+
+    @Autowired MockMvc mvc;
+    @Autowired SdkTracerProvider tracerProvider;
+    @Autowired ObjectMapper mapper;
+
+    @DynamicPropertySource
+    static void spansFile(DynamicPropertyRegistry registry) throws Exception {
+        spans = Files.createTempFile("spans", ".jsonl");
+        registry.add("app.tracing.file.path", spans::toString);
+    }
+
+    @Test
+    void logMealIsOneTraceWithModelParseRepositoryAndJdbcSpans() throws Exception {
+        String body = mvc.perform(post("/api/users").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"tracing\"}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        String userId = body.replaceAll(".*\"id\":(\\d+).*", "$1");
+
+        mvc.perform(post("/api/ai/log-meal").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\":" + userId + ",\"text\":\"dos huevos y una tostada\"}"))
+                .andExpect(status().isOk());
+        tracerProvider.forceFlush().join(10, TimeUnit.SECONDS);
+
+        List<JsonNode> exported = new ArrayList<>();
+        for (String line : Files.readAllLines(spans)) exported.add(mapper.readTree(line));
+
+        JsonNode server = exported.stream()
+                .filter(s -> s.path("kind").asText().equals("SERVER"))
+                .filter(s -> s.path("name").asText().equals("http post /api/ai/log-meal"))
+                .findFirst().orElseThrow();
+
+        String traceId = server.path("traceId").asText();
+        List<String> names = exported.stream()
+                .filter(s -> s.path("traceId").asText().equals(traceId))
+                .map(s -> s.path("name").asText())
+                .toList();
+
+        assertTrue(names.contains("ai.meal.parse"), names.toString());
+        assertTrue(names.contains("food-log-repo.save"), names.toString());
+        assertTrue(names.contains("query"), names.toString());
+    }
+}
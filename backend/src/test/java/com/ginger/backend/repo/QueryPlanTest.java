@@ -0,0 +1,203 @@
+package com.ginger.backend.repo;
+
+import com.ginger.backend.domain.DailyNutritionTotalsId;
+import com.ginger.backend.support.QueryCountConfig;
+import com.ginger.backend.support.QueryCounter;
+import com.ginger.backend.support.QueryCounter.Call;
+import com.ginger.backend.support.QueryCounter.Captured;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY;
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseType.POSTGRES;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Comprueba con EXPLAIN que las consultas calientes de los repositorios usan los
+ * índices de las migraciones. Se carga un volumen parecido al real (500 usuarios,
+ * cientos de filas cada uno) y se hace ANALYZE para que el planner elija como en
+ * producción, sin tocar enable_seqscan.
+ *
+ * No se copia el SQL a mano: se llama al método del repositorio, {@link QueryCounter}
+ * captura la sentencia que Hibernate manda al driver con sus parámetros, y se
+ * repite con EXPLAIN delante. Si cambia una consulta, el test mira la nueva.
+ *
+ * food_logs y water_logs están particionadas por mes: el plan nombra el índice
+ * de cada partición (food_logs_2026_10_user_id_eaten_at_idx), así que se busca el sufijo.
+ */
+@SpringBootTest
+@AutoConfigureEmbeddedDatabase(type = POSTGRES, provider = ZONKY)
+@Import(QueryCountConfig.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryPlanTest {
+
+    private static final String FOOD_INDEX = "user_id_eaten_at_idx";
+    private static final String WATER_INDEX = "user_id_drank_at_idx";
+    private static final String TZ = "Europe/Madrid";
+
+    @Autowired JdbcTemplate jdbc;
+    @Autowired QueryCounter queries;
+    @Autowired FoodLogRepo foodRepo;
+    @Autowired WaterLogRepo waterRepo;
+    @Autowired WeightLogRepo weightRepo;
+    @Autowired FastingSessionRepo fastingRepo;
+    @Autowired DailyNutritionTotalsRepo totalsRepo;
+    @Autowired ChangeLogRepo changeRepo;
+    @Autowired SyncReceiptRepo receiptRepo;
+
+    long userId;
+
+    @BeforeAll
+    void loadData() {
+        jdbc.execute("insert into user_profiles (name, created_at) select 'user ' || g, now() from generate_series(1, 500) g");
+
+        jdbc.execute("""
+            insert into food_logs (id, user_id, eaten_at, description, calories, proteing, carbsg, fatg, sugarg, created_at)
+            select nextval('food_logs_seq'), u.id, now() - g * interval '3 hours', 'meal', 400, 20, 50, 10, 5, now()
+            from user_profiles u cross join generate_series(1, 300) g
+            """);
+        jdbc.execute("""
+            insert into water_logs (id, user_id, drank_at, ml)
+            select nextval('water_logs_seq'), u.id, now() - g * interval '2 hours', 250
+            from user_profiles u cross join generate_series(1, 300) g
+            """);
+        jdbc.execute("""
+            insert into weight_log (id, user_id, weight_kg, created_at)
+            select nextval('weight_log_seq'), u.id, 70 + g % 5, now() - g * interval '1 day'
+            from user_profiles u cross join generate_series(1, 200) g
+            """);
+        // Una sesión activa por usuario y el resto cerradas
+        jdbc.execute("""
+            insert into fasting_sessions (id, user_id, started_at, ended_at, protocol)
+            select nextval('fasting_sessions_seq'), u.id, now() - g * interval '1 day',
+                   case when g = 1 then null else now() - g * interval '1 day' + interval '16 hours' end, '16:8'
+            from user_profiles u cross join generate_series(1, 100) g
+            """);
+        jdbc.execute("""
+            insert into daily_nutrition_totals
+                (user_id, log_date, calories, proteing, carbsg, fatg, sugarg, water_ml, food_entries, water_entries, updated_at)
+            select u.id, current_date - g, 2000, 100, 250, 60, 40, 2000, 8, 8, now()
+            from user_profiles u cross join generate_series(0, 99) g
+            """);
+        jdbc.execute("""
+            insert into change_log (id, user_id, version, entity_type, entity_id, op, changed_at)
+            select nextval('change_log_seq'), u.id, g, 'FOOD_LOG', g, 'UPSERT', now()
+            from user_profiles u cross join generate_series(1, 300) g
+            """);
+        jdbc.execute("""
+            insert into sync_receipts (id, user_id, client_event_id, type, entity_id, client_time, applied_at)
+            select nextval('sync_receipts_seq'), u.id, gen_random_uuid(), 'WATER', g, now(), now()
+            from user_profiles u cross join generate_series(1, 100) g
+            """);
+
+        jdbc.execute("analyze");
+        userId = jdbc.queryForObject("select min(id) + 250 from user_profiles", Long.class);
+    }
+
+    @Test
+    void foodLogRangeQueriesUseUserTimeIndex() throws Exception {
+        Instant now = Instant.now();
+        assertIndex(FOOD_INDEX, () -> foodRepo.findPage(userId, 26));
+        // Página siguiente del historial (keyset)
+        assertIndex(FOOD_INDEX, () -> foodRepo.findPageBefore(userId, now.minus(20, ChronoUnit.DAYS), 1000L, 26));
+        assertIndex(FOOD_INDEX, () -> foodRepo.sumCaloriesByDay(userId, now.minus(30, ChronoUnit.DAYS), now, TZ));
+        assertIndex(FOOD_INDEX, () -> foodRepo.sumCaloriesByHour(userId, now.minus(14, ChronoUnit.DAYS), now, TZ));
+    }
+
+    @Test
+    void rangeInsideAMonthOnlyTouchesItsPartition() throws Exception {
+        LocalDate lastMonth = LocalDate.now(ZoneOffset.UTC).minusMonths(1).withDayOfMonth(10);
+        Instant from = lastMonth.atStartOfDay(ZoneOffset.UTC).toInstant();
+        Instant to = lastMonth.plusDays(10).atStartOfDay(ZoneOffset.UTC).toInstant();
+        String partition = "food_logs_%d_%02d".formatted(lastMonth.getYear(), lastMonth.getMonthValue());
+        String current = "food_logs_%d_%02d".formatted(LocalDate.now(ZoneOffset.UTC).getYear(), LocalDate.now(ZoneOffset.UTC).getMonthValue());
+
+        for (String plan : plans(() -> foodRepo.sumCaloriesByDay(userId, from, to, "UTC"))) {
+            assertTrue(plan.contains(partition), plan);
+            assertFalse(plan.contains("food_logs_default"), "default partition not pruned:\n" + plan);
+            assertFalse(plan.contains(current + " "), "current month not pruned:\n" + plan);
+        }
+    }
+
+    @Test
+    void waterLogRangeQueriesUseUserTimeIndex() throws Exception {
+        Instant now = Instant.now();
+        assertIndex(WATER_INDEX, () -> waterRepo.sumWaterByDay(userId, now.minus(30, ChronoUnit.DAYS), now, TZ));
+    }
+
+    @Test
+    void weightSeriesUsesUserTimeIndex() throws Exception {
+        Instant now = Instant.now();
+        assertIndex("idx_weight_log_user_created", () -> weightRepo.findSeries(userId, Limit.of(90)));
+        assertIndex("idx_weight_log_user_created", () -> weightRepo.findTop1ByUserIdOrderByCreatedAtDesc(userId));
+        assertIndex("idx_weight_log_user_created", () -> weightRepo.findSeriesBetween(userId, now.minus(90, ChronoUnit.DAYS), now));
+    }
+
+    @Test
+    void activeFastingLookupUsesPartialIndex() throws Exception {
+        assertIndex("idx_fasting_sessions_active", () -> fastingRepo.findFirstByUserIdAndEndedAtIsNullOrderByStartedAtDesc(userId));
+    }
+
+    @Test
+    void rollupSyncAndChangeFeedUseKeys() throws Exception {
+        assertIndex("daily_nutrition_totals_pkey", () -> totalsRepo.findById(new DailyNutritionTotalsId(userId, LocalDate.now())));
+        assertIndex("uk_change_log_user_version", () -> changeRepo.findSince(userId, 250, PageRequest.of(0, 1001)));
+        assertIndex("uk_sync_receipts_user_event",
+                () -> receiptRepo.findByUserIdAndClientEventIdIn(userId, Set.of(UUID.randomUUID(), UUID.randomUUID())));
+    }
+
+    private void assertIndex(String index, Call call) throws Exception {
+        for (String plan : plans(call)) {
+            assertTrue(plan.contains(index), "expected " + index + " in plan:\n" + plan);
+            assertFalse(plan.contains("Seq Scan"), "unexpected seq scan:\n" + plan);
+        }
+    }
+
+    // EXPLAIN de cada SELECT que lanzó la llamada, con los mismos parámetros
+    private List<String> plans(Call call) throws Exception {
+        List<String> plans = new ArrayList<>();
+        for (Captured q : queries.capture(call)) {
+            if (!q.sql().stripLeading().toLowerCase().startsWith("select")) continue;
+            plans.add(jdbc.execute((ConnectionCallback<String>) c -> {
+                try (PreparedStatement ps = c.prepareStatement("explain " + q.sql())) {
+                    for (ParameterSetOperation op : q.parameters()) {
+                        try {
+                            op.getMethod().invoke(ps, op.getArgs());
+                        } catch (ReflectiveOperationException e) {
+                            throw new IllegalStateException("cannot replay " + op.getMethod().getName(), e);
+                        }
+                    }
+                    List<String> lines = new ArrayList<>();
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) lines.add(rs.getString(1));
+                    }
+                    return q.sql() + "\n" + String.join("\n", lines);
+                }
+            }));
+        }
+        assertFalse(plans.isEmpty(), "the call ran no SELECT");
+        return plans;
+    }
+}
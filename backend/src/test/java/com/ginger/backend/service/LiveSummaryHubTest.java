@@ -0,0 +1,63 @@
+package com.ginger.backend.service;
+
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY;
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseType.POSTGRES;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * El push en vivo lee el perfil de UserProfileCache justo después del commit:
+ * un cambio de objetivos tiene que llegar ya con los objetivos nuevos.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureEmbeddedDatabase(type = POSTGRES, provider = ZONKY)
+class LiveSummaryHubTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired ProfileService profiles;
+
+    @Test
+    void goalUpdatePushesTheNewTargets() throws Exception {
+        String body = mvc.perform(post("/api/users").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"live\"}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        long userId = Long.parseLong(body.replaceAll(".*\"id\":(\\d+).*", "$1"));
+
+        // El resumen inicial deja el perfil en la caché
+        MockHttpServletResponse sse = mvc.perform(get("/api/live/summary").param("userId", String.valueOf(userId)))
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse();
+        awaitEvents(sse, 1);
+
+        // Directo al servicio: nada más invalida la caché antes del push
+        profiles.update(userId, u -> u.setCalorieTargetKcal(1234));
+
+        String pushed = awaitEvents(sse, 2);
+        String last = pushed.substring(pushed.lastIndexOf("event:summary"));
+        assertTrue(last.contains("\"calorieTargetKcal\":1234"), last);
+    }
+
+    private static String awaitEvents(MockHttpServletResponse sse, int n) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (true) {
+            String content = sse.getContentAsString();
+            if (content.split("event:summary", -1).length - 1 >= n) return content;
+            if (System.currentTimeMillis() > deadline) fail("expected " + n + " summary events, got: " + content);
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.ginger.backend.service;
+
+import com.ginger.backend.api.dto.PartitionMaintenanceDto;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY;
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseType.POSTGRES;
+import static org.junit.jupiter.api.Assertions.*;
+
+@JdbcTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@AutoConfigureEmbeddedDatabase(type = POSTGRES, provider = ZONKY)
+@Import(PartitionMaintenanceService.class)
+@TestPropertySource(properties = {"app.partitions.hot-months=6", "app.partitions.months-ahead=5"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PartitionMaintenanceServiceTest {
+
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    @Autowired JdbcTemplate jdbc;
+    @Autowired PartitionMaintenanceService service;
+
+    @Test
+    void archivesOldMonthsAndCreatesUpcomingOnes() {
+        YearMonth now = YearMonth.now(ZoneOffset.UTC);
+        String old = "food_logs_" + now.minusMonths(8).format(SUFFIX);
+        String recent = "food_logs_" + now.minusMonths(1).format(SUFFIX);
+
+        jdbc.execute("insert into user_profiles (name, created_at) values ('archive test', now())");
+        long userId = jdbc.queryForObject("select max(id) from user_profiles", Long.class);
+        jdbc.update("""
+            insert into food_logs (id, user_id, eaten_at, description, calories, created_at)
+            select nextval('food_logs_seq'), ?, ts, 'meal', 500, now()
+            from (values (now() - interval '8 months'), (now() - interval '1 month')) v(ts)
+            """, userId);
+        // Por si now() - 8 meses cae justo en el borde del mes
+        jdbc.update("update food_logs set eaten_at = date_trunc('month', eaten_at) + interval '10 days' where user_id = ?", userId);
+
+        PartitionMaintenanceDto result = service.maintain();
+
+        assertTrue(result.archived().contains(old), result.toString());
+        assertFalse(result.archived().contains(recent), result.toString());
+        assertTrue(result.created() >= 2, "months-ahead 5 > 3 from V4: " + result);
+        assertEquals(1, count("select count(*) from pg_tables where schemaname = 'archive' and tablename = '" + old + "'"));
+        assertEquals(1, count("select count(*) from pg_tables where schemaname = 'public' and tablename = 'food_logs_" + now.plusMonths(5).format(SUFFIX) + "'"));
+
+        // Fuera de la tabla caliente, pero las stats lo siguen viendo
+        assertEquals(1, count("select count(*) from food_logs where user_id = " + userId));
+        assertEquals(2, count("select count(*) from food_logs_history where user_id = " + userId));
+
+        // Idempotente: la segunda pasada no hace nada
+        PartitionMaintenanceDto again = service.maintain();
+        assertEquals(0, again.created());
+        assertTrue(again.archived().isEmpty());
+    }
+
+    @Test
+    void futureRowsInDefaultMoveToTheNewPartition() {
+        YearMonth target = YearMonth.now(ZoneOffset.UTC).plusMonths(5);
+        String food = "food_logs_" + target.format(SUFFIX);
+        String water = "water_logs_" + target.format(SUFFIX);
+        // Que el mes no exista aún, aunque el otro test ya lo haya creado
+        jdbc.execute("drop table if exists " + food);
+        jdbc.execute("drop table if exists " + water);
+
+        jdbc.execute("insert into user_profiles (name, created_at) values ('future test', now())");
+        long userId = jdbc.queryForObject("select max(id) from user_profiles", Long.class);
+        String day = target.atDay(10) + " 12:00:00+00";
+        jdbc.update("""
+            insert into food_logs (id, user_id, eaten_at, description, calories, created_at)
+            values (nextval('food_logs_seq'), ?, cast(? as timestamptz), 'reloj adelantado', 300, now())
+            """, userId, day);
+        jdbc.update("""
+            insert into water_logs (id, user_id, drank_at, ml)
+            values (nextval('water_logs_seq'), ?, cast(? as timestamptz), 250)
+            """, userId, day);
+        assertEquals(1, count("select count(*) from food_logs_default where user_id = " + userId));
+
+        // Lo mismo que hace maintain() para ese mes, sin archivar nada que use el otro test
+        for (String table : new String[] {"food_logs", "water_logs"}) {
+            assertEquals(1, jdbc.queryForObject("select create_monthly_partitions(?, ?, ?)", Integer.class,
+                    table, target.atDay(1), target.atDay(1)));
+        }
+
+        assertEquals(0, count("select count(*) from food_logs_default where user_id = " + userId));
+        assertEquals(0, count("select count(*) from water_logs_default where user_id = " + userId));
+        assertEquals(1, count("select count(*) from " + food + " where user_id = " + userId));
+        assertEquals(1, count("select count(*) from " + water + " where user_id = " + userId));
+    }
+
+    private long count(String sql) {
+        return jdbc.queryForObject(sql, Long.class);
+    }
+}
@@ -0,0 +1,18 @@
+package com.ginger.backend.support;
+
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Registra {@link QueryCounter} como bean: datasource-micrometer (el mismo proxy
+ * que da los spans JDBC) le pasa cada sentencia del DataSource de la aplicación.
+ * Se activa con @Import(QueryCountConfig.class) en el test.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class QueryCountConfig {
+
+    @Bean
+    public QueryCounter queryCounter() {
+        return new QueryCounter();
+    }
+}
@@ -0,0 +1,90 @@
+package com.ginger.backend.support;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Apunta cada sentencia que pasa por el DataSource (ver {@link QueryCountConfig}).
+ * Un batch JDBC cuenta como una sentencia, igual que en la red.
+ * Los tests de controladores declaran su presupuesto con {@link #assertAtMost};
+ * {@link #capture} guarda además el SQL exacto y sus parámetros para hacer EXPLAIN.
+ */
+public class QueryCounter implements QueryExecutionListener {
+
+    private final List<String> statements = new ArrayList<>();
+    private final List<Captured> captured = new ArrayList<>();
+    private volatile boolean recording;
+
+    @FunctionalInterface
+    public interface Call {
+        void run() throws Exception;
+    }
+
+    /** Sentencia tal y como llegó al driver, con las llamadas set*() de su (primer) juego de parámetros. */
+    public record Captured(String sql, List<ParameterSetOperation> parameters) {}
+
+    /** Ejecuta la llamada y falla si lanza más de {@code budget} sentencias, listándolas. */
+    public List<String> assertAtMost(int budget, String label, Call call) throws Exception {
+        List<String> seen = record(call);
+        if (seen.size() > budget) {
+            fail(label + ": " + seen.size() + " statements, budget " + budget + "\n"
+                    + seen.stream().map(s -> "  - " + s).collect(Collectors.joining("\n")));
+        }
+        return seen;
+    }
+
+    public List<String> record(Call call) throws Exception {
+        run(call);
+        synchronized (statements) {
+            return List.copyOf(statements);
+        }
+    }
+
+    public List<Captured> capture(Call call) throws Exception {
+        run(call);
+        synchronized (statements) {
+            return List.copyOf(captured);
+        }
+    }
+
+    private void run(Call call) throws Exception {
+        synchronized (statements) {
+            statements.clear();
+            captured.clear();
+        }
+        recording = true;
+        try {
+            call.run();
+        } finally {
+            recording = false;
+        }
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (!recording) return;
+        String sql = queryInfoList.stream()
+                .map(q -> q.getQuery().replaceAll("\\s+", " ").trim())
+                .collect(Collectors.joining("; "));
+        if (execInfo.isBatch()) sql = "[batch x" + execInfo.getBatchSize() + "] " + sql;
+        synchronized (statements) {
+            statements.add(sql);
+            for (QueryInfo q : queryInfoList) {
+                var params = q.getParametersList().isEmpty() ? List.<ParameterSetOperation>of() : q.getParametersList().get(0);
+                captured.add(new Captured(q.getQuery(), List.copyOf(params)));
+            }
+        }
+    }
+}
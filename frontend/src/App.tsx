@@ -4,7 +4,7 @@ import ProfileSetup from "./pages/ProfileSetup";
 import Profile from "./pages/Profile";
 import FoodHistory from "./pages/FoodHistory";
 import { apiGet } from "@/lib/api";
-import type { UserDto } from "@/types";
+import type { CursorPage, UserDto } from "@/types";
 
 type View = "dashboard" | "profile" | "foodHistory";
 
@@ -21,7 +21,7 @@ export default function App() {
 
     useEffect(() => {
         (async () => {
-            const users = await apiGet<UserDto[]>("/users");
+            const users = (await apiGet<CursorPage<UserDto>>("/users?size=200")).items;
             const first = users?.[0] ?? null;
             setUser(first);
             setActiveUser(first);
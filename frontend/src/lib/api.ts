@@ -15,3 +15,8 @@ export async function apiPost<T>(path: string, body: unknown): Promise<T> {
     if (!res.ok) throw new Error(await res.text());
     return res.json();
 }
+
+// Stream SSE del backend (mismo API_BASE); el navegador reconecta solo
+export function apiEventSource(path: string): EventSource {
+    return new EventSource(`${API_BASE}${path}`);
+}
@@ -1,6 +1,6 @@
 import { useEffect, useMemo, useState } from "react";
-import { apiGet, apiPost } from "@/lib/api";
-import type { TodaySummaryDto, UserDto } from "@/types";
+import { apiEventSource, apiGet, apiPost } from "@/lib/api";
+import type { CursorPage, TodaySummaryDto, UserDto } from "@/types";
 import { Card, CardContent, CardHeader, CardTitle } from "@/components/ui/card";
 import { Button } from "@/components/ui/button";
 import { Input } from "@/components/ui/input";
@@ -59,7 +59,7 @@ export default function Dashboard({
 
     useEffect(() => {
         (async () => {
-            const u = await apiGet<UserDto[]>("/users");
+            const u = (await apiGet<CursorPage<UserDto>>("/users?size=200")).items;
             setUsers(u);
             if (u.length > 0) setUserId(u[0].id);
         })();
@@ -71,6 +71,16 @@ export default function Dashboard({
         // eslint-disable-next-line react-hooks/exhaustive-deps
     }, [userId]);
 
+    // Cambios hechos desde otra pestaña o dispositivo llegan por SSE
+    useEffect(() => {
+        if (!userId) return;
+        const es = apiEventSource(`/live/summary?userId=${userId}`);
+        es.addEventListener("summary", (e) => {
+            setSummary(JSON.parse((e as MessageEvent<string>).data) as TodaySummaryDto);
+        });
+        return () => es.close();
+    }, [userId]);
+
 
 
     const waterProgress = useMemo(() => {
@@ -1,6 +1,6 @@
 import { useEffect, useMemo, useState } from "react";
 import { apiGet } from "@/lib/api";
-import type { FoodLogDto, PageDto, UserDto } from "@/types";
+import type { CursorPage, FoodLogDto, UserDto } from "@/types";
 import { Card, CardContent, CardHeader, CardTitle } from "@/components/ui/card";
 import { Button } from "@/components/ui/button";
 import { Input } from "@/components/ui/input";
@@ -41,21 +41,28 @@ export default function FoodHistory({
     const [users, setUsers] = useState<UserDto[]>([]);
     const [selectedUserId, setSelectedUserId] = useState<number>(userId);
 
+    // cursores de las páginas visitadas: cursors[i] abre la página i ("" = primera)
+    const [cursors, setCursors] = useState<string[]>([""]);
     const [page, setPage] = useState(0);
     const [size] = useState(25);
 
-    const [data, setData] = useState<PageDto<FoodLogDto> | null>(null);
+    const [data, setData] = useState<CursorPage<FoodLogDto> | null>(null);
     const [q, setQ] = useState("");
     const [loading, setLoading] = useState(false);
     const [err, setErr] = useState<string | null>(null);
 
-    async function load(p = page) {
+    async function load(p = page, known = cursors) {
         setLoading(true);
         setErr(null);
         try {
-            const res = await apiGet<PageDto<FoodLogDto>>(
-                `/food-logs?userId=${selectedUserId}&page=${p}&size=${size}`
+            const cursor = known[p];
+            const res = await apiGet<CursorPage<FoodLogDto>>(
+                `/food-logs?userId=${selectedUserId}&size=${size}` +
+                    (cursor ? `&cursor=${encodeURIComponent(cursor)}` : "")
             );
+            const next = known.slice(0, p + 1);
+            if (res.nextCursor) next.push(res.nextCursor);
+            setCursors(next);
             setData(res);
             setPage(p);
         } catch (e: any) {
@@ -67,7 +74,7 @@ export default function FoodHistory({
 
     useEffect(() => {
         (async () => {
-            const u = await apiGet<UserDto[]>("/users");
+            const u = (await apiGet<CursorPage<UserDto>>("/users?size=200")).items;
             setUsers(u);
             if (u.length > 0 && !selectedUserId) setSelectedUserId(u[0].id);
         })();
@@ -76,12 +83,12 @@ export default function FoodHistory({
 
     useEffect(() => {
         if (!selectedUserId) return;
-        load(0);
+        load(0, [""]);
         // eslint-disable-next-line react-hooks/exhaustive-deps
     }, [selectedUserId]);
 
     const filtered = useMemo(() => {
-        const list = data?.content ?? [];
+        const list = data?.items ?? [];
         const needle = q.trim().toLowerCase();
         if (!needle) return list;
         return list.filter((x) => (x.description ?? "").toLowerCase().includes(needle));
@@ -200,7 +207,7 @@ export default function FoodHistory({
                             </CardTitle>
 
                             <div className="text-xs text-muted-foreground">
-                                {data ? `${data.totalElements} registros` : "—"}
+                                {data ? `${data.items.length} registros` : "—"}
                             </div>
                         </CardHeader>
 
@@ -237,13 +244,13 @@ export default function FoodHistory({
                             {data ? (
                                 <div className="pt-2 flex items-center justify-between">
                                     <div className="text-xs text-muted-foreground">
-                                        Página {data.number + 1} / {data.totalPages}
+                                        Página {page + 1}
                                     </div>
                                     <div className="flex gap-2">
                                         <Button
                                             variant="secondary"
                                             className="rounded-2xl"
-                                            disabled={loading || data.first}
+                                            disabled={loading || page === 0}
                                             onClick={() => load(page - 1)}
                                         >
                                             Anterior
@@ -251,7 +258,7 @@ export default function FoodHistory({
                                         <Button
                                             variant="secondary"
                                             className="rounded-2xl"
-                                            disabled={loading || data.last}
+                                            disabled={loading || !data.hasMore}
                                             onClick={() => load(page + 1)}
                                         >
                                             Siguiente
@@ -81,14 +81,10 @@ export type FoodLogDto = {
     sugarG?: number | null;
 };
 
-export type PageDto<T> = {
-    content: T[];
-    number: number;
-    size: number;
-    totalElements: number;
-    totalPages: number;
-    first: boolean;
-    last: boolean;
+export type CursorPage<T> = {
+    items: T[];
+    nextCursor: string | null;
+    hasMore: boolean;
 };
 
 type TodayRecommendationsDto = {